@@ -0,0 +1,24 @@
+package com.shahrokhi.bankingsystem.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+public enum AccessPattern {
+    UNIFORM {
+        @Override
+        int next(int accounts) {
+            return ThreadLocalRandom.current().nextInt(accounts);
+        }
+    },
+    // Four out of five operations hit one of the first HOT_ACCOUNTS accounts
+    SKEWED {
+        @Override
+        int next(int accounts) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return random.nextInt(5) < 4 ? random.nextInt(Math.min(HOT_ACCOUNTS, accounts)) : random.nextInt(accounts);
+        }
+    };
+
+    static final int HOT_ACCOUNTS = 8;
+
+    abstract int next(int accounts);
+}
@@ -0,0 +1,50 @@
+package com.shahrokhi.bankingsystem.benchmark;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.Bank;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountBenchmark {
+    private static final int ACCOUNTS = 1024;
+
+    @Param({"UNIFORM", "SKEWED"})
+    public AccessPattern accessPattern;
+
+    private Account[] accounts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Bank bank = new Bank();
+        accounts = new Account[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts[i] = new Account(bank, "Holder-" + i, 1_000_000_000.0);
+        }
+    }
+
+    @Benchmark
+    public void deposit() {
+        pick().depositMinorUnits(100);
+    }
+
+    @Benchmark
+    public boolean withdraw() {
+        return pick().withdrawMinorUnits(100);
+    }
+
+    @Benchmark
+    public long getBalance() {
+        return pick().getBalanceMinorUnits();
+    }
+
+    private Account pick() {
+        return accounts[accessPattern.next(ACCOUNTS)];
+    }
+}
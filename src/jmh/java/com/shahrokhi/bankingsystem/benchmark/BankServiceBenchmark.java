@@ -0,0 +1,130 @@
+package com.shahrokhi.bankingsystem.benchmark;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.Bank;
+import com.shahrokhi.bankingsystem.service.AccountService;
+import com.shahrokhi.bankingsystem.service.BankService;
+import com.shahrokhi.bankingsystem.service.admission.AdmissionControl;
+import com.shahrokhi.bankingsystem.service.aggregates.BankAggregates;
+import com.shahrokhi.bankingsystem.service.concurrency.AccountLockManager;
+import com.shahrokhi.bankingsystem.service.execution.ExecutionMode;
+import com.shahrokhi.bankingsystem.service.execution.ShardedTransactionExecutor;
+import com.shahrokhi.bankingsystem.service.execution.TransactionExecutor;
+import com.shahrokhi.bankingsystem.service.metrics.TransactionMetrics;
+import com.shahrokhi.bankingsystem.service.persistence.OptimisticAccountStore;
+import com.shahrokhi.bankingsystem.service.transactionJournal.TransactionJournal;
+import com.shahrokhi.bankingsystem.service.transactionObservation.FsyncPolicy;
+import com.shahrokhi.bankingsystem.service.transactionObservation.TransactionEventBus;
+import com.shahrokhi.bankingsystem.service.transactionObservation.TransactionLogger;
+import com.shahrokhi.bankingsystem.service.transactionObservation.TransactionObserver;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BankServiceBenchmark {
+    private static final int ACCOUNTS = 1024;
+
+    @Param({"UNIFORM", "SKEWED"})
+    public AccessPattern accessPattern;
+
+    // logger uses fsync NONE, logger-fsync EVERY_BATCH
+    @Param({"none", "logger", "logger-fsync", "journal"})
+    public String observer;
+
+    @Param({"PLATFORM", "SHARDED"})
+    public ExecutionMode executionMode;
+
+    private BankService bankService;
+    private TransactionExecutor transactionExecutor;
+    private final List<TransactionObserver> observers = new ArrayList<>();
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+    private Path workDirectory;
+    private Account[] accounts;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDirectory = Files.createTempDirectory("bank-benchmark");
+        switch (observer) {
+            case "logger" -> register(new TransactionLogger(workDirectory.resolve("log.txt"), 8192, FsyncPolicy.NONE, 0));
+            case "logger-fsync" -> register(new TransactionLogger(workDirectory.resolve("log.txt"), 8192, FsyncPolicy.EVERY_BATCH, 0));
+            case "journal" -> register(new TransactionJournal(workDirectory.resolve("journal"), 1 << 20));
+            case "none" -> {
+            }
+            default -> throw new IllegalArgumentException("Unknown observer " + observer);
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        transactionExecutor = new TransactionExecutor(ExecutionMode.PLATFORM, threads);
+        ShardedTransactionExecutor shardedTransactionExecutor = executionMode == ExecutionMode.SHARDED
+                ? new ShardedTransactionExecutor(threads) : new ShardedTransactionExecutor();
+        bankService = new BankService(null, new NoPersistenceAccountService(), null,
+                new AccountLockManager(), transactionExecutor, shardedTransactionExecutor,
+                new OptimisticAccountStore(), new BankAggregates(), new TransactionMetrics(), new TransactionEventBus(),
+                new AdmissionControl(), observers);
+        bankService.initialize();
+
+        Bank bank = new Bank();
+        accounts = new Account[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts[i] = new Account(bank, "Holder-" + i, 1_000_000_000.0);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        observers.forEach(bankService::removeObserver);
+        bankService.shutdown();
+        for (AutoCloseable closeable : closeables) {
+            closeable.close();
+        }
+    }
+
+    @Benchmark
+    public boolean deposit() {
+        return bankService.depositAsync(pick(), 1.0).join();
+    }
+
+    @Benchmark
+    public boolean withdraw() {
+        return bankService.withdrawAsync(pick(), 1.0).join();
+    }
+
+    @Benchmark
+    public boolean transfer() {
+        Account from = pick();
+        Account to = pick();
+        return bankService.transferAsync(from, to, 1.0).join();
+    }
+
+    private Account pick() {
+        return accounts[accessPattern.next(ACCOUNTS)];
+    }
+
+    private <T extends TransactionObserver & AutoCloseable> void register(T transactionObserver) {
+        observers.add(transactionObserver);
+        closeables.add(transactionObserver);
+    }
+
+    // Keeps the database out of the measurement
+    private static final class NoPersistenceAccountService extends AccountService {
+        NoPersistenceAccountService() {
+            super(null, null, null);
+        }
+
+        @Override
+        public Account saveBalance(Account account) {
+            return account;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.shahrokhi.bankingsystem.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Arguments: benchmark regex, comma separated thread counts, output directory.
+// Writes one JSON result per thread count, e.g. target/jmh/result-t4.json
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = args.length > 0 ? args[0] : ".*";
+        int[] threadCounts = Arrays.stream((args.length > 1 ? args[1] : "1").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        Path output = Path.of(args.length > 2 ? args[2] : "target/jmh");
+        Files.createDirectories(output);
+
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(output.resolve("result-t" + threads + ".json").toString())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
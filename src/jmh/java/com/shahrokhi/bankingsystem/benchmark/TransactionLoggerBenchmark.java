@@ -0,0 +1,48 @@
+package com.shahrokhi.bankingsystem.benchmark;
+
+import com.shahrokhi.bankingsystem.service.transactionJournal.TransactionJournal;
+import com.shahrokhi.bankingsystem.service.transactionObservation.FsyncPolicy;
+import com.shahrokhi.bankingsystem.service.transactionObservation.TransactionLogger;
+import com.shahrokhi.bankingsystem.service.transactionObservation.TransactionObserver;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionLoggerBenchmark {
+
+    @Param({"logger-NONE", "logger-INTERVAL", "logger-EVERY_BATCH", "journal"})
+    public String variant;
+
+    private TransactionObserver observer;
+    private Path workDirectory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDirectory = Files.createTempDirectory("logger-benchmark");
+        if (variant.equals("journal")) {
+            observer = new TransactionJournal(workDirectory.resolve("journal"), 1 << 20);
+        } else {
+            FsyncPolicy policy = FsyncPolicy.valueOf(variant.substring("logger-".length()));
+            observer = new TransactionLogger(workDirectory.resolve("log.txt"), 8192, policy, 10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ((AutoCloseable) observer).close();
+    }
+
+    @Benchmark
+    public void onTransaction() {
+        observer.onTransaction("Account-000042", "Deposit", 12.5);
+    }
+}
@@ -0,0 +1,64 @@
+package com.shahrokhi.bankingsystem.cli;
+
+import com.shahrokhi.bankingsystem.service.BankService;
+import com.shahrokhi.bankingsystem.service.accountImport.AccountImporter;
+import com.shahrokhi.bankingsystem.service.accountImport.ImportResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@Component
+@ConditionalOnProperty(prefix = "bank.import", name = "file")
+public class AccountImportRunner implements CommandLineRunner {
+
+    private final AccountImporter accountImporter;
+    private final BankService bankService;
+    private final ConfigurableApplicationContext context;
+    private final Path file;
+    private final long bankId;
+    private final boolean exitOnCompletion;
+
+    @Autowired
+    public AccountImportRunner(AccountImporter accountImporter, BankService bankService,
+                               ConfigurableApplicationContext context,
+                               @Value("${bank.import.file}") Path file,
+                               @Value("${bank.import.bank-id:0}") long bankId,
+                               @Value("${bank.import.exit-on-completion:true}") boolean exitOnCompletion) {
+        this.accountImporter = accountImporter;
+        this.bankService = bankService;
+        this.context = context;
+        this.file = file;
+        this.bankId = bankId;
+        this.exitOnCompletion = exitOnCompletion;
+    }
+
+    @Override
+    public void run(String... args) throws IOException {
+        long targetBankId = bankId > 0 ? bankId : bankService.createBank().getId();
+        ImportResult result;
+        try (Reader csv = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            result = accountImporter.importCsv(targetBankId, csv).orElse(null);
+        }
+        if (result == null) {
+            System.out.println("Bank with ID " + targetBankId + " not found.");
+        } else {
+            System.out.printf("Imported %d accounts from %s into bank %d in %d ms (%s to %s)%n",
+                    result.imported(), file, result.bankId(), result.elapsedMillis(),
+                    result.firstAccountNumber(), result.lastAccountNumber());
+        }
+        if (exitOnCompletion) {
+            int status = result != null ? 0 : 1;
+            System.exit(SpringApplication.exit(context, () -> status));
+        }
+    }
+}
@@ -4,16 +4,20 @@ import com.shahrokhi.bankingsystem.model.Account;
 import com.shahrokhi.bankingsystem.model.Bank;
 import com.shahrokhi.bankingsystem.service.AccountService;
 import com.shahrokhi.bankingsystem.service.BankService;
+import com.shahrokhi.bankingsystem.service.TransactionResult;
+import com.shahrokhi.bankingsystem.service.TransferResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.util.Optional;
 import java.util.Scanner;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Component
+@ConditionalOnProperty(prefix = "bank.console", name = "enabled", havingValue = "true", matchIfMissing = true)
 public class ConsoleUI implements CommandLineRunner {
 
     private final BankService bankService;
@@ -64,8 +68,12 @@ public class ConsoleUI implements CommandLineRunner {
                         System.out.print("Enter initial balance: ");
                         double initialBalance = scanner.nextDouble();
 
-                        Account account = bankService.addAccount(bankId, accountHolderName, initialBalance);
-                        System.out.println("Account created with Account Number: " + account.getAccountNumber());
+                        try {
+                            Account account = bankService.addAccount(bankId, accountHolderName, initialBalance);
+                            System.out.println("Account created with Account Number: " + account.getAccountNumber());
+                        } catch (IllegalArgumentException e) {
+                            System.out.println(e.getMessage());
+                        }
                     } else {
                         System.out.println("Bank with ID " + bankId + " not found.");
                     }
@@ -126,34 +134,34 @@ public class ConsoleUI implements CommandLineRunner {
 
             switch (transactionType.toLowerCase()) {
                 case "deposit":
-                    Future<Boolean> depositResult = bankService.depositAsync(account, amount);
+                    CompletableFuture<TransactionResult> depositResult = bankService.submitDeposit(account, amount);
                     System.out.println("Deposit in progress...");
                     try {
-                        boolean success = depositResult.get();
-                        if(success) {
+                        TransactionResult result = depositResult.join();
+                        if(result.success()) {
                             System.out.println("Deposit successful. Updated balance: "
-                                    + bankService.getBalance(account));
+                                    + result.balance());
                         } else {
                             System.out.println("Deposit failed!");
                         }
-                    } catch (InterruptedException | ExecutionException e) {
+                    } catch (CompletionException e) {
                         e.printStackTrace();
                         System.out.println("An error occurred during the deposit");
                     }
                     break;
 
                 case "withdraw":
-                    Future<Boolean> withdrawResult = bankService.withdrawAsync(account, amount);
+                    CompletableFuture<TransactionResult> withdrawResult = bankService.submitWithdraw(account, amount);
                     System.out.println("Withdraw in progress...");
                     try {
-                        boolean success = withdrawResult.get();
-                        if(success) {
+                        TransactionResult result = withdrawResult.join();
+                        if(result.success()) {
                             System.out.println("Withdrawal successful. Updated balance: "
-                                    + bankService.getBalance(account));
+                                    + result.balance());
                         } else {
                             System.out.println("Withdrawal failed, Insufficient balance!");
                         }
-                    } catch (InterruptedException | ExecutionException e) {
+                    } catch (CompletionException e) {
                         e.printStackTrace();
                         System.out.println("An error occurred during the withdraw");
                     }
@@ -183,21 +191,21 @@ public class ConsoleUI implements CommandLineRunner {
             System.out.print("Enter transfer amount: ");
             double amount = scanner.nextDouble();
 
-            Future<Boolean> transferResult = bankService.transferAsync(fromAccount, toAccount, amount);
+            CompletableFuture<TransferResult> transferResult = bankService.submitTransfer(fromAccount, toAccount, amount);
             System.out.println("Transfer in progress...");
 
             try {
-                boolean success = transferResult.get();
-                if(success) {
+                TransferResult result = transferResult.join();
+                if(result.success()) {
                     System.out.println("Transfer successful.");
                     System.out.println("Updated balance for source account (" + fromAccountNumber + "): "
-                            + bankService.getBalance(fromAccount));
+                            + result.fromBalance());
                     System.out.println("Updated balance for destination account (" + toAccountNumber + "): "
-                            + bankService.getBalance(toAccount));
+                            + result.toBalance());
                 } else {
                     System.out.println("Transfer failed, Insufficient balance!");
                 }
-            } catch (InterruptedException | ExecutionException e) {
+            } catch (CompletionException e) {
                 e.printStackTrace();
                 System.out.println("An error occurred during the transfer");
             }
@@ -213,7 +221,7 @@ public class ConsoleUI implements CommandLineRunner {
 
         if (account.isPresent()) {
             System.out.println("Bank ID : "
-                    + account.get().getBank().getId());
+                    + account.get().getBankId());
             System.out.println("Account number : "
                     + accountNumber);
             System.out.println("Account holder name : "
@@ -0,0 +1,93 @@
+package com.shahrokhi.bankingsystem.cli;
+
+import com.shahrokhi.bankingsystem.model.Money;
+import com.shahrokhi.bankingsystem.service.loadGeneration.LoadGenerator;
+import com.shahrokhi.bankingsystem.service.loadGeneration.LoadProfile;
+import com.shahrokhi.bankingsystem.service.loadGeneration.LoadReport;
+import com.shahrokhi.bankingsystem.service.loadGeneration.MoneyCheck;
+import com.shahrokhi.bankingsystem.service.loadGeneration.OperationReport;
+import com.shahrokhi.bankingsystem.service.metrics.LatencyHistogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Exits with status 0 if money was conserved and 1 otherwise, unless told to keep serving
+@Component
+@ConditionalOnProperty(prefix = "bank.load", name = "enabled", havingValue = "true")
+public class LoadGeneratorRunner implements CommandLineRunner {
+
+    private final LoadGenerator loadGenerator;
+    private final ConfigurableApplicationContext context;
+    private final LoadProfile profile;
+    private final boolean exitOnCompletion;
+
+    @Autowired
+    public LoadGeneratorRunner(LoadGenerator loadGenerator, ConfigurableApplicationContext context,
+                               @Value("${bank.load.banks:4}") int banks,
+                               @Value("${bank.load.accounts-per-bank:1000}") int accountsPerBank,
+                               @Value("${bank.load.clients:16}") int clients,
+                               @Value("${bank.load.duration:60s}") Duration duration,
+                               @Value("${bank.load.deposit-weight:40}") int depositWeight,
+                               @Value("${bank.load.withdraw-weight:30}") int withdrawWeight,
+                               @Value("${bank.load.transfer-weight:30}") int transferWeight,
+                               @Value("${bank.load.zipf-exponent:1.0}") double zipfExponent,
+                               @Value("${bank.load.initial-balance:1000}") double initialBalance,
+                               @Value("${bank.load.max-amount:100}") double maxAmount,
+                               @Value("${bank.load.report-interval:10s}") Duration reportInterval,
+                               @Value("${bank.load.seed:42}") long seed,
+                               @Value("${bank.load.exit-on-completion:true}") boolean exitOnCompletion) {
+        this.loadGenerator = loadGenerator;
+        this.context = context;
+        this.profile = new LoadProfile(banks, accountsPerBank, clients, duration, depositWeight, withdrawWeight,
+                transferWeight, zipfExponent, initialBalance, maxAmount, reportInterval, seed);
+        this.exitOnCompletion = exitOnCompletion;
+    }
+
+    @Override
+    public void run(String... args) throws InterruptedException {
+        LoadReport report = loadGenerator.run(profile);
+        print(report);
+        if (exitOnCompletion) {
+            int status = report.moneyCheck().conserved() ? 0 : 1;
+            System.exit(SpringApplication.exit(context, () -> status));
+        }
+    }
+
+    private static void print(LoadReport report) {
+        LoadProfile profile = report.profile();
+        System.out.println("==================================================");
+        System.out.printf("Load run: %d banks x %d accounts, %d clients, %d s, mix %d/%d/%d, zipf %.2f%n",
+                profile.banks(), profile.accountsPerBank(), profile.clients(), profile.duration().toSeconds(),
+                profile.depositWeight(), profile.withdrawWeight(), profile.transferWeight(), profile.zipfExponent());
+        System.out.printf("%-10s %12s %10s %8s %10s %10s %10s %10s%n",
+                "operation", "succeeded", "refused", "failed", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        report.operations().forEach((operation, result) -> {
+            LatencyHistogram.Snapshot latency = result.latency();
+            System.out.printf("%-10s %12d %10d %8d %10.3f %10.3f %10.3f %10.3f%n",
+                    operation.name().toLowerCase(), result.succeeded(), result.refused(), result.failed(),
+                    millis(latency.p50Nanos()), millis(latency.p99Nanos()), millis(latency.p999Nanos()),
+                    millis(latency.maxNanos()));
+        });
+        System.out.printf("Throughput: %.1f operations/s (%d operations in %.1f s)%n",
+                report.throughputPerSecond(), report.totalOperations(), report.elapsed().toMillis() / 1000.0);
+        MoneyCheck moneyCheck = report.moneyCheck();
+        System.out.printf("Money conserved: %s (expected %s, in memory %s, persisted %s, aggregates %s)%n",
+                moneyCheck.conserved() ? "yes" : "NO", Money.toDecimal(moneyCheck.expected()),
+                Money.toDecimal(moneyCheck.inMemory()), Money.toDecimal(moneyCheck.persisted()),
+                Money.toDecimal(moneyCheck.aggregated()));
+        long failed = report.operations().values().stream().mapToLong(OperationReport::failed).sum();
+        if (failed > 0) {
+            System.out.println(failed + " operations failed, see the log for details");
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
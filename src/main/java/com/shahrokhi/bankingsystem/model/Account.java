@@ -3,61 +3,239 @@ package com.shahrokhi.bankingsystem.model;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 @Entity
 @ToString
 @NoArgsConstructor
 public class Account {
     private static final AtomicLong accountNumberCounter = new AtomicLong(1);
+    private static final VarHandle BALANCE;
 
+    static {
+        try {
+            BALANCE = MethodHandles.lookup().findVarHandle(Account.class, "balance", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Getter
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence ids, unlike identity columns they let Hibernate batch inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = IdSequences.ACCOUNT)
+    @SequenceGenerator(name = IdSequences.ACCOUNT, sequenceName = IdSequences.ACCOUNT,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Getter
-    @Setter
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "bank_id")
     private Bank bank;
+    // Same column as bank, readable without initializing the lazy bank outside a session
+    @Getter
+    @Column(name = "bank_id", insertable = false, updatable = false)
+    private Long bankId;
     @Getter
     @Column(unique = true)
     private String accountNumber;
     @Getter
     private String holderName;
-    private double balance;
+    // Balance in minor units, only updated through compare-and-set on BALANCE. Persisted through
+    // getPersistedBalance, which adds the deposit stripes of a striped account
+    @Transient
+    private volatile long balance;
+    // Deposits to a striped account that no withdrawal has needed yet, null unless striping is enabled
+    @Transient
+    @ToString.Exclude
+    private volatile LongAdder depositStripes;
+    // Replaces balance once the account is bound to an off-heap slot, null otherwise
+    @Transient
+    @ToString.Exclude
+    private volatile BalanceCell balanceCell;
+    // Odd while a withdrawal moves the stripes into balance, so readers of the total retry instead of
+    // missing the moved amount or counting it twice
+    @Transient
+    @ToString.Exclude
+    private volatile int drainSequence;
+    // Only ever changed by the conditional updates of OptimisticAccountStore, never by JPA
+    @Getter
+    @Column(name = "version", nullable = false, updatable = false)
+    private volatile long version;
 
     public Account(String holderName, double initialBalance) {
         this.accountNumber = generateAccountNumber();
         this.holderName = holderName;
-        this.balance = initialBalance;
+        this.balance = Money.toMinorUnits(initialBalance);
+    }
+
+    public Account(String accountNumber, String holderName, double initialBalance) {
+        this.accountNumber = accountNumber;
+        this.holderName = holderName;
+        this.balance = Money.toMinorUnits(initialBalance);
     }
 
     public Account(Bank bank, String holderName, double initialBalance) {
-        this.bank = bank;
+        setBank(bank);
         this.accountNumber = generateAccountNumber();
         this.holderName = holderName;
-        this.balance = initialBalance;
+        this.balance = Money.toMinorUnits(initialBalance);
+    }
+
+    public void setBank(Bank bank) {
+        this.bank = bank;
+        this.bankId = bank == null ? null : bank.getId();
+    }
+
+    public double getBalance() {
+        return Money.toMajorUnits(getBalanceMinorUnits());
+    }
+
+    public long getBalanceMinorUnits() {
+        LongAdder stripes = depositStripes;
+        if (stripes == null) {
+            return base();
+        }
+        while (true) {
+            int sequence = drainSequence;
+            if ((sequence & 1) == 0) {
+                long total = base() + stripes.sum();
+                if (sequence == drainSequence) {
+                    return total;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    public synchronized void enableStriping() {
+        if (depositStripes == null) {
+            depositStripes = new LongAdder();
+        }
+    }
+
+    public boolean isStriped() {
+        return depositStripes != null;
+    }
+
+    // The cell must already hold the balance, and no other thread may use the account yet
+    public synchronized void bindBalance(BalanceCell cell) {
+        if (depositStripes != null) {
+            throw new IllegalStateException("Account " + accountNumber + " is striped, bind it before striping");
+        }
+        balanceCell = cell;
     }
 
-    public synchronized double getBalance() {
-        return balance;
+    public boolean isOffHeap() {
+        return balanceCell != null;
     }
 
-    public synchronized void deposit(double amount) {
-        balance += amount;
+    public void deposit(double amount) {
+        depositMinorUnits(Money.toMinorUnits(amount));
+    }
+
+    public void depositMinorUnits(long amount) {
+        LongAdder stripes = depositStripes;
+        if (stripes != null) {
+            stripes.add(amount);
+        } else {
+            addToBase(amount);
+        }
+    }
+
+    public boolean withdraw(double amount) {
+        return withdrawMinorUnits(Money.toMinorUnits(amount));
+    }
+
+    public boolean withdrawMinorUnits(long amount) {
+        while (true) {
+            long current = base();
+            if (current >= amount) {
+                if (compareAndSetBase(current, current - amount)) {
+                    return true;
+                }
+            } else if (drainStripes() == 0) {
+                // Refused only once no deposit is left outside the balance
+                return false;
+            }
+        }
+    }
+
+    // Deposits still on the stripes are part of the state being replaced
+    public void refresh(long balanceMinorUnits, long version) {
+        LongAdder stripes = depositStripes;
+        if (stripes == null) {
+            setBase(balanceMinorUnits);
+        } else {
+            synchronized (stripes) {
+                drainSequence++;
+                stripes.reset();
+                setBase(balanceMinorUnits);
+                drainSequence++;
+            }
+        }
+        this.version = version;
+    }
+
+    @Access(AccessType.PROPERTY)
+    @Column(name = "balance")
+    protected long getPersistedBalance() {
+        return getBalanceMinorUnits();
+    }
+
+    protected void setPersistedBalance(long balanceMinorUnits) {
+        setBase(balanceMinorUnits);
+    }
+
+    // Each cell is reset atomically, a concurrent deposit is either moved now or left for the next drain
+    private long drainStripes() {
+        LongAdder stripes = depositStripes;
+        if (stripes == null) {
+            return 0;
+        }
+        synchronized (stripes) {
+            drainSequence++;
+            long moved = stripes.sumThenReset();
+            addToBase(moved);
+            drainSequence++;
+            return moved;
+        }
+    }
+
+    private long base() {
+        BalanceCell cell = balanceCell;
+        return cell != null ? cell.get() : (long) BALANCE.getVolatile(this);
+    }
+
+    private boolean compareAndSetBase(long expected, long value) {
+        BalanceCell cell = balanceCell;
+        return cell != null ? cell.compareAndSet(expected, value) : BALANCE.compareAndSet(this, expected, value);
+    }
+
+    private void addToBase(long delta) {
+        BalanceCell cell = balanceCell;
+        if (cell != null) {
+            cell.add(delta);
+        } else {
+            BALANCE.getAndAdd(this, delta);
+        }
     }
 
-    public synchronized boolean withdraw(double amount) {
-        if (balance >= amount) {
-            balance -= amount;
-            return true;
+    private void setBase(long value) {
+        BalanceCell cell = balanceCell;
+        if (cell != null) {
+            cell.set(value);
+        } else {
+            BALANCE.setVolatile(this, value);
         }
-        return false;
     }
 
-    // Custom method to generate a unique account number
+    // Custom method to generate a unique account number, only unique within this JVM.
+    // Persisted accounts get their numbers from AccountNumberGenerator instead
     private String generateAccountNumber() {
-        return "Account-" + String.format("%06d", accountNumberCounter.getAndIncrement());
+        return AccountNumbers.format(accountNumberCounter.getAndIncrement());
     }
 }
@@ -0,0 +1,29 @@
+package com.shahrokhi.bankingsystem.model;
+
+public final class AccountNumbers {
+    public static final String PREFIX = "Account-";
+
+    private AccountNumbers() {
+    }
+
+    public static String format(long sequence) {
+        return PREFIX + String.format("%06d", sequence);
+    }
+
+    // -1 if the account number is not in the generated format
+    public static long parse(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() <= PREFIX.length()
+                || !accountNumber.startsWith(PREFIX)) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = PREFIX.length(); i < accountNumber.length(); i++) {
+            int digit = accountNumber.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
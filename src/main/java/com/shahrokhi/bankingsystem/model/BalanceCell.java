@@ -0,0 +1,11 @@
+package com.shahrokhi.bankingsystem.model;
+
+public interface BalanceCell {
+    long get();
+
+    void set(long balance);
+
+    boolean compareAndSet(long expected, long balance);
+
+    void add(long delta);
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.Hibernate;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -14,7 +15,10 @@ import java.util.Set;
 public class Bank {
     @Getter
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence ids, unlike identity columns they let Hibernate batch inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = IdSequences.BANK)
+    @SequenceGenerator(name = IdSequences.BANK, sequenceName = IdSequences.BANK,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Getter
@@ -22,7 +26,11 @@ public class Bank {
     private Set<Account> accounts = new HashSet<>();
 
     public void addAccount(Account account) {
-        accounts.add(account);
+        // The account owns the relation. Adding to a set that is not loaded yet would load every account of
+        // the bank just to check for duplicates, and it is loaded with the new account anyway once read
+        if (Hibernate.isInitialized(accounts)) {
+            accounts.add(account);
+        }
         account.setBank(this);
     }
 }
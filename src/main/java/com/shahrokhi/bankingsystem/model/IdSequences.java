@@ -0,0 +1,20 @@
+package com.shahrokhi.bankingsystem.model;
+
+// Read the way Hibernate's pooled optimizer does, so JDBC inserts take ids from the same blocks
+public final class IdSequences {
+    public static final String BANK = "bank_seq";
+    public static final String ACCOUNT = "account_seq";
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdSequences() {
+    }
+
+    // The first value of a new sequence is 1, which Hibernate treats as a block of its own
+    public static long firstIdOf(long sequenceValue) {
+        return Math.max(1, sequenceValue - ALLOCATION_SIZE + 1);
+    }
+
+    public static long restartValueAfter(long maxId) {
+        return maxId + ALLOCATION_SIZE;
+    }
+}
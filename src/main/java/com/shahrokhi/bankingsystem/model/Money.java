@@ -0,0 +1,39 @@
+package com.shahrokhi.bankingsystem.model;
+
+import java.math.BigDecimal;
+
+public final class Money {
+    public static final int MINOR_UNITS_PER_MAJOR = 100;
+    // Largest amount of one transaction or opening balance, exact as a double and far from overflowing a balance
+    public static final long MAX_AMOUNT_MINOR_UNITS = 1_000_000_000_000_000L;
+    private static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    public static long toMinorUnits(double amount) {
+        return Math.round(amount * MINOR_UNITS_PER_MAJOR);
+    }
+
+    // Finite, at least one minor unit once rounded and at most MAX_AMOUNT_MINOR_UNITS
+    public static boolean isTransactionAmount(double amount) {
+        return isAmount(amount) && toMinorUnits(amount) >= 1;
+    }
+
+    public static boolean isOpeningBalance(double amount) {
+        return isAmount(amount) && toMinorUnits(amount) >= 0;
+    }
+
+    private static boolean isAmount(double amount) {
+        return Double.isFinite(amount) && Math.abs(amount) <= (double) MAX_AMOUNT_MINOR_UNITS / MINOR_UNITS_PER_MAJOR;
+    }
+
+    public static double toMajorUnits(long minorUnits) {
+        return (double) minorUnits / MINOR_UNITS_PER_MAJOR;
+    }
+
+    // For export formats, where a double could print as 1.0E7
+    public static BigDecimal toDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+}
@@ -0,0 +1,49 @@
+package com.shahrokhi.bankingsystem.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+@Entity
+@NoArgsConstructor
+public class NumberBlock implements Persistable<String> {
+    @Getter
+    @Id
+    private String name;
+    @Getter
+    @Setter
+    private long nextValue;
+
+    // Assigned ids would make save() merge, a new sequence must be inserted so that a concurrent
+    // insert by another instance fails instead of being overwritten
+    @Transient
+    private boolean isNew;
+
+    public NumberBlock(String name, long nextValue) {
+        this.name = name;
+        this.nextValue = nextValue;
+        this.isNew = true;
+    }
+
+    @Override
+    public String getId() {
+        return name;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
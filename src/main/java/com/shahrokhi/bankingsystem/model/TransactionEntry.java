@@ -0,0 +1,34 @@
+package com.shahrokhi.bankingsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Rows are inserted by TransactionHistoryRecorder over JDBC, the entity defines the table and its indexes.
+// Statements read by account, the aggregates rebuild reads the retained window by creation time.
+@Entity
+@Getter
+@NoArgsConstructor
+@Table(name = "transaction_history",
+        indexes = {@Index(name = "idx_transaction_history_account", columnList = "account_number, id"),
+                @Index(name = "idx_transaction_history_created", columnList = "created_at")})
+public class TransactionEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_number", nullable = false)
+    private String accountNumber;
+
+    @Column(nullable = false)
+    private String type;
+
+    // Amount in minor units, like Account balances
+    @Column(nullable = false)
+    private long amount;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -1,10 +1,25 @@
 package com.shahrokhi.bankingsystem.repository;
 
 import com.shahrokhi.bankingsystem.model.Account;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface AccountRepository extends JpaRepository<Account, Long> {
     Optional<Account> findByAccountNumber(String accountNumber);
+
+    long countByBankId(Long bankId);
+
+    @Query("SELECT COALESCE(SUM(a.persistedBalance), 0) FROM Account a WHERE a.bankId IN :bankIds")
+    long sumBalanceByBankIdIn(@Param("bankIds") Collection<Long> bankIds);
+
+    // Longer zero padded numbers are higher, equal lengths compare lexically; may include numbers that do not parse
+    @Query("SELECT a.accountNumber FROM Account a WHERE a.accountNumber LIKE 'Account-%' "
+            + "ORDER BY LENGTH(a.accountNumber) DESC, a.accountNumber DESC")
+    List<String> findHighestAccountNumbers(Pageable pageable);
 }
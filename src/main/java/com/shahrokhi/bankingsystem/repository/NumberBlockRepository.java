@@ -0,0 +1,18 @@
+package com.shahrokhi.bankingsystem.repository;
+
+import com.shahrokhi.bankingsystem.model.NumberBlock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface NumberBlockRepository extends JpaRepository<NumberBlock, String> {
+    // Holds the row lock until commit, updates 0 rows if the sequence does not exist yet
+    @Modifying
+    @Query("update NumberBlock b set b.nextValue = b.nextValue + :size where b.name = :name")
+    int advance(String name, long size);
+
+    @Query("select b.nextValue from NumberBlock b where b.name = :name")
+    Optional<Long> findNextValue(String name);
+}
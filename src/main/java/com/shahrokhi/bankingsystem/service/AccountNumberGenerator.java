@@ -0,0 +1,93 @@
+package com.shahrokhi.bankingsystem.service;
+
+import com.shahrokhi.bankingsystem.model.AccountNumbers;
+import com.shahrokhi.bankingsystem.model.NumberBlock;
+import com.shahrokhi.bankingsystem.repository.AccountRepository;
+import com.shahrokhi.bankingsystem.repository.NumberBlockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Hi/lo: blocks are reserved with one atomic UPDATE, so they never overlap across restarts or instances
+@Service
+public class AccountNumberGenerator {
+    public static final String SEQUENCE_NAME = "account_number";
+    private static final int SCAN_PAGE_SIZE = 100;
+
+    private final NumberBlockRepository numberBlockRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+
+    private long next;
+    private long end;
+
+    @Autowired
+    public AccountNumberGenerator(NumberBlockRepository numberBlockRepository, AccountRepository accountRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${bank.account-number.block-size:100}") int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Account number block size must be positive: " + blockSize);
+        }
+        this.numberBlockRepository = numberBlockRepository;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    public synchronized String next() {
+        if (next == end) {
+            next = reserve(blockSize);
+            end = next + blockSize;
+        }
+        return AccountNumbers.format(next++);
+    }
+
+    // Returns the first of count consecutive numbers, reserved outside the in-memory block
+    public long reserve(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Number of account numbers must be positive: " + count);
+        }
+        try {
+            return transactionTemplate.execute(status -> advance(count));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the sequence row first, it exists now
+            return transactionTemplate.execute(status -> advance(count));
+        }
+    }
+
+    private long advance(int count) {
+        if (numberBlockRepository.advance(SEQUENCE_NAME, count) == 0) {
+            long first = highestAccountNumber() + 1;
+            numberBlockRepository.saveAndFlush(new NumberBlock(SEQUENCE_NAME, first + count));
+            return first;
+        }
+        // Reads our own update, the row stays locked until this transaction commits
+        return numberBlockRepository.findNextValue(SEQUENCE_NAME).orElseThrow() - count;
+    }
+
+    // Numbers not in the generated format sort among the others, the first one that parses is the highest
+    private long highestAccountNumber() {
+        for (int page = 0; ; page++) {
+            List<String> candidates =
+                    accountRepository.findHighestAccountNumbers(PageRequest.of(page, SCAN_PAGE_SIZE));
+            for (String candidate : candidates) {
+                long number = AccountNumbers.parse(candidate);
+                if (number >= 0) {
+                    return number;
+                }
+            }
+            if (candidates.size() < SCAN_PAGE_SIZE) {
+                return 0;
+            }
+        }
+    }
+}
@@ -2,25 +2,124 @@ package com.shahrokhi.bankingsystem.service;
 
 import com.shahrokhi.bankingsystem.model.Account;
 import com.shahrokhi.bankingsystem.repository.AccountRepository;
+import com.shahrokhi.bankingsystem.service.cache.AccountCache;
+import com.shahrokhi.bankingsystem.service.concurrency.HotAccounts;
+import com.shahrokhi.bankingsystem.service.offHeap.OffHeapAccountStore;
+import com.shahrokhi.bankingsystem.service.persistence.AccountWriteBehind;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 @Service
 public class AccountService {
     private final AccountRepository accountRepository;
+    private final AccountWriteBehind accountWriteBehind;
+    private final AccountCache accountCache;
+    private final HotAccounts hotAccounts;
+    private final OffHeapAccountStore offHeapAccountStore;
+    // Created once, a method reference per lookup would allocate
+    private final Function<String, Optional<Account>> loader = this::loadByAccountNumber;
+
+    public AccountService(AccountRepository accountRepository, AccountWriteBehind accountWriteBehind,
+                          AccountCache accountCache) {
+        this(accountRepository, accountWriteBehind, accountCache, new HotAccounts(), new OffHeapAccountStore());
+    }
 
     @Autowired
-    public AccountService(AccountRepository accountRepository) {
+    public AccountService(AccountRepository accountRepository, AccountWriteBehind accountWriteBehind,
+                          AccountCache accountCache, HotAccounts hotAccounts,
+                          OffHeapAccountStore offHeapAccountStore) {
         this.accountRepository = accountRepository;
+        this.accountWriteBehind = accountWriteBehind;
+        this.accountCache = accountCache;
+        this.hotAccounts = hotAccounts;
+        this.offHeapAccountStore = offHeapAccountStore;
     }
 
     public Optional<Account> findByAccountNumber(String accountNumber) {
-        return accountRepository.findByAccountNumber(accountNumber);
+        return Optional.ofNullable(findAccount(accountNumber));
+    }
+
+    // Null if there is none, allocates nothing when the account is cached
+    public Account findAccount(String accountNumber) {
+        return accountCache.find(accountNumber, loader);
     }
 
     public Account save(Account account) {
-        return accountRepository.save(account);
+        prepare(account);
+        Account saved = accountRepository.save(account);
+        accountCache.onSaved(account);
+        return saved;
+    }
+
+    public Account saveBalance(Account account) {
+        if (writesBehind(account)) {
+            accountWriteBehind.markDirty(account);
+            accountCache.onSaved(account);
+            return account;
+        }
+        return save(account);
+    }
+
+    public void saveBalances(Collection<Account> accounts) {
+        if (accountWriteBehind.isEnabled()) {
+            accounts.forEach(this::saveBalance);
+            return;
+        }
+        List<Account> saved = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            if (writesBehind(account)) {
+                saveBalance(account);
+            } else {
+                saved.add(account);
+            }
+        }
+        accountRepository.saveAll(saved);
+        saved.forEach(accountCache::onSaved);
+    }
+
+    public void flush() {
+        // Also when write-behind is off, hot and off-heap accounts are still written behind
+        accountWriteBehind.flush();
+    }
+
+    public long countByBankId(Long bankId) {
+        return accountRepository.countByBankId(bankId);
+    }
+
+    public long sumBalances(Collection<Long> bankIds) {
+        flush();
+        return accountRepository.sumBalanceByBankIdIn(bankIds);
+    }
+
+    public AccountCache.CacheStats getCacheStats() {
+        return accountCache.getStats();
+    }
+
+    private Optional<Account> loadByAccountNumber(String accountNumber) {
+        // Pending write-behind updates are written first, so a fresh load never sees a stale balance
+        flush();
+        return accountRepository.findByAccountNumber(accountNumber).map(this::prepare);
+    }
+
+    // New accounts are saved right away. Striped and off-heap accounts always go through write-behind,
+    // only the flush reads a balance that lock-free deposits or the off-heap slot may still change.
+    private boolean writesBehind(Account account) {
+        return account.getId() != null
+                && (accountWriteBehind.isEnabled() || account.isStriped() || account.isOffHeap());
+    }
+
+    // Striping needs every deposit to land on the same instance, so it is only enabled with the cache
+    private Account prepare(Account account) {
+        if (accountCache.isEnabled() && hotAccounts.isHot(account.getAccountNumber())) {
+            return hotAccounts.apply(account);
+        }
+        offHeapAccountStore.bind(account);
+        return account;
     }
 }
@@ -2,8 +2,21 @@ package com.shahrokhi.bankingsystem.service;
 
 import com.shahrokhi.bankingsystem.model.Account;
 import com.shahrokhi.bankingsystem.model.Bank;
+import com.shahrokhi.bankingsystem.model.Money;
 import com.shahrokhi.bankingsystem.repository.BankRepository;
-import com.shahrokhi.bankingsystem.service.transactionObservation.TransactionLogger;
+import com.shahrokhi.bankingsystem.service.admission.AdmissionControl;
+import com.shahrokhi.bankingsystem.service.aggregates.BankAggregates;
+import com.shahrokhi.bankingsystem.service.aggregates.BankSummary;
+import com.shahrokhi.bankingsystem.service.concurrency.AccountLockManager;
+import com.shahrokhi.bankingsystem.service.execution.ShardedTransactionExecutor;
+import com.shahrokhi.bankingsystem.service.execution.TransactionExecutor;
+import com.shahrokhi.bankingsystem.service.metrics.TransactionMetrics;
+import com.shahrokhi.bankingsystem.service.metrics.TransactionOperation;
+import com.shahrokhi.bankingsystem.service.netting.NettingBatch;
+import com.shahrokhi.bankingsystem.service.netting.TransferInstruction;
+import com.shahrokhi.bankingsystem.service.persistence.OptimisticAccountStore;
+import com.shahrokhi.bankingsystem.service.transactionObservation.AccountOpening;
+import com.shahrokhi.bankingsystem.service.transactionObservation.TransactionEventBus;
 import com.shahrokhi.bankingsystem.service.transactionObservation.TransactionObservable;
 import com.shahrokhi.bankingsystem.service.transactionObservation.TransactionObserver;
 import com.shahrokhi.bankingsystem.service.transactionType.Deposit;
@@ -14,120 +27,440 @@ import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Service
 public class BankService implements TransactionObservable {
+    private static final String DEPOSIT = Deposit.class.getSimpleName();
+    private static final String WITHDRAW = Withdraw.class.getSimpleName();
 
     private final BankRepository bankRepository;
     private final AccountService accountService;
-
-    private ExecutorService executorService = Executors.newFixedThreadPool(10);
+    private final AccountNumberGenerator accountNumberGenerator;
+    private final AccountLockManager accountLockManager;
+    private final TransactionExecutor transactionExecutor;
+    private final ShardedTransactionExecutor shardedTransactionExecutor;
+    private final OptimisticAccountStore optimisticAccountStore;
+    private final BankAggregates bankAggregates;
+    private final TransactionMetrics transactionMetrics;
+    private final TransactionEventBus transactionEventBus;
+    private final AdmissionControl admissionControl;
+    private final List<TransactionObserver> transactionObservers;
+    private final ConcurrentHashMap<Long, AtomicLong> accountCounts = new ConcurrentHashMap<>();
 
     @Autowired
-    public BankService(BankRepository bankRepository, AccountService accountService) {
+    public BankService(BankRepository bankRepository, AccountService accountService,
+                       AccountNumberGenerator accountNumberGenerator,
+                       AccountLockManager accountLockManager, TransactionExecutor transactionExecutor,
+                       ShardedTransactionExecutor shardedTransactionExecutor,
+                       OptimisticAccountStore optimisticAccountStore, BankAggregates bankAggregates,
+                       TransactionMetrics transactionMetrics, TransactionEventBus transactionEventBus,
+                       AdmissionControl admissionControl, List<TransactionObserver> transactionObservers) {
         this.bankRepository = bankRepository;
         this.accountService = accountService;
+        this.accountNumberGenerator = accountNumberGenerator;
+        this.accountLockManager = accountLockManager;
+        this.transactionExecutor = transactionExecutor;
+        this.shardedTransactionExecutor = shardedTransactionExecutor;
+        this.optimisticAccountStore = optimisticAccountStore;
+        this.bankAggregates = bankAggregates;
+        this.transactionMetrics = transactionMetrics;
+        this.transactionEventBus = transactionEventBus;
+        this.admissionControl = admissionControl;
+        this.transactionObservers = transactionObservers;
     }
 
     @PostConstruct
     public void initialize() {
-        addObserver(new TransactionLogger());
+        transactionObservers.forEach(this::addObserver);
     }
 
     public Bank createBank() {
-        return bankRepository.save(new Bank());
+        Bank bank = bankRepository.save(new Bank());
+        accountCounts.put(bank.getId(), new AtomicLong());
+        transactionEventBus.publishBankCreated(bank.getId());
+        return bank;
     }
 
     @Transactional
     public Account addAccount(Long bankId, String accountHolderName, double initialBalance) {
+        if (!Money.isOpeningBalance(initialBalance)) {
+            throw new IllegalArgumentException("Initial balance must be between 0 and "
+                    + Money.toDecimal(Money.MAX_AMOUNT_MINOR_UNITS).toPlainString() + ": " + initialBalance);
+        }
         Bank bank = findById(bankId).orElse(null);
         if(bank != null) {
-            Account account = new Account(accountHolderName, initialBalance);
+            AtomicLong accountCount = accountCountOf(bankId);
+            Account account = new Account(accountNumberGenerator.next(), accountHolderName, initialBalance);
             bank.addAccount(account);
             accountService.save(account);
             bankRepository.save(bank);
+            AccountOpening opening = new AccountOpening(account.getId(), bankId,
+                    account.getAccountNumber(), account.getHolderName(), account.getBalanceMinorUnits());
+            afterCommit(() -> {
+                accountCount.incrementAndGet();
+                bankAggregates.accountOpened(bankId, opening.balance());
+                transactionEventBus.publishAccountOpened(opening);
+            });
             return account;
         }
         return null;
     }
 
-    @Transactional
+    // A rolled back account is neither counted nor announced
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // For accounts inserted past this service, call countAccounts before inserting them
+    public void accountsImported(Long bankId, List<AccountOpening> accounts) {
+        long totalBalanceMinorUnits = 0;
+        for (AccountOpening account : accounts) {
+            totalBalanceMinorUnits += account.balance();
+            transactionEventBus.publishAccountOpened(account);
+        }
+        accountCountOf(bankId).addAndGet(accounts.size());
+        bankAggregates.accountOpened(bankId, totalBalanceMinorUnits);
+    }
+
+    // Kept in memory, only counted in the database the first time a bank is seen after startup.
+    // Accounts opened by other instances sharing the database are not seen until a restart.
     public Integer countAccounts(Long bankId) {
-        Bank bank = findById(bankId).orElse(null);
-        if(bank != null) {
-            return bank.getAccounts().size();
+        AtomicLong accountCount = accountCounts.get(bankId);
+        if(accountCount == null) {
+            if(!bankRepository.existsById(bankId)) {
+                return null;
+            }
+            accountCount = accountCountOf(bankId);
         }
-        return null;
+        return Math.toIntExact(accountCount.get());
+    }
+
+    private AtomicLong accountCountOf(Long bankId) {
+        // Seeded before the caller adds its account, so the new row is counted exactly once
+        return accountCounts.computeIfAbsent(bankId, id -> new AtomicLong(accountService.countByBankId(id)));
+    }
+
+    public Optional<BankSummary> summarize(Long bankId, Instant since) {
+        if (!accountCounts.containsKey(bankId) && !bankRepository.existsById(bankId)) {
+            return Optional.empty();
+        }
+        return Optional.of(bankAggregates.summary(bankId, since));
     }
 
     public Optional<Bank> findById(Long bankId) {
         return bankRepository.findById(bankId);
     }
 
-    public synchronized double getBalance(Account account) {
+    public double getBalance(Account account) {
         return account.getBalance();
     }
 
-    public Future<Boolean> depositAsync(Account account, double amount) {
-        return executorService.submit(() -> deposit(account, amount));
+    public CompletableFuture<Boolean> depositAsync(Account account, double amount) {
+        return submitDeposit(account, amount).thenApply(TransactionResult::success);
     }
 
-    private synchronized boolean deposit(Account account, double amount) {
-        return performTransaction(account, amount, new Deposit());
+    public CompletableFuture<TransactionResult> submitDeposit(Account account, double amount) {
+        if (!Money.isTransactionAmount(amount)) {
+            return invalidAmount(amount);
+        }
+        return admissionControl.admit(() -> dispatchDeposit(account, amount), account);
     }
 
-    public Future<Boolean> withdrawAsync(Account account, double amount) {
-        return executorService.submit(() -> withdraw(account, amount));
+    private CompletableFuture<TransactionResult> dispatchDeposit(Account account, double amount) {
+        if (shardedTransactionExecutor.isEnabled()) {
+            return timed(TransactionOperation.DEPOSIT,
+                    () -> shardedTransactionExecutor.submit(account, () -> applyDeposit(account, amount)));
+        }
+        if (isLockFreeDeposit(account)) {
+            return submitTimed(TransactionOperation.DEPOSIT,
+                    () -> accountLockManager.withAnyLock(() -> applyDeposit(account, amount)));
+        }
+        return submitTimed(TransactionOperation.DEPOSIT,
+                () -> accountLockManager.withLock(account, () -> applyDeposit(account, amount)));
     }
 
-    private synchronized boolean withdraw(Account account, double amount) {
-        return performTransaction(account, amount, new Withdraw());
+    private TransactionResult applyDeposit(Account account, double amount) {
+        boolean success = performTransaction(account, amount, new Deposit());
+        return new TransactionResult(success, account.getAccountNumber(), account.getBalance());
     }
 
-    public Future<Boolean> transferAsync(Account fromAccount, Account toAccount, double amount) {
-        return executorService.submit(() -> transfer(fromAccount, toAccount, amount));
+    public CompletableFuture<Boolean> withdrawAsync(Account account, double amount) {
+        return submitWithdraw(account, amount).thenApply(TransactionResult::success);
     }
 
-    private synchronized boolean transfer(Account fromAccount, Account toAccount, double amount) {
-        if(performTransaction(fromAccount, amount, new Withdraw())) {
-            return performTransaction(toAccount, amount, new Deposit());
+    public CompletableFuture<TransactionResult> submitWithdraw(Account account, double amount) {
+        if (!Money.isTransactionAmount(amount)) {
+            return invalidAmount(amount);
         }
-        return false;
+        return admissionControl.admit(() -> dispatchWithdraw(account, amount), account);
+    }
+
+    private CompletableFuture<TransactionResult> dispatchWithdraw(Account account, double amount) {
+        if (shardedTransactionExecutor.isEnabled()) {
+            return timed(TransactionOperation.WITHDRAW,
+                    () -> shardedTransactionExecutor.submit(account, () -> applyWithdraw(account, amount)));
+        }
+        return submitTimed(TransactionOperation.WITHDRAW,
+                () -> accountLockManager.withLock(account, () -> applyWithdraw(account, amount)));
+    }
+
+    private TransactionResult applyWithdraw(Account account, double amount) {
+        boolean success = performTransaction(account, amount, new Withdraw());
+        return new TransactionResult(success, account.getAccountNumber(), account.getBalance());
+    }
+
+    public CompletableFuture<Boolean> transferAsync(Account fromAccount, Account toAccount, double amount) {
+        return submitTransfer(fromAccount, toAccount, amount).thenApply(TransferResult::success);
+    }
+
+    public CompletableFuture<TransferResult> submitTransfer(Account fromAccount, Account toAccount, double amount) {
+        if (!Money.isTransactionAmount(amount)) {
+            return invalidAmount(amount);
+        }
+        return admissionControl.admit(() -> dispatchTransfer(fromAccount, toAccount, amount), fromAccount, toAccount);
+    }
+
+    private CompletableFuture<TransferResult> dispatchTransfer(Account fromAccount, Account toAccount,
+                                                               double amount) {
+        if (shardedTransactionExecutor.isEnabled()) {
+            return timed(TransactionOperation.TRANSFER, () -> submitShardedTransfer(fromAccount, toAccount, amount));
+        }
+        if (isLockFreeDeposit(toAccount)) {
+            return submitTimed(TransactionOperation.TRANSFER, () -> accountLockManager.withLock(fromAccount,
+                    () -> applyTransfer(fromAccount, toAccount, amount)));
+        }
+        return submitTimed(TransactionOperation.TRANSFER, () -> accountLockManager.withLocks(fromAccount, toAccount,
+                () -> applyTransfer(fromAccount, toAccount, amount)));
+    }
+
+    // A withdrawal drains the stripes before it refuses, so deposits to them need no account lock
+    private boolean isLockFreeDeposit(Account account) {
+        return account.isStriped() && !optimisticAccountStore.isEnabled();
+    }
+
+    private TransferResult applyTransfer(Account fromAccount, Account toAccount, double amount) {
+        boolean success = optimisticAccountStore.isEnabled()
+                ? performOptimisticTransfer(fromAccount, toAccount, amount)
+                : performTransaction(fromAccount, amount, new Withdraw())
+                        && performTransaction(toAccount, amount, new Deposit());
+        return new TransferResult(success,
+                fromAccount.getAccountNumber(), fromAccount.getBalance(),
+                toAccount.getAccountNumber(), toAccount.getBalance());
+    }
+
+    // Across shards the payer's shard withdraws first and hands the credit to the payee's shard,
+    // a credit that is rejected, refused or fails is paid back
+    private CompletableFuture<TransferResult> submitShardedTransfer(Account fromAccount, Account toAccount,
+                                                                    double amount) {
+        if (shardedTransactionExecutor.isSameShard(fromAccount, toAccount)) {
+            return shardedTransactionExecutor.submit(fromAccount, () -> applyTransfer(fromAccount, toAccount, amount));
+        }
+        return shardedTransactionExecutor.submit(fromAccount, () -> {
+            boolean reserved = performTransaction(fromAccount, amount, new Withdraw());
+            return new TransferResult(reserved, fromAccount.getAccountNumber(), fromAccount.getBalance(),
+                    toAccount.getAccountNumber(), toAccount.getBalance());
+        }).thenCompose(reservation -> !reservation.success()
+                ? CompletableFuture.completedFuture(reservation)
+                : creditShard(fromAccount, toAccount, amount, reservation));
+    }
+
+    private CompletableFuture<TransferResult> creditShard(Account fromAccount, Account toAccount, double amount,
+                                                          TransferResult reservation) {
+        CompletableFuture<TransferResult> credit;
+        try {
+            credit = shardedTransactionExecutor.submit(toAccount, () -> {
+                boolean credited = performTransaction(toAccount, amount, new Deposit());
+                return new TransferResult(credited, reservation.fromAccountNumber(), reservation.fromBalance(),
+                        toAccount.getAccountNumber(), toAccount.getBalance());
+            });
+        } catch (RejectedExecutionException e) {
+            credit = CompletableFuture.failedFuture(e);
+        }
+        return credit.handle((result, failure) -> failure == null && result.success()
+                        ? CompletableFuture.completedFuture(result)
+                        : payBack(fromAccount, toAccount, amount, failure))
+                .thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<TransferResult> payBack(Account fromAccount, Account toAccount, double amount,
+                                                      Throwable failure) {
+        Supplier<TransferResult> refund = () -> {
+            if (!performTransaction(fromAccount, amount, new Deposit())) {
+                throw new IllegalStateException("Could not pay back " + amount + " to " + fromAccount.getAccountNumber()
+                        + " after a failed credit of " + toAccount.getAccountNumber());
+            }
+            return new TransferResult(false, fromAccount.getAccountNumber(), fromAccount.getBalance(),
+                    toAccount.getAccountNumber(), toAccount.getBalance());
+        };
+        CompletableFuture<TransferResult> refunded;
+        try {
+            refunded = shardedTransactionExecutor.submit(fromAccount, refund);
+        } catch (RejectedExecutionException e) {
+            // The payer's shard has stopped as well, nothing else updates the account anymore
+            refunded = CompletableFuture.supplyAsync(refund, Runnable::run);
+        }
+        if (failure == null) {
+            return refunded;
+        }
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        return refunded.thenCompose(result -> CompletableFuture.failedFuture(cause));
+    }
+
+    // Each transfer is still reported and journaled on its own, each account is persisted once.
+    // The batch is admitted as one transaction, without per-account rate limits
+    public CompletableFuture<List<TransferResult>> submitNetted(List<TransferInstruction> transfers) {
+        for (TransferInstruction transfer : transfers) {
+            if (!Money.isTransactionAmount(transfer.amount())) {
+                return invalidAmount(transfer.amount());
+            }
+        }
+        return admissionControl.admit(() -> dispatchNetted(transfers));
+    }
+
+    private CompletableFuture<List<TransferResult>> dispatchNetted(List<TransferInstruction> transfers) {
+        if (optimisticAccountStore.isEnabled()) {
+            // Netting writes balances outside the versioned updates, so each transfer commits on its own
+            return submitTimed(TransactionOperation.SETTLEMENT, () -> transfers.stream()
+                    .map(transfer -> accountLockManager.withLocks(transfer.fromAccount(), transfer.toAccount(),
+                            () -> applyTransfer(transfer.fromAccount(), transfer.toAccount(), transfer.amount())))
+                    .toList());
+        }
+        return submitTimed(TransactionOperation.SETTLEMENT, () -> settle(transfers));
+    }
+
+    private List<TransferResult> settle(List<TransferInstruction> transfers) {
+        NettingBatch batch = new NettingBatch(transfers);
+        // Sharded mode updates accounts without the locks, so the shards are paused as well
+        return accountLockManager.withLocks(batch.getAccounts(), () -> shardedTransactionExecutor.pauseAll(() -> {
+            List<TransferResult> results = batch.net();
+            accountService.saveBalances(batch.apply());
+            for (int i = 0; i < transfers.size(); i++) {
+                if (batch.isSettled(i)) {
+                    TransferInstruction transfer = transfers.get(i);
+                    completed(transfer.fromAccount(), WITHDRAW, transfer.amount());
+                    completed(transfer.toAccount(), DEPOSIT, transfer.amount());
+                }
+            }
+            return results;
+        }));
+    }
+
+    private static <T> CompletableFuture<T> invalidAmount(double amount) {
+        return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid amount: " + amount));
+    }
+
+    private <T> CompletableFuture<T> submitTimed(TransactionOperation operation, Supplier<T> transaction) {
+        long submittedAt = System.nanoTime();
+        return transactionExecutor.submit(() -> {
+            try {
+                return transaction.get();
+            } finally {
+                transactionMetrics.recordOperation(operation, System.nanoTime() - submittedAt);
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> timed(TransactionOperation operation,
+                                           Supplier<CompletableFuture<T>> transaction) {
+        long submittedAt = System.nanoTime();
+        return transaction.get().whenComplete((result, failure) ->
+                transactionMetrics.recordOperation(operation, System.nanoTime() - submittedAt));
     }
 
     private boolean performTransaction(Account account, double amount, TransactionType transactionType) {
-        if(transactionType.execute(account, amount)) {
-            accountService.save(account);
-            notifyObservers(account.getAccountNumber(), transactionType.getClass().getSimpleName(), amount);
+        if(optimisticAccountStore.isEnabled() ? performOptimistic(account, amount, transactionType)
+                : performLocal(account, amount, transactionType)) {
+            completed(account, transactionType.getClass().getSimpleName(), amount);
             return true;
         }
         return false;
     }
 
+    private boolean performLocal(Account account, double amount, TransactionType transactionType) {
+        if (!transactionType.execute(account, amount)) {
+            return false;
+        }
+        try {
+            accountService.saveBalance(account);
+        } catch (RuntimeException e) {
+            // Undone so the failed change cannot reach the database with a later save
+            (transactionType instanceof Withdraw ? new Deposit() : new Withdraw()).execute(account, amount);
+            throw e;
+        }
+        return true;
+    }
+
+    private boolean performOptimistic(Account account, double amount, TransactionType transactionType) {
+        long minorUnits = Money.toMinorUnits(amount);
+        return transactionType instanceof Withdraw
+                ? optimisticAccountStore.withdraw(account, minorUnits)
+                : optimisticAccountStore.deposit(account, minorUnits);
+    }
+
+    private boolean performOptimisticTransfer(Account fromAccount, Account toAccount, double amount) {
+        if (!optimisticAccountStore.transfer(fromAccount, toAccount, Money.toMinorUnits(amount))) {
+            return false;
+        }
+        completed(fromAccount, WITHDRAW, amount);
+        completed(toAccount, DEPOSIT, amount);
+        return true;
+    }
+
+    private void completed(Account account, String transactionType, double amount) {
+        long minorUnits = Money.toMinorUnits(amount);
+        if (WITHDRAW.equals(transactionType)) {
+            bankAggregates.withdrawn(account.getBankId(), minorUnits);
+        } else {
+            bankAggregates.deposited(account.getBankId(), minorUnits);
+        }
+        notifyObservers(account.getAccountNumber(), transactionType, amount);
+    }
+
     @PreDestroy
     public void shutdown() {
-        executorService.shutdown();
+        transactionExecutor.shutdown();
+        shardedTransactionExecutor.shutdown();
+        // Runs before the observer beans are destroyed, so queued events still reach them
+        transactionEventBus.shutdown();
     }
 
     @Override
     public void addObserver(TransactionObserver observer) {
-        observers.add(observer);
+        transactionEventBus.subscribe(observer);
     }
 
     @Override
     public void removeObserver(TransactionObserver observer) {
-        observers.remove(observer);
+        transactionEventBus.unsubscribe(observer);
     }
 
     @Override
     public void notifyObservers(String accountNumber, String transactionType, double amount) {
-        for (TransactionObserver observer : observers) {
-            observer.onTransaction(accountNumber, transactionType, amount);
-        }
+        long start = System.nanoTime();
+        transactionEventBus.publish(accountNumber, transactionType, amount);
+        transactionMetrics.recordObserverDispatch(System.nanoTime() - start);
     }
 }
@@ -0,0 +1,4 @@
+package com.shahrokhi.bankingsystem.service;
+
+public record TransactionResult(boolean success, String accountNumber, double balance) {
+}
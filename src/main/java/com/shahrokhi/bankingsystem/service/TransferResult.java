@@ -0,0 +1,5 @@
+package com.shahrokhi.bankingsystem.service;
+
+public record TransferResult(boolean success, String fromAccountNumber, double fromBalance,
+                             String toAccountNumber, double toBalance) {
+}
@@ -0,0 +1,135 @@
+package com.shahrokhi.bankingsystem.service.accountImport;
+
+import com.shahrokhi.bankingsystem.model.AccountNumbers;
+import com.shahrokhi.bankingsystem.model.IdSequences;
+import com.shahrokhi.bankingsystem.model.Money;
+import com.shahrokhi.bankingsystem.service.AccountNumberGenerator;
+import com.shahrokhi.bankingsystem.service.BankService;
+import com.shahrokhi.bankingsystem.service.transactionObservation.AccountOpening;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Reader;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+// Every chunk is one JDBC batch in its own transaction, a failure only loses the chunk it happened in
+@Slf4j
+@Service
+public class AccountImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 1_000;
+
+    private static final String NEXT_ID_SQL = "SELECT NEXT VALUE FOR " + IdSequences.ACCOUNT;
+    private static final String INSERT_SQL =
+            "INSERT INTO account (id, bank_id, account_number, holder_name, balance, version) "
+                    + "VALUES (?, ?, ?, ?, ?, 0)";
+    // Explicit types spare the driver a parameter metadata lookup per value
+    private static final int[] INSERT_TYPES = {Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.BIGINT};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BankService bankService;
+    private final AccountNumberGenerator accountNumberGenerator;
+    private final int chunkSize;
+
+    @Autowired
+    public AccountImporter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                           BankService bankService, AccountNumberGenerator accountNumberGenerator,
+                           @Value("${bank.import.chunk-size:" + DEFAULT_CHUNK_SIZE + "}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Import chunk size must be positive: " + chunkSize);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.bankService = bankService;
+        this.accountNumberGenerator = accountNumberGenerator;
+        this.chunkSize = chunkSize;
+    }
+
+    public Optional<ImportResult> importCsv(Long bankId, Reader csv) {
+        return importAccounts(bankId, () -> new CsvAccountReader(csv));
+    }
+
+    public Optional<ImportResult> importAccounts(Long bankId, Iterable<NewAccount> accounts) {
+        // Also seeds the bank's in-memory account count before any row is inserted behind its back
+        if (bankService.countAccounts(bankId) == null) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        long imported = 0;
+        String first = null;
+        String last = null;
+        List<NewAccount> chunk = new ArrayList<>(chunkSize);
+        Iterator<NewAccount> iterator = accounts.iterator();
+        while (true) {
+            chunk.clear();
+            try {
+                while (chunk.size() < chunkSize && iterator.hasNext()) {
+                    NewAccount account = iterator.next();
+                    validate(account, imported + chunk.size() + 1);
+                    chunk.add(account);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(e.getMessage() + " (" + imported + " accounts imported before)", e);
+            }
+            if (chunk.isEmpty()) {
+                break;
+            }
+            String[] numbers = insert(bankId, chunk);
+            imported += chunk.size();
+            first = first == null ? numbers[0] : first;
+            last = numbers[numbers.length - 1];
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Imported {} accounts into bank {} in {} ms", imported, bankId, elapsedMillis);
+        return Optional.of(new ImportResult(bankId, imported, first, last, elapsedMillis));
+    }
+
+    private String[] insert(Long bankId, List<NewAccount> chunk) {
+        long[] ids = reserveIds(chunk.size());
+        long firstNumber = accountNumberGenerator.reserve(chunk.size());
+        String[] numbers = new String[chunk.size()];
+        List<Object[]> rows = new ArrayList<>(chunk.size());
+        List<AccountOpening> openings = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            NewAccount account = chunk.get(i);
+            long balance = Money.toMinorUnits(account.initialBalance());
+            numbers[i] = AccountNumbers.format(firstNumber + i);
+            rows.add(new Object[]{ids[i], bankId, numbers[i], account.holderName(), balance});
+            openings.add(new AccountOpening(ids[i], bankId, numbers[i], account.holderName(), balance));
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, rows, INSERT_TYPES));
+        bankService.accountsImported(bankId, openings);
+        return numbers;
+    }
+
+    // Ids left over in the last block are skipped
+    private long[] reserveIds(int count) {
+        long[] ids = new long[count];
+        int reserved = 0;
+        while (reserved < count) {
+            long value = jdbcTemplate.queryForObject(NEXT_ID_SQL, Long.class);
+            for (long id = IdSequences.firstIdOf(value); id <= value && reserved < count; id++) {
+                ids[reserved++] = id;
+            }
+        }
+        return ids;
+    }
+
+    private static void validate(NewAccount account, long row) {
+        if (account.holderName() == null || account.holderName().isBlank()) {
+            throw new IllegalArgumentException("Account " + row + ": holder name is missing");
+        }
+        if (!Money.isOpeningBalance(account.initialBalance())) {
+            throw new IllegalArgumentException("Account " + row + ": initial balance must be between 0 and "
+                    + Money.toDecimal(Money.MAX_AMOUNT_MINOR_UNITS).toPlainString() + ": " + account.initialBalance());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.shahrokhi.bankingsystem.service.accountImport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// The header names the columns in any order, others are ignored. Quoted fields cannot span lines
+public class CsvAccountReader implements Iterator<NewAccount> {
+    public static final String HOLDER_NAME = "holder_name";
+    public static final String INITIAL_BALANCE = "initial_balance";
+
+    private final BufferedReader reader;
+    private final int holderNameColumn;
+    private final int initialBalanceColumn;
+    private int lineNumber;
+    private NewAccount next;
+
+    public CsvAccountReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        String header = readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV is empty, expected a header with " + HOLDER_NAME + " and "
+                    + INITIAL_BALANCE);
+        }
+        List<String> columns = split(header.strip());
+        this.holderNameColumn = columns.indexOf(HOLDER_NAME);
+        this.initialBalanceColumn = columns.indexOf(INITIAL_BALANCE);
+        if (holderNameColumn < 0 || initialBalanceColumn < 0) {
+            throw new IllegalArgumentException("CSV header must name the " + HOLDER_NAME + " and "
+                    + INITIAL_BALANCE + " columns: " + header);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readAccount();
+        }
+        return next != null;
+    }
+
+    @Override
+    public NewAccount next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        NewAccount account = next;
+        next = null;
+        return account;
+    }
+
+    private NewAccount readAccount() {
+        String line;
+        do {
+            line = readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+        List<String> fields = split(line);
+        if (fields.size() <= Math.max(holderNameColumn, initialBalanceColumn)) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": expected at least "
+                    + (Math.max(holderNameColumn, initialBalanceColumn) + 1) + " fields, found " + fields.size());
+        }
+        String initialBalance = fields.get(initialBalanceColumn).strip();
+        try {
+            return new NewAccount(fields.get(holderNameColumn).strip(), Double.parseDouble(initialBalance));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": not a balance: " + initialBalance);
+        }
+    }
+
+    private String readLine() {
+        try {
+            String line = reader.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
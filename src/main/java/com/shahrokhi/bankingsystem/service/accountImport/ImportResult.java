@@ -0,0 +1,5 @@
+package com.shahrokhi.bankingsystem.service.accountImport;
+
+public record ImportResult(long bankId, long imported, String firstAccountNumber, String lastAccountNumber,
+                           long elapsedMillis) {
+}
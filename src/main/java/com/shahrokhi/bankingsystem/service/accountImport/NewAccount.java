@@ -0,0 +1,4 @@
+package com.shahrokhi.bankingsystem.service.accountImport;
+
+public record NewAccount(String holderName, double initialBalance) {
+}
@@ -0,0 +1,176 @@
+package com.shahrokhi.bankingsystem.service.admission;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Only the entry into the service is limited, follow-up steps such as a cross-shard credit are never refused
+@Component
+public class AdmissionControl {
+    public static final int DEFAULT_MAX_PENDING = 10_000;
+    static final Duration OVERLOADED_RETRY_AFTER = Duration.ofSeconds(1);
+    // Per-account limiters with a full bucket are dropped once this many accounts are tracked
+    static final int MAX_TRACKED_ACCOUNTS = 100_000;
+
+    @Getter
+    private final OverloadPolicy overloadPolicy;
+    private final int maxPending;
+    private final long blockTimeoutNanos;
+    private final Semaphore pending;
+    private final RateLimiter globalLimiter;
+    private final double accountRate;
+    private final int accountBurst;
+    private final ConcurrentHashMap<String, RateLimiter> accountLimiters = new ConcurrentHashMap<>();
+    private final AtomicBoolean pruning = new AtomicBoolean();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder overloaded = new LongAdder();
+    private final LongAdder globalRateLimited = new LongAdder();
+    private final LongAdder accountRateLimited = new LongAdder();
+
+    public AdmissionControl() {
+        this(0, OverloadPolicy.REJECT, 0, 0, 0, 0, 0);
+    }
+
+    @Autowired
+    public AdmissionControl(@Value("${bank.admission.max-pending:" + DEFAULT_MAX_PENDING + "}") int maxPending,
+                            @Value("${bank.admission.overload-policy:REJECT}") OverloadPolicy overloadPolicy,
+                            @Value("${bank.admission.block-timeout-ms:100}") long blockTimeoutMillis,
+                            @Value("${bank.admission.global-rate:0}") double globalRate,
+                            @Value("${bank.admission.global-burst:1000}") int globalBurst,
+                            @Value("${bank.admission.account-rate:0}") double accountRate,
+                            @Value("${bank.admission.account-burst:100}") int accountBurst) {
+        if (maxPending < 0 || blockTimeoutMillis < 0 || globalRate < 0 || accountRate < 0) {
+            throw new IllegalArgumentException("Admission limits must not be negative: max pending " + maxPending
+                    + ", block timeout " + blockTimeoutMillis + " ms, rates " + globalRate + "/s and "
+                    + accountRate + "/s");
+        }
+        this.overloadPolicy = overloadPolicy;
+        this.maxPending = maxPending;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        this.pending = maxPending > 0 ? new Semaphore(maxPending) : null;
+        this.globalLimiter = globalRate > 0 ? new RateLimiter(globalRate, globalBurst) : null;
+        this.accountRate = accountRate;
+        this.accountBurst = accountBurst;
+        if (accountRate > 0) {
+            // Fails on an invalid burst at startup rather than on the first transaction
+            new RateLimiter(accountRate, accountBurst);
+        }
+    }
+
+    // Holds the pending slot until the returned future completes
+    public <T> CompletableFuture<T> admit(Supplier<CompletableFuture<T>> submission, Account... accounts) {
+        long now = System.nanoTime();
+        // Permits taken are handed back when a later check refuses, so a refused transaction spends none
+        RateLimiter[] accountPermits = accountRate > 0 ? new RateLimiter[accounts.length] : null;
+        if (accountPermits != null) {
+            for (int i = 0; i < accounts.length; i++) {
+                RateLimiter limiter = accountLimiterOf(accounts[i].getAccountNumber(), now);
+                long wait = limiter.tryAcquire(now);
+                if (wait > 0) {
+                    release(accountPermits, null);
+                    accountRateLimited.increment();
+                    return rejected(RejectionReason.ACCOUNT_RATE_LIMITED, Duration.ofNanos(wait),
+                            "Too many transactions on account " + accounts[i].getAccountNumber());
+                }
+                accountPermits[i] = limiter;
+            }
+        }
+        if (globalLimiter != null) {
+            long wait = globalLimiter.tryAcquire(now);
+            if (wait > 0) {
+                release(accountPermits, null);
+                globalRateLimited.increment();
+                return rejected(RejectionReason.GLOBAL_RATE_LIMITED, Duration.ofNanos(wait), "Too many transactions");
+            }
+        }
+        if (pending != null && !acquirePending()) {
+            release(accountPermits, globalLimiter);
+            overloaded.increment();
+            return rejected(RejectionReason.OVERLOADED, OVERLOADED_RETRY_AFTER,
+                    maxPending + " transactions pending, try again later");
+        }
+        admitted.increment();
+        if (pending == null) {
+            return submission.get();
+        }
+        CompletableFuture<T> future;
+        try {
+            future = submission.get();
+        } catch (RuntimeException | Error e) {
+            pending.release();
+            throw e;
+        }
+        future.whenComplete((result, failure) -> pending.release());
+        return future;
+    }
+
+    public AdmissionStats getStats() {
+        return new AdmissionStats(pending == null ? 0 : maxPending - pending.availablePermits(), maxPending,
+                admitted.sum(), blocked.sum(), overloaded.sum(), globalRateLimited.sum(), accountRateLimited.sum());
+    }
+
+    private boolean acquirePending() {
+        if (pending.tryAcquire()) {
+            return true;
+        }
+        if (overloadPolicy != OverloadPolicy.BLOCK || blockTimeoutNanos == 0) {
+            return false;
+        }
+        blocked.increment();
+        try {
+            return pending.tryAcquire(blockTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void release(RateLimiter[] accountPermits, RateLimiter globalPermit) {
+        if (accountPermits != null) {
+            for (RateLimiter limiter : accountPermits) {
+                if (limiter != null) {
+                    limiter.release();
+                }
+            }
+        }
+        if (globalPermit != null) {
+            globalPermit.release();
+        }
+    }
+
+    private RateLimiter accountLimiterOf(String accountNumber, long now) {
+        RateLimiter limiter = accountLimiters.get(accountNumber);
+        if (limiter != null) {
+            return limiter;
+        }
+        if (accountLimiters.size() >= MAX_TRACKED_ACCOUNTS && pruning.compareAndSet(false, true)) {
+            try {
+                accountLimiters.values().removeIf(idle -> idle.isIdle(now));
+            } finally {
+                pruning.set(false);
+            }
+        }
+        return accountLimiters.computeIfAbsent(accountNumber, number -> new RateLimiter(accountRate, accountBurst));
+    }
+
+    private static <T> CompletableFuture<T> rejected(RejectionReason reason, Duration retryAfter, String message) {
+        return CompletableFuture.failedFuture(new TransactionRejectedException(reason, retryAfter, message));
+    }
+
+    public record AdmissionStats(long pending, long maxPending, long admitted, long blocked, long overloaded,
+                                 long globalRateLimited, long accountRateLimited) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.shahrokhi.bankingsystem.service.admission;
+
+public enum OverloadPolicy {
+    REJECT,
+    // Waits up to the block timeout for a pending transaction to complete
+    BLOCK
+}
@@ -0,0 +1,7 @@
+package com.shahrokhi.bankingsystem.service.admission;
+
+public enum RejectionReason {
+    OVERLOADED,
+    GLOBAL_RATE_LIMITED,
+    ACCOUNT_RATE_LIMITED
+}
@@ -0,0 +1,18 @@
+package com.shahrokhi.bankingsystem.service.admission;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class TransactionRejectedException extends RuntimeException {
+    private final RejectionReason reason;
+    private final Duration retryAfter;
+
+    public TransactionRejectedException(RejectionReason reason, Duration retryAfter, String message) {
+        // No stack trace, under overload rejections are frequent and their origin is always the same
+        super(message, null, false, false);
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+}
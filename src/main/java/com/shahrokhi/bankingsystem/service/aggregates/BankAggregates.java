@@ -0,0 +1,225 @@
+package com.shahrokhi.bankingsystem.service.aggregates;
+
+import com.shahrokhi.bankingsystem.model.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Rebuilt once all beans are initialized, after a ledger recovery and before any transaction can run,
+// so the rebuild takes no locks
+@Slf4j
+@Component
+public class BankAggregates implements SmartInitializingSingleton {
+    public static final int DEFAULT_BUCKET_MINUTES = 60;
+    public static final int DEFAULT_BUCKETS = 48;
+    static final int REBUILD_FETCH_SIZE = 1_000;
+
+    private static final String BALANCES_SQL =
+            "SELECT bank_id, SUM(balance) AS total FROM account WHERE bank_id IS NOT NULL GROUP BY bank_id";
+    private static final String HISTORY_SQL = "SELECT a.bank_id, h.type, h.amount, h.created_at "
+            + "FROM transaction_history h JOIN account a ON a.account_number = h.account_number "
+            + "WHERE a.bank_id IS NOT NULL AND h.created_at >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final ConcurrentHashMap<Long, BankTotals> banks = new ConcurrentHashMap<>();
+
+    public BankAggregates() {
+        this(null, DEFAULT_BUCKET_MINUTES, DEFAULT_BUCKETS);
+    }
+
+    @Autowired
+    public BankAggregates(JdbcTemplate jdbcTemplate,
+                          @Value("${bank.aggregates.bucket-minutes:" + DEFAULT_BUCKET_MINUTES + "}") int bucketMinutes,
+                          @Value("${bank.aggregates.buckets:" + DEFAULT_BUCKETS + "}") int bucketCount) {
+        if (bucketMinutes <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("Bucket length and count must be positive: "
+                    + bucketMinutes + " minutes, " + bucketCount + " buckets");
+        }
+        this.jdbcTemplate = jdbcTemplate == null ? null : streaming(jdbcTemplate);
+        this.bucketMillis = TimeUnit.MINUTES.toMillis(bucketMinutes);
+        this.bucketCount = bucketCount;
+    }
+
+    public void accountOpened(Long bankId, long initialBalance) {
+        if (bankId != null) {
+            totalsOf(bankId).balance.add(initialBalance);
+        }
+    }
+
+    public void deposited(Long bankId, long amount) {
+        deposited(bankId, amount, System.currentTimeMillis());
+    }
+
+    public void withdrawn(Long bankId, long amount) {
+        withdrawn(bankId, amount, System.currentTimeMillis());
+    }
+
+    void deposited(Long bankId, long amount, long epochMillis) {
+        if (bankId == null) {
+            return;
+        }
+        BankTotals totals = totalsOf(bankId);
+        totals.balance.add(amount);
+        Bucket bucket = totals.bucket(bucketIndexOf(epochMillis));
+        if (bucket != null) {
+            bucket.deposits.increment();
+            bucket.depositVolume.add(amount);
+        }
+    }
+
+    void withdrawn(Long bankId, long amount, long epochMillis) {
+        if (bankId == null) {
+            return;
+        }
+        BankTotals totals = totalsOf(bankId);
+        totals.balance.add(-amount);
+        Bucket bucket = totals.bucket(bucketIndexOf(epochMillis));
+        if (bucket != null) {
+            bucket.withdrawals.increment();
+            bucket.withdrawVolume.add(amount);
+        }
+    }
+
+    public BankSummary summary(long bankId, Instant since) {
+        return summary(bankId, since, System.currentTimeMillis());
+    }
+
+    BankSummary summary(long bankId, Instant since, long nowMillis) {
+        long first = Math.max(bucketIndexOf(since.toEpochMilli()), oldestRetained(nowMillis));
+        long last = bucketIndexOf(nowMillis);
+        BankTotals totals = banks.get(bankId);
+        List<TurnoverBucket> buckets = new ArrayList<>();
+        long deposits = 0;
+        long depositVolume = 0;
+        long withdrawals = 0;
+        long withdrawVolume = 0;
+        if (totals != null) {
+            for (int slot = 0; slot < bucketCount; slot++) {
+                Bucket bucket = totals.buckets.get(slot);
+                if (bucket == null || bucket.index < first || bucket.index > last) {
+                    continue;
+                }
+                long bucketDeposits = bucket.deposits.sum();
+                long bucketDepositVolume = bucket.depositVolume.sum();
+                long bucketWithdrawals = bucket.withdrawals.sum();
+                long bucketWithdrawVolume = bucket.withdrawVolume.sum();
+                buckets.add(new TurnoverBucket(Instant.ofEpochMilli(bucket.index * bucketMillis),
+                        bucketDeposits, Money.toMajorUnits(bucketDepositVolume),
+                        bucketWithdrawals, Money.toMajorUnits(bucketWithdrawVolume)));
+                deposits += bucketDeposits;
+                depositVolume += bucketDepositVolume;
+                withdrawals += bucketWithdrawals;
+                withdrawVolume += bucketWithdrawVolume;
+            }
+            buckets.sort(Comparator.comparing(TurnoverBucket::start));
+        }
+        return new BankSummary(bankId, totals == null ? 0 : Money.toMajorUnits(totals.balance.sum()),
+                Instant.ofEpochMilli(first * bucketMillis), deposits, Money.toMajorUnits(depositVolume),
+                withdrawals, Money.toMajorUnits(withdrawVolume), List.copyOf(buckets));
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    // Transactions must not run meanwhile, or their balance changes may be counted twice or missed
+    public int rebuild() {
+        if (jdbcTemplate == null) {
+            return 0;
+        }
+        banks.clear();
+        jdbcTemplate.query(BALANCES_SQL, row -> {
+            totalsOf(row.getLong("bank_id")).balance.add(row.getLong("total"));
+        });
+        int banksWithAccounts = banks.size();
+        long now = System.currentTimeMillis();
+        jdbcTemplate.query(HISTORY_SQL, row -> {
+            long bankId = row.getLong("bank_id");
+            long amount = row.getLong("amount");
+            long createdAt = row.getTimestamp("created_at").getTime();
+            // Only the buckets are rebuilt here, the balances already include these transactions
+            Bucket bucket = totalsOf(bankId).bucket(bucketIndexOf(createdAt));
+            if (bucket == null) {
+                return;
+            }
+            if ("Withdraw".equals(row.getString("type"))) {
+                bucket.withdrawals.increment();
+                bucket.withdrawVolume.add(amount);
+            } else {
+                bucket.deposits.increment();
+                bucket.depositVolume.add(amount);
+            }
+        }, new Timestamp(oldestRetained(now) * bucketMillis));
+        log.info("Rebuilt aggregates of {} banks", banksWithAccounts);
+        return banksWithAccounts;
+    }
+
+    private static JdbcTemplate streaming(JdbcTemplate jdbcTemplate) {
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(REBUILD_FETCH_SIZE);
+        return streaming;
+    }
+
+    private BankTotals totalsOf(long bankId) {
+        return banks.computeIfAbsent(bankId, id -> new BankTotals(bucketCount));
+    }
+
+    private long bucketIndexOf(long epochMillis) {
+        return Math.floorDiv(epochMillis, bucketMillis);
+    }
+
+    private long oldestRetained(long nowMillis) {
+        return bucketIndexOf(nowMillis) - bucketCount + 1;
+    }
+
+    private static final class BankTotals {
+        final LongAdder balance = new LongAdder();
+        final AtomicReferenceArray<Bucket> buckets;
+
+        BankTotals(int bucketCount) {
+            this.buckets = new AtomicReferenceArray<>(bucketCount);
+        }
+
+        // Null if the slot already holds a newer bucket
+        Bucket bucket(long index) {
+            int slot = (int) Math.floorMod(index, (long) buckets.length());
+            Bucket current = buckets.get(slot);
+            while (current == null || current.index < index) {
+                Bucket fresh = new Bucket(index);
+                if (buckets.compareAndSet(slot, current, fresh)) {
+                    return fresh;
+                }
+                current = buckets.get(slot);
+            }
+            return current.index == index ? current : null;
+        }
+    }
+
+    private static final class Bucket {
+        final long index;
+        final LongAdder deposits = new LongAdder();
+        final LongAdder depositVolume = new LongAdder();
+        final LongAdder withdrawals = new LongAdder();
+        final LongAdder withdrawVolume = new LongAdder();
+
+        Bucket(long index) {
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.shahrokhi.bankingsystem.service.aggregates;
+
+import java.time.Instant;
+import java.util.List;
+
+public record BankSummary(long bankId, double totalBalance, Instant since, long deposits, double depositVolume,
+                          long withdrawals, double withdrawVolume, List<TurnoverBucket> buckets) {
+}
@@ -0,0 +1,7 @@
+package com.shahrokhi.bankingsystem.service.aggregates;
+
+import java.time.Instant;
+
+public record TurnoverBucket(Instant start, long deposits, double depositVolume, long withdrawals,
+                            double withdrawVolume) {
+}
@@ -0,0 +1,405 @@
+package com.shahrokhi.bankingsystem.service.cache;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.AccountNumbers;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Keyed by the parsed account number, so a lookup neither hashes a string nor allocates. A key maps to one
+// live instance, the first one loaded wins. Evicted accounts stay weakly reachable: while a transaction,
+// the write-behind or a lock-free deposit still holds one, a miss hands it back instead of loading a second
+// copy whose updates would be lost.
+@Component
+public class AccountCache {
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+    private static final int SEGMENTS = 16;
+
+    @Getter
+    private final boolean enabled;
+    private final Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AccountCache() {
+        this(true, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    @Autowired
+    public AccountCache(@Value("${bank.cache.enabled:true}") boolean enabled,
+                        @Value("${bank.cache.maximum-size:" + DEFAULT_MAXIMUM_SIZE + "}") int maximumSize) {
+        this(enabled, maximumSize, SEGMENTS);
+    }
+
+    AccountCache(boolean enabled, int maximumSize, int maxSegments) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maximumSize);
+        }
+        this.enabled = enabled;
+        int segmentCount = Math.min(maxSegments, maximumSize);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // Spread the remainder so the total capacity is exactly maximumSize
+            segments[i] = new Segment(maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0));
+        }
+    }
+
+    public Optional<Account> get(String accountNumber, Function<String, Optional<Account>> loader) {
+        return Optional.ofNullable(find(accountNumber, loader));
+    }
+
+    // Like get, but returns null instead of allocating an Optional
+    public Account find(String accountNumber, Function<String, Optional<Account>> loader) {
+        if (!enabled) {
+            return loader.apply(accountNumber).orElse(null);
+        }
+        long key = keyOf(accountNumber);
+        Segment segment = segmentFor(key);
+        Account cached = segment.get(key, accountNumber);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        // Load outside the segment lock, a slow database call should not block other keys
+        Account loaded = loader.apply(accountNumber).orElse(null);
+        return loaded == null ? null : segment.putIfAbsent(key, accountNumber, loaded);
+    }
+
+    // Saving a different instance than the cached one replaces it, later lookups return the saved state
+    public void onSaved(Account account) {
+        String accountNumber = account.getAccountNumber();
+        if (enabled && accountNumber != null) {
+            long key = keyOf(accountNumber);
+            segmentFor(key).onSaved(key, accountNumber, account);
+        }
+    }
+
+    public void invalidate(String accountNumber) {
+        if (enabled) {
+            long key = keyOf(accountNumber);
+            segmentFor(key).remove(key, accountNumber);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public CacheStats getStats() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private Segment segmentFor(long key) {
+        // The low bits pick the segment, the table slot within it comes from the high bits
+        return segments[Math.floorMod((int) spread(key), segments.length)];
+    }
+
+    private static long keyOf(String accountNumber) {
+        long sequence = AccountNumbers.parse(accountNumber);
+        // Other numbers get a negative key, so they never share a key with a generated one
+        return sequence >= 0 ? sequence : accountNumber.hashCode() | Long.MIN_VALUE;
+    }
+
+    private static long spread(long key) {
+        return key * 0x9E3779B97F4A7C15L;
+    }
+
+    private static final class Retired extends WeakReference<Account> {
+        final String accountNumber;
+
+        Retired(String accountNumber, Account account, ReferenceQueue<Account> queue) {
+            super(account, queue);
+            this.accountNumber = accountNumber;
+        }
+    }
+
+    public record CacheStats(long hits, long misses, long evictions, long size) {
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    private final class Segment {
+        private static final int NONE = -1;
+        private static final int INITIAL_ENTRIES = 16;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int capacity;
+        // Evicted accounts by number until they are collected, only looked at on a miss
+        private final HashMap<String, Retired> retired = new HashMap<>();
+        private final ReferenceQueue<Account> collected = new ReferenceQueue<>();
+        // Entries are array indexes, linked from the most (head) to the least (tail) recently used
+        private long[] keys;
+        private String[] accountNumbers;
+        private Account[] accounts;
+        private int[] previous;
+        private int[] next;
+        // Entry index + 1 per slot, 0 is a free slot; at most half full, so probes stay short
+        private int[] table;
+        private int head = NONE;
+        private int tail = NONE;
+        private int freeEntries = NONE;
+        private int allocated;
+        private int size;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            resize(Math.min(capacity, INITIAL_ENTRIES));
+        }
+
+        Account get(long key, String accountNumber) {
+            lock.lock();
+            try {
+                int slot = find(key, accountNumber);
+                if (slot < 0) {
+                    return revive(key, accountNumber, ~slot);
+                }
+                int entry = table[slot] - 1;
+                touch(entry);
+                return accounts[entry];
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Account putIfAbsent(long key, String accountNumber, Account account) {
+            lock.lock();
+            try {
+                int slot = find(key, accountNumber);
+                if (slot >= 0) {
+                    int entry = table[slot] - 1;
+                    touch(entry);
+                    return accounts[entry];
+                }
+                // Evicted while this copy was loaded
+                Account revived = revive(key, accountNumber, ~slot);
+                if (revived != null) {
+                    return revived;
+                }
+                insert(key, accountNumber, account, ~slot);
+                return account;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void onSaved(long key, String accountNumber, Account account) {
+            lock.lock();
+            try {
+                int slot = find(key, accountNumber);
+                if (slot < 0) {
+                    retired.remove(accountNumber);
+                    insert(key, accountNumber, account, ~slot);
+                } else {
+                    int entry = table[slot] - 1;
+                    accounts[entry] = account;
+                    touch(entry);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(long key, String accountNumber) {
+            lock.lock();
+            try {
+                int slot = find(key, accountNumber);
+                if (slot >= 0) {
+                    removeAt(slot);
+                }
+                retired.remove(accountNumber);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                Arrays.fill(table, 0);
+                Arrays.fill(accountNumbers, null);
+                Arrays.fill(accounts, null);
+                retired.clear();
+                head = NONE;
+                tail = NONE;
+                freeEntries = NONE;
+                allocated = 0;
+                size = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return size;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // The slot holding the account, or the complement of the free slot it would go to
+        private int find(long key, String accountNumber) {
+            int mask = table.length - 1;
+            for (int slot = slotOf(key); ; slot = (slot + 1) & mask) {
+                int entry = table[slot] - 1;
+                if (entry < 0) {
+                    return ~slot;
+                }
+                // Keys only match for another number when it parses alike, e.g. Account-42, or shares a hash
+                if (keys[entry] == key && accountNumber.equals(accountNumbers[entry])) {
+                    return slot;
+                }
+            }
+        }
+
+        private void insert(long key, String accountNumber, Account account, int slot) {
+            if (size >= capacity) {
+                int victim = tail;
+                evictions.increment();
+                retire(accountNumbers[victim], accounts[victim]);
+                removeAt(find(keys[victim], accountNumbers[victim]));
+                slot = ~find(key, accountNumber);
+            } else if (freeEntries == NONE && allocated == keys.length) {
+                resize(Math.min(capacity, keys.length * 2));
+                slot = ~find(key, accountNumber);
+            }
+            int entry;
+            if (freeEntries != NONE) {
+                entry = freeEntries;
+                freeEntries = next[entry];
+            } else {
+                entry = allocated++;
+            }
+            keys[entry] = key;
+            accountNumbers[entry] = accountNumber;
+            accounts[entry] = account;
+            table[slot] = entry + 1;
+            linkFirst(entry);
+            size++;
+        }
+
+        private void retire(String accountNumber, Account account) {
+            expunge();
+            retired.put(accountNumber, new Retired(accountNumber, account, collected));
+        }
+
+        // An evicted account someone still holds goes back into the table, as if it had never left
+        private Account revive(long key, String accountNumber, int slot) {
+            if (retired.isEmpty()) {
+                return null;
+            }
+            expunge();
+            Retired reference = retired.remove(accountNumber);
+            Account account = reference == null ? null : reference.get();
+            if (account != null) {
+                insert(key, accountNumber, account, slot);
+            }
+            return account;
+        }
+
+        private void expunge() {
+            for (Object reference; (reference = collected.poll()) != null; ) {
+                Retired collectedAccount = (Retired) reference;
+                retired.remove(collectedAccount.accountNumber, collectedAccount);
+            }
+        }
+
+        private void removeAt(int slot) {
+            int entry = table[slot] - 1;
+            int mask = table.length - 1;
+            // Backward shift: later entries of the probe run move into the hole unless it lies before their slot
+            int hole = slot;
+            for (int i = (hole + 1) & mask; table[i] != 0; i = (i + 1) & mask) {
+                int home = slotOf(keys[table[i] - 1]);
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    table[hole] = table[i];
+                    hole = i;
+                }
+            }
+            table[hole] = 0;
+            unlink(entry);
+            accountNumbers[entry] = null;
+            accounts[entry] = null;
+            next[entry] = freeEntries;
+            freeEntries = entry;
+            size--;
+        }
+
+        private void resize(int entries) {
+            keys = keys == null ? new long[entries] : Arrays.copyOf(keys, entries);
+            accountNumbers = accountNumbers == null ? new String[entries] : Arrays.copyOf(accountNumbers, entries);
+            accounts = accounts == null ? new Account[entries] : Arrays.copyOf(accounts, entries);
+            previous = previous == null ? new int[entries] : Arrays.copyOf(previous, entries);
+            next = next == null ? new int[entries] : Arrays.copyOf(next, entries);
+            table = new int[Integer.highestOneBit(entries * 2 - 1) << 1];
+            int mask = table.length - 1;
+            for (int entry = head; entry != NONE; entry = next[entry]) {
+                int slot = slotOf(keys[entry]);
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = entry + 1;
+            }
+        }
+
+        private int slotOf(long key) {
+            return (int) (spread(key) >>> 32) & (table.length - 1);
+        }
+
+        private void touch(int entry) {
+            if (entry != head) {
+                unlink(entry);
+                linkFirst(entry);
+            }
+        }
+
+        private void linkFirst(int entry) {
+            previous[entry] = NONE;
+            next[entry] = head;
+            if (head != NONE) {
+                previous[head] = entry;
+            } else {
+                tail = entry;
+            }
+            head = entry;
+        }
+
+        private void unlink(int entry) {
+            int before = previous[entry];
+            int after = next[entry];
+            if (before != NONE) {
+                next[before] = after;
+            } else {
+                head = after;
+            }
+            if (after != NONE) {
+                previous[after] = before;
+            } else {
+                tail = before;
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.shahrokhi.bankingsystem.service.concurrency;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.service.metrics.TransactionMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Keyed by account number rather than instance, so copies of the same row share a lock. Two-account
+// operations take the lower stripe first, which rules out lock-order deadlocks.
+@Component
+public class AccountLockManager {
+    public static final int DEFAULT_STRIPES = 1024;
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+    private final TransactionMetrics transactionMetrics;
+
+    public AccountLockManager() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public AccountLockManager(int stripes) {
+        this(stripes, new TransactionMetrics());
+    }
+
+    @Autowired
+    public AccountLockManager(@Value("${bank.locking.stripes:" + DEFAULT_STRIPES + "}") int stripes,
+                              TransactionMetrics transactionMetrics) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Number of lock stripes must be positive: " + stripes);
+        }
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) {
+            size <<= 1;
+        }
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.transactionMetrics = transactionMetrics;
+    }
+
+    public int getStripes() {
+        return locks.length;
+    }
+
+    public <T> T withLock(Account account, Supplier<T> action) {
+        ReentrantLock lock = locks[stripeOf(account)];
+        transactionMetrics.recordLockWait(lock(lock));
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public <T> T withLocks(Account first, Account second, Supplier<T> action) {
+        int firstStripe = stripeOf(first);
+        int secondStripe = stripeOf(second);
+        if (firstStripe == secondStripe) {
+            return withLock(first, action);
+        }
+
+        ReentrantLock lower = locks[Math.min(firstStripe, secondStripe)];
+        ReentrantLock upper = locks[Math.max(firstStripe, secondStripe)];
+        long waited = lock(lower);
+        try {
+            transactionMetrics.recordLockWait(waited + lock(upper));
+            try {
+                return action.get();
+            } finally {
+                upper.unlock();
+            }
+        } finally {
+            lower.unlock();
+        }
+    }
+
+    // For updates that need no account lock but must still wait for withAllLocks
+    public <T> T withAnyLock(Supplier<T> action) {
+        ReentrantLock lock = locks[ThreadLocalRandom.current().nextInt() & mask];
+        transactionMetrics.recordLockWait(lock(lock));
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public <T> T withLocks(Collection<Account> accounts, Supplier<T> action) {
+        int[] stripes = accounts.stream().mapToInt(this::stripeOf).sorted().distinct().toArray();
+        long waited = 0;
+        int held = 0;
+        try {
+            for (; held < stripes.length; held++) {
+                waited += lock(locks[stripes[held]]);
+            }
+            transactionMetrics.recordLockWait(waited);
+            return action.get();
+        } finally {
+            while (held > 0) {
+                locks[stripes[--held]].unlock();
+            }
+        }
+    }
+
+    public <T> T withAllLocks(Supplier<T> action) {
+        int held = 0;
+        try {
+            for (; held < locks.length; held++) {
+                locks[held].lock();
+            }
+            return action.get();
+        } finally {
+            while (held > 0) {
+                locks[--held].unlock();
+            }
+        }
+    }
+
+    // Returns the nanoseconds waited, the clock is only read when the lock is contended
+    private static long lock(ReentrantLock lock) {
+        if (lock.tryLock()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        lock.lock();
+        return System.nanoTime() - start;
+    }
+
+    int stripeOf(Account account) {
+        int hash = Objects.hashCode(account.getAccountNumber());
+        // Spread the high bits down, account numbers only differ in their last few characters
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
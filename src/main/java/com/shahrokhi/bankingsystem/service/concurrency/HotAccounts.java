@@ -0,0 +1,44 @@
+package com.shahrokhi.bankingsystem.service.concurrency;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Accounts such as merchant and settlement accounts that receive a large share of all deposits
+@Component
+public class HotAccounts {
+    @Getter
+    private final boolean enabled;
+    private final Set<String> accountNumbers;
+
+    public HotAccounts() {
+        this(false, new String[0]);
+    }
+
+    @Autowired
+    public HotAccounts(@Value("${bank.hot-accounts.enabled:false}") boolean enabled,
+                       @Value("${bank.hot-accounts.account-numbers:}") String[] accountNumbers) {
+        this.enabled = enabled;
+        this.accountNumbers = Arrays.stream(accountNumbers)
+                .map(String::trim)
+                .filter(accountNumber -> !accountNumber.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public boolean isHot(String accountNumber) {
+        return enabled && accountNumber != null && accountNumbers.contains(accountNumber);
+    }
+
+    public Account apply(Account account) {
+        if (isHot(account.getAccountNumber())) {
+            account.enableStriping();
+        }
+        return account;
+    }
+}
@@ -0,0 +1,9 @@
+package com.shahrokhi.bankingsystem.service.execution;
+
+public enum ExecutionMode {
+    // Needs Java 21, falls back to PLATFORM on older runtimes
+    VIRTUAL,
+    PLATFORM,
+    // Single-threaded shards per account, see ShardedTransactionExecutor
+    SHARDED
+}
@@ -0,0 +1,197 @@
+package com.shahrokhi.bankingsystem.service.execution;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.AccountNumbers;
+import com.shahrokhi.bankingsystem.service.metrics.TransactionMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// One thread per shard, an account is always handled by the same shard so its updates need no lock.
+// Outside SHARDED mode no threads are started and pauseAll simply runs the action.
+@Slf4j
+@Component
+public class ShardedTransactionExecutor {
+    @Getter
+    private final boolean enabled;
+    private final Shard[] shards;
+    private final TransactionMetrics transactionMetrics;
+
+    public ShardedTransactionExecutor() {
+        this(false, 1, new TransactionMetrics());
+    }
+
+    public ShardedTransactionExecutor(int shardCount) {
+        this(true, shardCount, new TransactionMetrics());
+    }
+
+    @Autowired
+    public ShardedTransactionExecutor(@Value("${bank.executor.mode:PLATFORM}") ExecutionMode mode,
+                                      @Value("${bank.executor.shards:0}") int shardCount,
+                                      TransactionMetrics transactionMetrics) {
+        this(mode == ExecutionMode.SHARDED,
+                shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors(), transactionMetrics);
+    }
+
+    private ShardedTransactionExecutor(boolean enabled, int shardCount, TransactionMetrics transactionMetrics) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Number of shards must be positive: " + shardCount);
+        }
+        this.enabled = enabled;
+        this.transactionMetrics = transactionMetrics;
+        this.shards = new Shard[enabled ? shardCount : 0];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard("transaction-shard-" + i);
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    // The future completes on the shard's thread, so stages added without an executor run there too
+    public <T> CompletableFuture<T> submit(Account account, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long submittedAt = System.nanoTime();
+        transactionMetrics.taskSubmitted();
+        shards[shardOf(account)].execute(() -> {
+            transactionMetrics.taskStarted(System.nanoTime() - submittedAt);
+            try {
+                future.complete(task.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                transactionMetrics.taskCompleted();
+            }
+        });
+        return future;
+    }
+
+    public boolean isSameShard(Account first, Account second) {
+        return shardOf(first) == shardOf(second);
+    }
+
+    // Must not be called from a shard thread
+    public synchronized <T> T pauseAll(Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+        CountDownLatch paused = new CountDownLatch(shards.length);
+        CountDownLatch resume = new CountDownLatch(1);
+        try {
+            for (Shard shard : shards) {
+                shard.execute(() -> {
+                    paused.countDown();
+                    awaitUninterruptibly(resume);
+                });
+            }
+            awaitUninterruptibly(paused);
+            return action.get();
+        } finally {
+            resume.countDown();
+        }
+    }
+
+    int shardOf(Account account) {
+        long id = AccountNumbers.parse(account.getAccountNumber());
+        // Consecutive account numbers go round-robin over the shards
+        return (int) Math.floorMod(id >= 0 ? id : account.getAccountNumber().hashCode(), (long) shards.length);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Shard shard : shards) {
+            shard.stop();
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Shard implements Runnable {
+        private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final Thread thread;
+        private volatile boolean waiting;
+        private volatile boolean stopped;
+
+        Shard(String name) {
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        void execute(Runnable task) {
+            if (stopped) {
+                throw new RejectedExecutionException("Transaction shard " + thread.getName() + " is stopped");
+            }
+            queue.offer(task);
+            // Stopped meanwhile, the thread may have exited already. Whoever removes the task owns it
+            if (stopped && queue.remove(task)) {
+                throw new RejectedExecutionException("Transaction shard " + thread.getName() + " is stopped");
+            }
+            // Pairs with the consumer setting waiting before it re-checks the queue, so a wake-up is never lost
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        void stop() {
+            stopped = true;
+            LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Runnable task = queue.poll();
+                if (task == null) {
+                    if (stopped) {
+                        return;
+                    }
+                    waiting = true;
+                    if (queue.isEmpty() && !stopped) {
+                        LockSupport.park(this);
+                    }
+                    waiting = false;
+                    continue;
+                }
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    log.error("Transaction task failed on {}", thread.getName(), e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.shahrokhi.bankingsystem.service.execution;
+
+import com.shahrokhi.bankingsystem.service.metrics.TransactionMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class TransactionExecutor {
+    public static final int DEFAULT_POOL_SIZE = 10;
+
+    @Getter
+    private final ExecutionMode mode;
+    private final ExecutorService executorService;
+    private final TransactionMetrics transactionMetrics;
+
+    public TransactionExecutor() {
+        this(ExecutionMode.PLATFORM, DEFAULT_POOL_SIZE);
+    }
+
+    public TransactionExecutor(ExecutionMode mode, int poolSize) {
+        this(mode, poolSize, new TransactionMetrics());
+    }
+
+    @Autowired
+    public TransactionExecutor(@Value("${bank.executor.mode:PLATFORM}") ExecutionMode mode,
+                               @Value("${bank.executor.pool-size:" + DEFAULT_POOL_SIZE + "}") int poolSize,
+                               TransactionMetrics transactionMetrics) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("Executor pool size must be positive: " + poolSize);
+        }
+        this.transactionMetrics = transactionMetrics;
+        ExecutorService virtualExecutor = mode == ExecutionMode.VIRTUAL ? newVirtualThreadPerTaskExecutor() : null;
+        if (virtualExecutor != null) {
+            this.mode = ExecutionMode.VIRTUAL;
+            this.executorService = virtualExecutor;
+        } else {
+            this.mode = mode == ExecutionMode.SHARDED ? ExecutionMode.SHARDED : ExecutionMode.PLATFORM;
+            this.executorService = Executors.newFixedThreadPool(poolSize);
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long submittedAt = System.nanoTime();
+        transactionMetrics.taskSubmitted();
+        return CompletableFuture.supplyAsync(() -> {
+            transactionMetrics.taskStarted(System.nanoTime() - submittedAt);
+            try {
+                return task.get();
+            } finally {
+                transactionMetrics.taskCompleted();
+            }
+        }, executorService);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        // Looked up reflectively because the project still compiles for Java 17
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads are not available on Java {}, falling back to a platform thread pool",
+                    Runtime.version().feature());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package com.shahrokhi.bankingsystem.service.ledgerSnapshot;
+
+public record AccountSnapshot(long id, Long bankId, String accountNumber, String holderName, long balance) {
+}
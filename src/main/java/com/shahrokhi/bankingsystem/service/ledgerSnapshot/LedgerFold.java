@@ -0,0 +1,95 @@
+package com.shahrokhi.bankingsystem.service.ledgerSnapshot;
+
+import com.shahrokhi.bankingsystem.model.AccountNumbers;
+import com.shahrokhi.bankingsystem.service.transactionJournal.LedgerRecordHandler;
+import com.shahrokhi.bankingsystem.service.transactionJournal.TransactionJournal;
+import com.shahrokhi.bankingsystem.service.transactionObservation.AccountOpening;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// A change can be journaled before its account's opening was published, it is held back until the opening
+final class LedgerFold implements LedgerRecordHandler {
+    private final Set<Long> bankIds;
+    private final List<AccountSnapshot> accounts;
+    private final Map<Long, Integer> indexes;
+    private final Map<Long, Long> pending = new HashMap<>();
+    private long[] balances;
+    private long firstHeldBackSequence;
+
+    LedgerFold(LedgerSnapshot base) {
+        List<AccountSnapshot> baseAccounts = base.getAccounts();
+        bankIds = new LinkedHashSet<>(base.getBankIds());
+        accounts = new ArrayList<>(baseAccounts);
+        indexes = new HashMap<>(baseAccounts.size() * 2);
+        balances = new long[Math.max(16, baseAccounts.size())];
+        for (int i = 0; i < baseAccounts.size(); i++) {
+            balances[i] = baseAccounts.get(i).balance();
+            indexes.put(AccountNumbers.parse(baseAccounts.get(i).accountNumber()), i);
+        }
+    }
+
+    @Override
+    public void onBalanceChange(long sequence, long accountId, byte type, long amount) {
+        long delta = switch (type) {
+            case TransactionJournal.TYPE_DEPOSIT -> amount;
+            case TransactionJournal.TYPE_WITHDRAW -> -amount;
+            default -> 0;
+        };
+        Integer index = indexes.get(accountId);
+        if (index != null) {
+            balances[index] += delta;
+            return;
+        }
+        if (firstHeldBackSequence == 0) {
+            firstHeldBackSequence = sequence;
+        }
+        pending.merge(accountId, delta, Long::sum);
+    }
+
+    @Override
+    public void onBankCreated(long sequence, long bankId) {
+        bankIds.add(bankId);
+    }
+
+    @Override
+    public void onAccountOpened(long sequence, AccountOpening opening) {
+        long accountId = AccountNumbers.parse(opening.accountNumber());
+        // Already in a base read from the database after the account was committed
+        if (indexes.containsKey(accountId)) {
+            return;
+        }
+        int index = accounts.size();
+        if (index == balances.length) {
+            balances = Arrays.copyOf(balances, index * 2);
+        }
+        Long heldBack = pending.remove(accountId);
+        balances[index] = opening.balance() + (heldBack != null ? heldBack : 0);
+        indexes.put(accountId, index);
+        accounts.add(new AccountSnapshot(opening.id(), opening.bankId(), opening.accountNumber(),
+                opening.holderName(), opening.balance()));
+    }
+
+    int unopenedAccounts() {
+        return pending.size();
+    }
+
+    long firstHeldBackSequence() {
+        return firstHeldBackSequence;
+    }
+
+    LedgerSnapshot toSnapshot(long journalSequence) {
+        List<AccountSnapshot> folded = new ArrayList<>(accounts.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            AccountSnapshot account = accounts.get(i);
+            folded.add(new AccountSnapshot(account.id(), account.bankId(), account.accountNumber(),
+                    account.holderName(), balances[i]));
+        }
+        return new LedgerSnapshot(journalSequence, System.currentTimeMillis(), List.copyOf(bankIds), folded);
+    }
+}
@@ -0,0 +1,170 @@
+package com.shahrokhi.bankingsystem.service.ledgerSnapshot;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Written to a temporary file and moved into place, so a crash never leaves a partial snapshot under a valid name
+@Slf4j
+public final class LedgerSnapshot {
+    private static final int MAGIC = 0x4C534E50;
+    private static final int VERSION = 1;
+    private static final String FILE_PREFIX = "snapshot-";
+    private static final String FILE_SUFFIX = ".dat";
+
+    private final long journalSequence;
+    private final long createdAt;
+    private final List<Long> bankIds;
+    private final List<AccountSnapshot> accounts;
+
+    public LedgerSnapshot(long journalSequence, long createdAt, List<Long> bankIds, List<AccountSnapshot> accounts) {
+        this.journalSequence = journalSequence;
+        this.createdAt = createdAt;
+        this.bankIds = bankIds;
+        this.accounts = accounts;
+    }
+
+    public long getJournalSequence() {
+        return journalSequence;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<Long> getBankIds() {
+        return bankIds;
+    }
+
+    public List<AccountSnapshot> getAccounts() {
+        return accounts;
+    }
+
+    public Path write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(fileName(journalSequence));
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(journalSequence);
+            out.writeLong(createdAt);
+            out.writeInt(bankIds.size());
+            for (long bankId : bankIds) {
+                out.writeLong(bankId);
+            }
+            out.writeInt(accounts.size());
+            for (AccountSnapshot account : accounts) {
+                out.writeLong(account.id());
+                out.writeLong(account.bankId() != null ? account.bankId() : 0);
+                out.writeUTF(account.accountNumber());
+                out.writeUTF(account.holderName() != null ? account.holderName() : "");
+                out.writeLong(account.balance());
+            }
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    public static LedgerSnapshot read(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(input, 1 << 16), new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a ledger snapshot: " + file);
+            }
+            long journalSequence = in.readLong();
+            long createdAt = in.readLong();
+            int bankCount = in.readInt();
+            List<Long> bankIds = new ArrayList<>(bankCount);
+            for (int i = 0; i < bankCount; i++) {
+                bankIds.add(in.readLong());
+            }
+            int count = in.readInt();
+            List<AccountSnapshot> accounts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                long bankId = in.readLong();
+                String accountNumber = in.readUTF();
+                String holderName = in.readUTF();
+                accounts.add(new AccountSnapshot(id, bankId != 0 ? bankId : null, accountNumber, holderName,
+                        in.readLong()));
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Checksum mismatch in ledger snapshot " + file);
+            }
+            return new LedgerSnapshot(journalSequence, createdAt, bankIds, accounts);
+        }
+    }
+
+    // Damaged snapshots are skipped
+    public static Optional<LedgerSnapshot> readLatest(Path directory) throws IOException {
+        List<Path> files = list(directory);
+        for (int i = files.size() - 1; i >= 0; i--) {
+            try {
+                return Optional.of(read(files.get(i)));
+            } catch (IOException e) {
+                log.warn("Skipping unreadable ledger snapshot {}: {}", files.get(i), e.getMessage());
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Returns the journal sequence of the oldest snapshot kept, 0 if there is none
+    public static long prune(Path directory, int retain) throws IOException {
+        List<Path> files = list(directory);
+        for (int i = 0; i < files.size() - retain; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+        return files.isEmpty() ? 0 : journalSequenceOf(files.get(Math.max(0, files.size() - retain)));
+    }
+
+    static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long journalSequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+
+    private static String fileName(long journalSequence) {
+        return String.format("%s%020d%s", FILE_PREFIX, journalSequence, FILE_SUFFIX);
+    }
+}
@@ -0,0 +1,223 @@
+package com.shahrokhi.bankingsystem.service.ledgerSnapshot;
+
+import com.shahrokhi.bankingsystem.model.AccountNumbers;
+import com.shahrokhi.bankingsystem.model.IdSequences;
+import com.shahrokhi.bankingsystem.service.AccountNumberGenerator;
+import com.shahrokhi.bankingsystem.service.AccountService;
+import com.shahrokhi.bankingsystem.service.concurrency.AccountLockManager;
+import com.shahrokhi.bankingsystem.service.execution.ShardedTransactionExecutor;
+import com.shahrokhi.bankingsystem.service.transactionJournal.JournalReader;
+import com.shahrokhi.bankingsystem.service.transactionJournal.TransactionJournal;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "bank.snapshot", name = "enabled", havingValue = "true")
+public class LedgerSnapshotter {
+    private static final String SELECT_BANKS_SQL = "SELECT id FROM bank";
+    private static final String SELECT_ACCOUNTS_SQL =
+            "SELECT id, bank_id, account_number, holder_name, balance FROM account";
+    private static final String INSERT_BANK_SQL = "INSERT INTO bank (id) VALUES (?)";
+    private static final String INSERT_ACCOUNT_SQL =
+            "INSERT INTO account (id, bank_id, account_number, holder_name, balance, version) "
+                    + "VALUES (?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_NUMBER_BLOCK_SQL = "INSERT INTO number_block (name, next_value) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountService accountService;
+    private final AccountLockManager accountLockManager;
+    private final ShardedTransactionExecutor shardedTransactionExecutor;
+    private final TransactionJournal transactionJournal;
+    @Getter
+    private final Path directory;
+    private final int retain;
+    private final ScheduledExecutorService scheduler;
+    // Base of the next snapshot, null until one was written or recovered
+    private LedgerSnapshot latest;
+
+    @Autowired
+    public LedgerSnapshotter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             AccountService accountService, AccountLockManager accountLockManager,
+                             ShardedTransactionExecutor shardedTransactionExecutor,
+                             TransactionJournal transactionJournal,
+                             @Value("${bank.snapshot.directory:snapshots}") Path directory,
+                             @Value("${bank.snapshot.interval-ms:60000}") long intervalMillis,
+                             @Value("${bank.snapshot.retain:2}") int retain) {
+        if (retain <= 0) {
+            throw new IllegalArgumentException("Number of retained snapshots must be positive: " + retain);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.accountService = accountService;
+        this.accountLockManager = accountLockManager;
+        this.shardedTransactionExecutor = shardedTransactionExecutor;
+        this.transactionJournal = transactionJournal;
+        this.directory = directory;
+        this.retain = retain;
+        if (intervalMillis > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ledger-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler.scheduleWithFixedDelay(this::snapshotQuietly,
+                    intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    // A database that already holds accounts is not restored, it becomes the base of the next snapshots
+    @PostConstruct
+    public synchronized int recover() {
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM account", Long.class);
+        if (existing != null && existing > 0) {
+            log.info("Database already holds {} accounts, skipping ledger recovery", existing);
+            write(readDatabase());
+            return 0;
+        }
+        long start = System.nanoTime();
+        try {
+            LedgerSnapshot base = LedgerSnapshot.readLatest(directory)
+                    .orElseGet(() -> new LedgerSnapshot(0, 0, List.of(), List.of()));
+            long sequence = transactionJournal.lastSequence();
+            LedgerFold fold = new LedgerFold(base);
+            long replayed = new JournalReader(transactionJournal.getDirectory())
+                    .replayLedger(base.getJournalSequence() + 1, sequence, fold);
+            if (fold.unopenedAccounts() > 0) {
+                log.warn("Skipped journal records of {} accounts that were never opened", fold.unopenedAccounts());
+            }
+            LedgerSnapshot recovered = fold.toSnapshot(sequence);
+            if (recovered.getBankIds().isEmpty() && recovered.getAccounts().isEmpty()) {
+                // Nothing to restore, still the base of the next snapshots
+                write(recovered);
+                return 0;
+            }
+            restore(recovered);
+            write(recovered);
+            log.info("Restored {} accounts from snapshot at journal sequence {} and {} journal records in {} ms",
+                    recovered.getAccounts().size(), base.getJournalSequence(), replayed,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return recovered.getAccounts().size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot recover ledger from " + directory, e);
+        }
+    }
+
+    // Folds the journal into the previous snapshot, only the first one reads the database under all locks
+    public synchronized Path snapshot() {
+        if (latest == null) {
+            return write(readDatabase());
+        }
+        try {
+            JournalReader reader = new JournalReader(transactionJournal.getDirectory());
+            long sequence = transactionJournal.lastSequence();
+            LedgerFold fold = new LedgerFold(latest);
+            reader.replayLedger(latest.getJournalSequence() + 1, sequence, fold);
+            if (fold.unopenedAccounts() > 0) {
+                // Their openings are still being published, stop before the first change they hold back
+                log.debug("Journal holds changes of {} accounts that are not opened yet, snapshot stops at {}",
+                        fold.unopenedAccounts(), fold.firstHeldBackSequence() - 1);
+                sequence = fold.firstHeldBackSequence() - 1;
+                fold = new LedgerFold(latest);
+                reader.replayLedger(latest.getJournalSequence() + 1, sequence, fold);
+            }
+            return write(fold.toSnapshot(sequence));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read transaction journal in " + transactionJournal.getDirectory(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        snapshotQuietly();
+    }
+
+    private LedgerSnapshot readDatabase() {
+        return accountLockManager.withAllLocks(() -> shardedTransactionExecutor.pauseAll(() -> {
+            accountService.flush();
+            long sequence = transactionJournal.lastSequence();
+            List<Long> bankIds = jdbcTemplate.queryForList(SELECT_BANKS_SQL, Long.class);
+            List<AccountSnapshot> accounts = jdbcTemplate.query(SELECT_ACCOUNTS_SQL, (row, rowNum) ->
+                    new AccountSnapshot(row.getLong("id"), (Long) row.getObject("bank_id", Long.class),
+                            row.getString("account_number"), row.getString("holder_name"), row.getLong("balance")));
+            return new LedgerSnapshot(sequence, System.currentTimeMillis(), bankIds, accounts);
+        }));
+    }
+
+    private Path write(LedgerSnapshot snapshot) {
+        try {
+            Path file = snapshot.write(directory);
+            latest = snapshot;
+            long oldest = LedgerSnapshot.prune(directory, retain);
+            transactionJournal.deleteSegmentsBefore(oldest + 1);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write ledger snapshot to " + directory, e);
+        }
+    }
+
+    private void restore(LedgerSnapshot snapshot) {
+        List<Long> bankIds = snapshot.getBankIds();
+        List<AccountSnapshot> accounts = snapshot.getAccounts();
+        long maxAccountId = 0;
+        long maxAccountNumber = 0;
+        List<Object[]> accountRows = new ArrayList<>(accounts.size());
+        for (AccountSnapshot account : accounts) {
+            maxAccountId = Math.max(maxAccountId, account.id());
+            maxAccountNumber = Math.max(maxAccountNumber, AccountNumbers.parse(account.accountNumber()));
+            accountRows.add(new Object[]{account.id(), account.bankId(), account.accountNumber(),
+                    account.holderName(), account.balance()});
+        }
+        List<Object[]> bankRows = bankIds.stream().map(id -> new Object[]{id}).toList();
+        long maxBankId = bankIds.stream().mapToLong(Long::longValue).max().orElse(0);
+        long restartAccountIds = IdSequences.restartValueAfter(maxAccountId);
+        long nextAccountNumber = maxAccountNumber + 1;
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_BANK_SQL, bankRows);
+            jdbcTemplate.batchUpdate(INSERT_ACCOUNT_SQL, accountRows);
+            // Rows were inserted with their original ids, move the sequences past them
+            jdbcTemplate.execute("ALTER SEQUENCE " + IdSequences.BANK + " RESTART WITH "
+                    + IdSequences.restartValueAfter(maxBankId));
+            jdbcTemplate.execute("ALTER SEQUENCE " + IdSequences.ACCOUNT + " RESTART WITH " + restartAccountIds);
+            jdbcTemplate.update("DELETE FROM number_block WHERE name = ?", AccountNumberGenerator.SEQUENCE_NAME);
+            jdbcTemplate.update(INSERT_NUMBER_BLOCK_SQL, AccountNumberGenerator.SEQUENCE_NAME, nextAccountNumber);
+        });
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.error("Failed to write ledger snapshot", e);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.shahrokhi.bankingsystem.service.loadGeneration;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.Money;
+import com.shahrokhi.bankingsystem.service.AccountService;
+import com.shahrokhi.bankingsystem.service.BankService;
+import com.shahrokhi.bankingsystem.service.aggregates.BankSummary;
+import com.shahrokhi.bankingsystem.service.metrics.LatencyHistogram;
+import com.shahrokhi.bankingsystem.service.metrics.TransactionOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+// Closed-loop clients: each waits for the result of its operation before submitting the next
+@Slf4j
+@Component
+public class LoadGenerator {
+    private static final TransactionOperation[] OPERATIONS =
+            {TransactionOperation.DEPOSIT, TransactionOperation.WITHDRAW, TransactionOperation.TRANSFER};
+    // Opening an account can hold two pooled connections while a block of account numbers is reserved,
+    // so setup stays well below the default pool size of ten
+    static final int SETUP_THREADS = 4;
+
+    private final BankService bankService;
+    private final AccountService accountService;
+
+    @Autowired
+    public LoadGenerator(BankService bankService, AccountService accountService) {
+        this.bankService = bankService;
+        this.accountService = accountService;
+    }
+
+    public LoadReport run(LoadProfile profile) throws InterruptedException {
+        long setupStart = System.nanoTime();
+        List<Long> bankIds = new ArrayList<>(profile.banks());
+        for (int b = 0; b < profile.banks(); b++) {
+            bankIds.add(bankService.createBank().getId());
+        }
+        List<Account> accounts = openAccounts(profile, bankIds);
+        long openingBalance = 0;
+        for (Account account : accounts) {
+            openingBalance += account.getBalanceMinorUnits();
+        }
+        Collections.shuffle(accounts, new Random(profile.seed()));
+        Duration setup = Duration.ofNanos(System.nanoTime() - setupStart);
+        log.info("Load run created {} banks with {} accounts in {} ms", profile.banks(), accounts.size(),
+                setup.toMillis());
+
+        Run run = new Run(profile, accounts);
+        Duration elapsed = run.execute();
+        MoneyCheck moneyCheck = checkMoney(bankIds, accounts, openingBalance + run.netInflow());
+        if (!moneyCheck.conserved()) {
+            log.error("Load run did not conserve money: {}", moneyCheck);
+        }
+        return new LoadReport(profile, setup, elapsed, run.report(), moneyCheck);
+    }
+
+    // Accounts keep their position despite the threads, so the hot accounts only depend on the seed
+    private List<Account> openAccounts(LoadProfile profile, List<Long> bankIds) throws InterruptedException {
+        Account[] accounts = new Account[profile.accounts()];
+        ExecutorService executor = Executors.newFixedThreadPool(SETUP_THREADS);
+        try {
+            AtomicInteger next = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < SETUP_THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    int index;
+                    while ((index = next.getAndIncrement()) < accounts.length) {
+                        int a = index % profile.accountsPerBank();
+                        accounts[index] = bankService.addAccount(bankIds.get(index / profile.accountsPerBank()),
+                                "Load client " + a, profile.initialBalance());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to open load run accounts", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return new ArrayList<>(Arrays.asList(accounts));
+    }
+
+    private MoneyCheck checkMoney(List<Long> bankIds, List<Account> accounts, long expected) {
+        long inMemory = 0;
+        for (Account account : accounts) {
+            inMemory += account.getBalanceMinorUnits();
+        }
+        long persisted = accountService.sumBalances(bankIds);
+        long aggregated = 0;
+        for (Long bankId : bankIds) {
+            aggregated += Money.toMinorUnits(bankService.summarize(bankId, Instant.now())
+                    .map(BankSummary::totalBalance).orElse(0.0));
+        }
+        return new MoneyCheck(expected, inMemory, persisted, aggregated);
+    }
+
+    private final class Run {
+        private final LoadProfile profile;
+        private final List<Account> accounts;
+        private final ZipfDistribution distribution;
+        private final long maxAmount;
+        private final Map<TransactionOperation, OperationStats> stats = new EnumMap<>(TransactionOperation.class);
+        private final LongAdder deposited = new LongAdder();
+        private final LongAdder withdrawn = new LongAdder();
+        private long deadline;
+
+        Run(LoadProfile profile, List<Account> accounts) {
+            this.profile = profile;
+            this.accounts = accounts;
+            this.distribution = new ZipfDistribution(accounts.size(), profile.zipfExponent());
+            this.maxAmount = Money.toMinorUnits(profile.maxAmount());
+            for (TransactionOperation operation : OPERATIONS) {
+                stats.put(operation, new OperationStats());
+            }
+        }
+
+        Duration execute() throws InterruptedException {
+            AtomicInteger clientCount = new AtomicInteger();
+            ExecutorService clients = Executors.newFixedThreadPool(profile.clients(), runnable -> {
+                Thread thread = new Thread(runnable, "load-client-" + clientCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            long start = System.nanoTime();
+            deadline = start + profile.duration().toNanos();
+            List<Future<?>> futures = new ArrayList<>();
+            SplittableRandom seeds = new SplittableRandom(profile.seed());
+            try {
+                for (int i = 0; i < profile.clients(); i++) {
+                    SplittableRandom random = seeds.split();
+                    futures.add(clients.submit(() -> drive(random)));
+                }
+                reportProgress(start);
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Load client failed", e.getCause());
+            } finally {
+                clients.shutdownNow();
+            }
+            return Duration.ofNanos(System.nanoTime() - start);
+        }
+
+        private void reportProgress(long start) throws InterruptedException {
+            long interval = profile.reportInterval().toNanos();
+            long previousOperations = 0;
+            long previousTime = start;
+            long now;
+            while ((now = System.nanoTime()) < deadline) {
+                TimeUnit.NANOSECONDS.sleep(Math.min(interval, deadline - now));
+                now = System.nanoTime();
+                long operations = completedOperations();
+                long failed = stats.values().stream().mapToLong(operationStats -> operationStats.failed.sum()).sum();
+                log.info("Load run at {} s: {} operations/s, {} operations, {} failed",
+                        TimeUnit.NANOSECONDS.toSeconds(now - start),
+                        Math.round((operations - previousOperations) * 1e9 / Math.max(1, now - previousTime)),
+                        operations, failed);
+                previousOperations = operations;
+                previousTime = now;
+            }
+        }
+
+        private void drive(SplittableRandom random) {
+            while (System.nanoTime() < deadline) {
+                int roll = random.nextInt(profile.totalWeight());
+                long amount = 1 + random.nextLong(maxAmount);
+                double majorAmount = Money.toMajorUnits(amount);
+                if (roll < profile.depositWeight()) {
+                    Account account = pick(random);
+                    run(TransactionOperation.DEPOSIT, () -> {
+                        boolean success = bankService.submitDeposit(account, majorAmount).join().success();
+                        if (success) {
+                            deposited.add(amount);
+                        }
+                        return success;
+                    });
+                } else if (roll < profile.depositWeight() + profile.withdrawWeight()) {
+                    Account account = pick(random);
+                    run(TransactionOperation.WITHDRAW, () -> {
+                        boolean success = bankService.submitWithdraw(account, majorAmount).join().success();
+                        if (success) {
+                            withdrawn.add(amount);
+                        }
+                        return success;
+                    });
+                } else {
+                    Account from = pick(random);
+                    Account to = pick(random);
+                    while (to == from) {
+                        to = pick(random);
+                    }
+                    Account payee = to;
+                    run(TransactionOperation.TRANSFER,
+                            () -> bankService.submitTransfer(from, payee, majorAmount).join().success());
+                }
+            }
+        }
+
+        private Account pick(SplittableRandom random) {
+            return accounts.get(distribution.next(random));
+        }
+
+        private void run(TransactionOperation operation, BooleanSupplier body) {
+            OperationStats operationStats = stats.get(operation);
+            long start = System.nanoTime();
+            try {
+                if (body.getAsBoolean()) {
+                    operationStats.succeeded.increment();
+                } else {
+                    operationStats.refused.increment();
+                }
+            } catch (RuntimeException e) {
+                operationStats.failed.increment();
+                log.debug("Load run {} failed", operation, e);
+            } finally {
+                operationStats.latency.record(System.nanoTime() - start);
+            }
+        }
+
+        long completedOperations() {
+            long operations = 0;
+            for (OperationStats operationStats : stats.values()) {
+                operations += operationStats.succeeded.sum() + operationStats.refused.sum()
+                        + operationStats.failed.sum();
+            }
+            return operations;
+        }
+
+        long netInflow() {
+            return deposited.sum() - withdrawn.sum();
+        }
+
+        Map<TransactionOperation, OperationReport> report() {
+            Map<TransactionOperation, OperationReport> reports = new EnumMap<>(TransactionOperation.class);
+            stats.forEach((operation, operationStats) -> reports.put(operation, operationStats.report()));
+            return reports;
+        }
+    }
+
+    private static final class OperationStats {
+        final LongAdder succeeded = new LongAdder();
+        final LongAdder refused = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        OperationReport report() {
+            return new OperationReport(succeeded.sum(), refused.sum(), failed.sum(), latency.snapshot());
+        }
+    }
+}
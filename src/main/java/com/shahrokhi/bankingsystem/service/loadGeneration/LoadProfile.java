@@ -0,0 +1,39 @@
+package com.shahrokhi.bankingsystem.service.loadGeneration;
+
+import java.time.Duration;
+
+public record LoadProfile(int banks, int accountsPerBank, int clients, Duration duration,
+                          int depositWeight, int withdrawWeight, int transferWeight, double zipfExponent,
+                          double initialBalance, double maxAmount, Duration reportInterval, long seed) {
+
+    public LoadProfile {
+        if (banks <= 0 || accountsPerBank <= 0 || clients <= 0) {
+            throw new IllegalArgumentException("Banks, accounts per bank and clients must be positive: "
+                    + banks + ", " + accountsPerBank + ", " + clients);
+        }
+        if (duration.isNegative() || duration.isZero() || reportInterval.isNegative() || reportInterval.isZero()) {
+            throw new IllegalArgumentException("Duration and report interval must be positive: "
+                    + duration + ", " + reportInterval);
+        }
+        if (depositWeight < 0 || withdrawWeight < 0 || transferWeight < 0
+                || depositWeight + withdrawWeight + transferWeight == 0) {
+            throw new IllegalArgumentException("Operation weights must not be negative and not all zero: "
+                    + depositWeight + "/" + withdrawWeight + "/" + transferWeight);
+        }
+        if (transferWeight > 0 && (long) banks * accountsPerBank < 2) {
+            throw new IllegalArgumentException("Transfers need at least two accounts");
+        }
+        if (initialBalance < 0 || maxAmount < 0.01) {
+            throw new IllegalArgumentException("Initial balance must not be negative and the maximum amount at "
+                    + "least 0.01: " + initialBalance + ", " + maxAmount);
+        }
+    }
+
+    public int accounts() {
+        return Math.multiplyExact(banks, accountsPerBank);
+    }
+
+    public int totalWeight() {
+        return depositWeight + withdrawWeight + transferWeight;
+    }
+}
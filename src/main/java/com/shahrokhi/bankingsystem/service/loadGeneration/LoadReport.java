@@ -0,0 +1,19 @@
+package com.shahrokhi.bankingsystem.service.loadGeneration;
+
+import com.shahrokhi.bankingsystem.service.metrics.TransactionOperation;
+
+import java.time.Duration;
+import java.util.Map;
+
+public record LoadReport(LoadProfile profile, Duration setup, Duration elapsed,
+                         Map<TransactionOperation, OperationReport> operations, MoneyCheck moneyCheck) {
+
+    public long totalOperations() {
+        return operations.values().stream().mapToLong(OperationReport::total).sum();
+    }
+
+    public double throughputPerSecond() {
+        double seconds = elapsed.toNanos() / 1e9;
+        return seconds == 0 ? 0 : totalOperations() / seconds;
+    }
+}
@@ -0,0 +1,9 @@
+package com.shahrokhi.bankingsystem.service.loadGeneration;
+
+// In minor units, expected is counted by the clients from the openings, deposits and withdrawals
+public record MoneyCheck(long expected, long inMemory, long persisted, long aggregated) {
+
+    public boolean conserved() {
+        return inMemory == expected && persisted == expected && aggregated == expected;
+    }
+}
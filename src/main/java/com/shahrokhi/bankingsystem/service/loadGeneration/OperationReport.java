@@ -0,0 +1,11 @@
+package com.shahrokhi.bankingsystem.service.loadGeneration;
+
+import com.shahrokhi.bankingsystem.service.metrics.LatencyHistogram;
+
+// Refused operations ran but were declined for insufficient funds, failed ones threw
+public record OperationReport(long succeeded, long refused, long failed, LatencyHistogram.Snapshot latency) {
+
+    public long total() {
+        return succeeded + refused + failed;
+    }
+}
@@ -0,0 +1,35 @@
+package com.shahrokhi.bankingsystem.service.loadGeneration;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Rank k is drawn with a probability proportional to 1 / (k + 1)^exponent, 0 is uniform
+public class ZipfDistribution {
+    private final double[] cumulative;
+
+    public ZipfDistribution(int n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Zipf distribution needs at least one rank: " + n);
+        }
+        if (exponent < 0) {
+            throw new IllegalArgumentException("Zipf exponent must not be negative: " + exponent);
+        }
+        cumulative = new double[n];
+        double total = 0;
+        for (int rank = 0; rank < n; rank++) {
+            total += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+    }
+
+    public int size() {
+        return cumulative.length;
+    }
+
+    public int next(SplittableRandom random) {
+        double target = random.nextDouble() * cumulative[cumulative.length - 1];
+        int index = Arrays.binarySearch(cumulative, target);
+        // Not found gives -(insertion point) - 1, the first rank whose cumulative weight exceeds the target
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+}
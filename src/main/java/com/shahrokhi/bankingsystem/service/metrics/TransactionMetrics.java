@@ -0,0 +1,76 @@
+package com.shahrokhi.bankingsystem.service.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class TransactionMetrics {
+    private final Map<TransactionOperation, LatencyHistogram> operations = new EnumMap<>(TransactionOperation.class);
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram lockWait = new LatencyHistogram();
+    private final LatencyHistogram observerDispatch = new LatencyHistogram();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+
+    public TransactionMetrics() {
+        for (TransactionOperation operation : TransactionOperation.values()) {
+            operations.put(operation, new LatencyHistogram());
+        }
+    }
+
+    public void recordOperation(TransactionOperation operation, long nanos) {
+        operations.get(operation).record(nanos);
+    }
+
+    public void recordLockWait(long nanos) {
+        lockWait.record(nanos);
+    }
+
+    public void recordObserverDispatch(long nanos) {
+        observerDispatch.record(nanos);
+    }
+
+    public void taskSubmitted() {
+        submitted.increment();
+    }
+
+    public void taskStarted(long queueWaitNanos) {
+        started.increment();
+        queueWait.record(queueWaitNanos);
+    }
+
+    public void taskCompleted() {
+        completed.increment();
+    }
+
+    public long getQueueDepth() {
+        return Math.max(0, submitted.sum() - started.sum());
+    }
+
+    public long getInFlight() {
+        return Math.max(0, submitted.sum() - completed.sum());
+    }
+
+    public Snapshot snapshot() {
+        Map<String, LatencyHistogram.Snapshot> operationSnapshots = new LinkedHashMap<>();
+        operations.forEach((operation, histogram) ->
+                operationSnapshots.put(operation.name().toLowerCase(), histogram.snapshot()));
+        return new Snapshot(operationSnapshots, queueWait.snapshot(), lockWait.snapshot(),
+                observerDispatch.snapshot(), getQueueDepth(), getInFlight(), completed.sum());
+    }
+
+    public record Snapshot(Map<String, LatencyHistogram.Snapshot> operations,
+                           LatencyHistogram.Snapshot queueWait,
+                           LatencyHistogram.Snapshot lockWait,
+                           LatencyHistogram.Snapshot observerDispatch,
+                           long queueDepth,
+                           long inFlight,
+                           long completed) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.shahrokhi.bankingsystem.service.metrics;
+
+public enum TransactionOperation {
+    DEPOSIT,
+    WITHDRAW,
+    TRANSFER,
+    SETTLEMENT
+}
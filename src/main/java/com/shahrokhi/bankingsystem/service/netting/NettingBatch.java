@@ -0,0 +1,99 @@
+package com.shahrokhi.bankingsystem.service.netting;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.Money;
+import com.shahrokhi.bankingsystem.service.TransferResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// net() decides the transfers in order as if they ran one by one, apply() then moves each account once.
+// Both must be called holding the locks of all accounts of the batch.
+public class NettingBatch {
+    private final List<TransferInstruction> transfers;
+    // Keyed by account number, the same account may be passed as different instances
+    private final Map<String, Position> positions = new HashMap<>();
+    private final List<Account> accounts = new ArrayList<>();
+    private boolean[] settled;
+
+    public NettingBatch(List<TransferInstruction> transfers) {
+        this.transfers = transfers;
+        for (TransferInstruction transfer : transfers) {
+            positionOf(transfer.fromAccount());
+            positionOf(transfer.toAccount());
+        }
+    }
+
+    public Collection<Account> getAccounts() {
+        return accounts;
+    }
+
+    public List<TransferResult> net() {
+        for (Position position : positions.values()) {
+            position.opening = position.account.getBalanceMinorUnits();
+            position.balance = position.opening;
+        }
+        settled = new boolean[transfers.size()];
+        List<TransferResult> results = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferInstruction transfer = transfers.get(i);
+            Position from = positions.get(transfer.fromAccount().getAccountNumber());
+            Position to = positions.get(transfer.toAccount().getAccountNumber());
+            long amount = Money.toMinorUnits(transfer.amount());
+            if (amount >= 0 && from.balance >= amount) {
+                from.balance -= amount;
+                to.balance += amount;
+                settled[i] = true;
+            }
+            results.add(new TransferResult(settled[i],
+                    from.account.getAccountNumber(), Money.toMajorUnits(from.balance),
+                    to.account.getAccountNumber(), Money.toMajorUnits(to.balance)));
+        }
+        return results;
+    }
+
+    public List<Account> apply() {
+        if (settled == null) {
+            throw new IllegalStateException("Batch has not been netted");
+        }
+        List<Account> changed = new ArrayList<>();
+        for (Account account : accounts) {
+            Position position = positions.get(account.getAccountNumber());
+            long delta = position.balance - position.opening;
+            if (delta > 0) {
+                account.depositMinorUnits(delta);
+            } else if (delta < 0 && !account.withdrawMinorUnits(-delta)) {
+                // Only possible when the balance was changed without holding the account lock
+                throw new IllegalStateException("Balance of " + account.getAccountNumber() + " changed while netting");
+            }
+            if (delta != 0) {
+                changed.add(account);
+            }
+        }
+        return changed;
+    }
+
+    public boolean isSettled(int index) {
+        return settled != null && settled[index];
+    }
+
+    private void positionOf(Account account) {
+        positions.computeIfAbsent(account.getAccountNumber(), number -> {
+            accounts.add(account);
+            return new Position(account);
+        });
+    }
+
+    private static final class Position {
+        final Account account;
+        long opening;
+        long balance;
+
+        Position(Account account) {
+            this.account = account;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.shahrokhi.bankingsystem.service.netting;
+
+import com.shahrokhi.bankingsystem.model.Account;
+
+public record TransferInstruction(Account fromAccount, Account toAccount, double amount) {
+}
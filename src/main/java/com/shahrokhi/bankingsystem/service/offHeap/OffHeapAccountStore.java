@@ -0,0 +1,140 @@
+package com.shahrokhi.bankingsystem.service.offHeap;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.AccountNumbers;
+import com.shahrokhi.bankingsystem.model.BalanceCell;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// The account number's sequence is the slot, a slot holds a state and the balance. Once filled the slot is
+// the authoritative balance: a reloaded account keeps it instead of the possibly older database row.
+@Slf4j
+@Component
+public class OffHeapAccountStore {
+    public static final int DEFAULT_MAX_ACCOUNTS = 1 << 24;
+    static final int SLAB_BITS = 16;
+    static final int SLAB_SLOTS = 1 << SLAB_BITS;
+    static final int SLOT_BYTES = 2 * Long.BYTES;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+    private static final int STATE = 0;
+    private static final int BALANCE = Long.BYTES;
+    private static final long EMPTY = 0;
+    private static final long FILLING = 1;
+    private static final long READY = 2;
+
+    @Getter
+    private final boolean enabled;
+    private final long maxAccounts;
+    private final AtomicReferenceArray<ByteBuffer> slabs;
+    private final LongAdder accounts = new LongAdder();
+    private final LongAdder unindexed = new LongAdder();
+
+    public OffHeapAccountStore() {
+        this(false, SLAB_SLOTS);
+    }
+
+    @Autowired
+    public OffHeapAccountStore(@Value("${bank.off-heap.enabled:false}") boolean enabled,
+                               @Value("${bank.off-heap.max-accounts:" + DEFAULT_MAX_ACCOUNTS + "}") long maxAccounts) {
+        if (maxAccounts <= 0 || (maxAccounts + SLAB_SLOTS - 1) >>> SLAB_BITS > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Off-heap capacity out of range: " + maxAccounts);
+        }
+        this.enabled = enabled;
+        this.maxAccounts = maxAccounts;
+        this.slabs = new AtomicReferenceArray<>(enabled ? (int) ((maxAccounts + SLAB_SLOTS - 1) >>> SLAB_BITS) : 0);
+    }
+
+    // The first instance seen fills the slot with its balance, later ones take the slot's
+    public boolean bind(Account account) {
+        if (!enabled || account.isOffHeap()) {
+            return account.isOffHeap();
+        }
+        long sequence = AccountNumbers.parse(account.getAccountNumber());
+        if (sequence < 0 || sequence >= maxAccounts) {
+            // Numbers outside the generated format or the capacity stay on the heap
+            unindexed.increment();
+            return false;
+        }
+        ByteBuffer slab = slabOf((int) (sequence >>> SLAB_BITS));
+        int offset = (int) (sequence & (SLAB_SLOTS - 1)) * SLOT_BYTES;
+        long state = (long) LONGS.getVolatile(slab, offset + STATE);
+        if (state == EMPTY && LONGS.compareAndSet(slab, offset + STATE, EMPTY, FILLING)) {
+            LONGS.setVolatile(slab, offset + BALANCE, account.getBalanceMinorUnits());
+            LONGS.setVolatile(slab, offset + STATE, READY);
+            accounts.increment();
+        } else {
+            // Another instance of the account is filling the slot right now
+            while ((long) LONGS.getVolatile(slab, offset + STATE) != READY) {
+                Thread.onSpinWait();
+            }
+        }
+        account.bindBalance(new Slot(slab, offset + BALANCE));
+        return true;
+    }
+
+    public OffHeapStats getStats() {
+        int allocated = 0;
+        for (int i = 0; i < slabs.length(); i++) {
+            if (slabs.get(i) != null) {
+                allocated++;
+            }
+        }
+        return new OffHeapStats(accounts.sum(), allocated, (long) allocated * SLAB_SLOTS * SLOT_BYTES,
+                unindexed.sum());
+    }
+
+    private ByteBuffer slabOf(int index) {
+        ByteBuffer slab = slabs.get(index);
+        if (slab != null) {
+            return slab;
+        }
+        ByteBuffer allocated = ByteBuffer.allocateDirect(SLAB_SLOTS * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        if (allocated.alignmentOffset(0, Long.BYTES) != 0) {
+            // Atomic long access needs aligned addresses, direct buffers are at least word aligned in practice
+            throw new IllegalStateException("Direct buffer is not aligned to " + Long.BYTES + " bytes");
+        }
+        if (slabs.compareAndSet(index, null, allocated)) {
+            log.debug("Allocated off-heap slab {}", index);
+            return allocated;
+        }
+        // Lost the race, the unused buffer is freed by the garbage collector
+        return slabs.get(index);
+    }
+
+    private record Slot(ByteBuffer slab, int offset) implements BalanceCell {
+        @Override
+        public long get() {
+            return (long) LONGS.getVolatile(slab, offset);
+        }
+
+        @Override
+        public void set(long balance) {
+            LONGS.setVolatile(slab, offset, balance);
+        }
+
+        @Override
+        public boolean compareAndSet(long expected, long balance) {
+            return LONGS.compareAndSet(slab, offset, expected, balance);
+        }
+
+        @Override
+        public void add(long delta) {
+            LONGS.getAndAdd(slab, offset, delta);
+        }
+    }
+
+    public record OffHeapStats(long accounts, int slabs, long bytes, long unindexed) {
+    }
+}
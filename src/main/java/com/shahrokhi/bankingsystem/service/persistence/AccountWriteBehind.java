@@ -0,0 +1,126 @@
+package com.shahrokhi.bankingsystem.service.persistence;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Dirty accounts are keyed by id, so an account changed many times between two flushes costs one UPDATE
+@Slf4j
+@Component
+public class AccountWriteBehind {
+    static final String UPDATE_BALANCE_SQL = "UPDATE account SET balance = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    @Getter
+    private final boolean enabled;
+    private final int batchSize;
+    private final ConcurrentHashMap<Long, Account> dirtyAccounts = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+
+    public AccountWriteBehind(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, boolean enabled,
+                              int batchSize, long flushIntervalMillis) {
+        this(jdbcTemplate, transactionTemplate, enabled, false, batchSize, flushIntervalMillis);
+    }
+
+    @Autowired
+    public AccountWriteBehind(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              @Value("${bank.write-behind.enabled:false}") boolean enabled,
+                              @Value("#{${bank.hot-accounts.enabled:false} or ${bank.off-heap.enabled:false}}")
+                              boolean requiredByAccounts,
+                              @Value("${bank.write-behind.batch-size:500}") int batchSize,
+                              @Value("${bank.write-behind.flush-interval-ms:50}") long flushIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        if (enabled || requiredByAccounts) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "account-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                    flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    public void markDirty(Account account) {
+        dirtyAccounts.put(account.getId(), account);
+        if (dirtyAccounts.size() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    public int getDirtyCount() {
+        return dirtyAccounts.size();
+    }
+
+    public synchronized int flush() {
+        if (dirtyAccounts.isEmpty()) {
+            return 0;
+        }
+        List<Account> accounts = new ArrayList<>(dirtyAccounts.size());
+        List<Object[]> batch = new ArrayList<>(dirtyAccounts.size());
+        for (Long id : dirtyAccounts.keySet()) {
+            Account account = dirtyAccounts.remove(id);
+            // Read the balance after removing the entry, a concurrent update either lands in this
+            // read or marks the account dirty again for the next flush
+            if (account != null) {
+                accounts.add(account);
+                batch.add(new Object[]{account.getBalanceMinorUnits(), id});
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, batch));
+        } catch (RuntimeException e) {
+            // Keep the accounts for the next attempt unless they have been marked dirty again meanwhile
+            for (Account account : accounts) {
+                dirtyAccounts.putIfAbsent(account.getId(), account);
+            }
+            throw e;
+        }
+        return batch.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Failed to flush dirty account balances", e);
+        }
+    }
+}
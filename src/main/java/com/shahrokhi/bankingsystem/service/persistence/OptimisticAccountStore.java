@@ -0,0 +1,180 @@
+package com.shahrokhi.bankingsystem.service.persistence;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// The database row decides every change, the in-memory account is only a hint for the first attempt.
+// Every instance sharing the database must enable this store, other write paths do not bump the version.
+@Component
+public class OptimisticAccountStore {
+    static final String SELECT_SQL = "SELECT balance, version FROM account WHERE id = ?";
+    static final String UPDATE_SQL = "UPDATE account SET balance = ?, version = ? WHERE id = ? AND version = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    @Getter
+    private final boolean enabled;
+    private final int maxRetries;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public OptimisticAccountStore() {
+        this(null, null, false, 0, 0, 0);
+    }
+
+    @Autowired
+    public OptimisticAccountStore(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                  @Value("${bank.optimistic.enabled:false}") boolean enabled,
+                                  @Value("${bank.optimistic.max-retries:16}") int maxRetries,
+                                  @Value("${bank.optimistic.initial-backoff-ms:1}") long initialBackoffMillis,
+                                  @Value("${bank.optimistic.max-backoff-ms:100}") long maxBackoffMillis) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("Number of retries must not be negative: " + maxRetries);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.maxRetries = maxRetries;
+        this.initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(initialBackoffMillis);
+        this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(maxBackoffMillis);
+    }
+
+    public boolean deposit(Account account, long amount) {
+        return apply(new Account[]{account}, new long[]{amount});
+    }
+
+    public boolean withdraw(Account account, long amount) {
+        return apply(new Account[]{account}, new long[]{-amount});
+    }
+
+    public boolean transfer(Account fromAccount, Account toAccount, long amount) {
+        if (fromAccount.getId() != null && fromAccount.getId().equals(toAccount.getId())) {
+            // Nothing moves, the transfer only succeeds if it could have been paid
+            reload(fromAccount);
+            return fromAccount.getBalanceMinorUnits() >= amount;
+        }
+        // Rows are updated in id order, so transfers in opposite directions do not deadlock in the database
+        return fromAccount.getId() < toAccount.getId()
+                ? apply(new Account[]{fromAccount, toAccount}, new long[]{-amount, amount})
+                : apply(new Account[]{toAccount, fromAccount}, new long[]{amount, -amount});
+    }
+
+    public OptimisticStats getStats() {
+        return new OptimisticStats(commits.sum(), conflicts.sum(), exhausted.sum());
+    }
+
+    private boolean apply(Account[] accounts, long[] deltas) {
+        for (Account account : accounts) {
+            if (account.getId() == null) {
+                throw new IllegalArgumentException("Account " + account.getAccountNumber() + " has not been saved");
+            }
+        }
+        boolean fresh = false;
+        for (int attempt = 0; ; attempt++) {
+            if (!covered(accounts, deltas)) {
+                // A stale in-memory balance may be too low, only a freshly read one can refuse the change
+                if (fresh) {
+                    return false;
+                }
+                reload(accounts);
+                fresh = true;
+                continue;
+            }
+            if (tryUpdate(accounts, deltas)) {
+                commits.increment();
+                return true;
+            }
+            conflicts.increment();
+            if (attempt >= maxRetries) {
+                exhausted.increment();
+                throw new OptimisticLockingFailureException("Account " + accounts[0].getAccountNumber()
+                        + " kept changing concurrently, gave up after " + (attempt + 1) + " attempts");
+            }
+            backoff(attempt);
+            reload(accounts);
+            fresh = true;
+        }
+    }
+
+    private static boolean covered(Account[] accounts, long[] deltas) {
+        for (int i = 0; i < accounts.length; i++) {
+            if (accounts[i].getBalanceMinorUnits() + deltas[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean tryUpdate(Account[] accounts, long[] deltas) {
+        long[] balances = new long[accounts.length];
+        long[] versions = new long[accounts.length];
+        for (int i = 0; i < accounts.length; i++) {
+            balances[i] = accounts[i].getBalanceMinorUnits() + deltas[i];
+            versions[i] = accounts[i].getVersion();
+        }
+        Boolean updated;
+        try {
+            updated = transactionTemplate.execute(status -> {
+                for (int i = 0; i < accounts.length; i++) {
+                    if (jdbcTemplate.update(UPDATE_SQL, balances[i], versions[i] + 1, accounts[i].getId(),
+                            versions[i]) == 0) {
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                }
+                return true;
+            });
+        } catch (ConcurrencyFailureException e) {
+            // Lock timeout or deadlock victim in the database, the transaction was rolled back: retry as well
+            return false;
+        }
+        if (!Boolean.TRUE.equals(updated)) {
+            return false;
+        }
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i].refresh(balances[i], versions[i] + 1);
+        }
+        return true;
+    }
+
+    private void reload(Account... accounts) {
+        for (Account account : accounts) {
+            try {
+                long[] row = jdbcTemplate.queryForObject(SELECT_SQL,
+                        (resultSet, rowNum) -> new long[]{resultSet.getLong("balance"), resultSet.getLong("version")},
+                        account.getId());
+                account.refresh(row[0], row[1]);
+            } catch (EmptyResultDataAccessException e) {
+                throw new IllegalStateException("Account " + account.getAccountNumber() + " no longer exists", e);
+            }
+        }
+    }
+
+    // Randomized, so instances that collided once do not collide again in lockstep
+    private void backoff(int attempt) {
+        long cap = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt, 30));
+        if (cap > 0) {
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(cap + 1));
+        }
+    }
+
+    public record OptimisticStats(long commits, long conflicts, long exhausted) {
+    }
+}
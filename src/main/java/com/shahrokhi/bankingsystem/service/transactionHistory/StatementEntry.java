@@ -0,0 +1,6 @@
+package com.shahrokhi.bankingsystem.service.transactionHistory;
+
+import java.time.Instant;
+
+public record StatementEntry(long id, String accountNumber, String type, double amount, Instant createdAt) {
+}
@@ -0,0 +1,7 @@
+package com.shahrokhi.bankingsystem.service.transactionHistory;
+
+import java.util.List;
+
+// nextCursor is passed as after for the next page, null on the last page
+public record StatementPage(List<StatementEntry> entries, Long nextCursor) {
+}
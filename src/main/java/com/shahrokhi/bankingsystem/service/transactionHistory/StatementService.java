@@ -0,0 +1,90 @@
+package com.shahrokhi.bankingsystem.service.transactionHistory;
+
+import com.shahrokhi.bankingsystem.model.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+
+@Service
+public class StatementService {
+    public static final int MAX_PAGE_SIZE = 1_000;
+    static final int EXPORT_FETCH_SIZE = 1_000;
+    static final String CSV_HEADER = "id,account_number,type,amount,created_at\n";
+
+    private static final String SELECT_COLUMNS =
+            "SELECT id, account_number, type, amount, created_at FROM transaction_history ";
+    private static final String PAGE_SQL = SELECT_COLUMNS + "WHERE account_number = ? AND id > ? ORDER BY id LIMIT ?";
+    private static final String EXPORT_SQL = SELECT_COLUMNS + "WHERE account_number = ? ORDER BY id";
+
+    private static final RowMapper<StatementEntry> ENTRY_MAPPER = (resultSet, rowNum) -> new StatementEntry(
+            resultSet.getLong("id"),
+            resultSet.getString("account_number"),
+            resultSet.getString("type"),
+            Money.toMajorUnits(resultSet.getLong("amount")),
+            resultSet.getTimestamp("created_at").toInstant());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate exportJdbcTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    @Autowired
+    public StatementService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.exportJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        // Pulls the export in chunks, so a long history is written out in constant memory
+        this.exportJdbcTemplate.setFetchSize(EXPORT_FETCH_SIZE);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    // after is the id of the last entry already read, 0 for the first page
+    public StatementPage page(String accountNumber, long after, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ": " + limit);
+        }
+        // One row more than asked for tells whether another page follows
+        List<StatementEntry> entries = jdbcTemplate.query(PAGE_SQL, ENTRY_MAPPER, accountNumber, after, limit + 1);
+        if (entries.size() <= limit) {
+            return new StatementPage(entries, null);
+        }
+        List<StatementEntry> page = entries.subList(0, limit);
+        return new StatementPage(List.copyOf(page), page.get(limit - 1).id());
+    }
+
+    public long exportCsv(String accountNumber, Writer out) {
+        long[] written = {0};
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try {
+                out.write(CSV_HEADER);
+                exportJdbcTemplate.query(EXPORT_SQL, resultSet -> {
+                    try {
+                        out.write(Long.toString(resultSet.getLong("id")));
+                        out.write(',');
+                        out.write(resultSet.getString("account_number"));
+                        out.write(',');
+                        out.write(resultSet.getString("type"));
+                        out.write(',');
+                        out.write(Money.toDecimal(resultSet.getLong("amount")).toPlainString());
+                        out.write(',');
+                        out.write(resultSet.getTimestamp("created_at").toInstant().toString());
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    written[0]++;
+                }, accountNumber);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return written[0];
+    }
+}
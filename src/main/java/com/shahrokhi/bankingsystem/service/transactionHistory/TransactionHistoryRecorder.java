@@ -0,0 +1,126 @@
+package com.shahrokhi.bankingsystem.service.transactionHistory;
+
+import com.shahrokhi.bankingsystem.model.Money;
+import com.shahrokhi.bankingsystem.service.transactionObservation.TransactionObserver;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Writes are serialized, so an account's ids follow the order of its transactions as statement pages expect
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "bank.history", name = "enabled", havingValue = "true")
+public class TransactionHistoryRecorder implements TransactionObserver {
+    static final String INSERT_SQL =
+            "INSERT INTO transaction_history (account_number, type, amount, created_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxPending;
+    private final ScheduledExecutorService scheduler;
+    private List<Object[]> pending = new ArrayList<>();
+    private boolean failing;
+    private boolean dropping;
+    private long dropped;
+
+    @Autowired
+    public TransactionHistoryRecorder(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                      @Value("${bank.history.batch-size:500}") int batchSize,
+                                      @Value("${bank.history.flush-interval-ms:100}") long flushIntervalMillis,
+                                      @Value("${bank.history.max-pending:100000}") int maxPending) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("History batch size must be positive: " + batchSize);
+        }
+        if (maxPending < batchSize) {
+            throw new IllegalArgumentException("Pending history rows must hold at least one batch: " + maxPending);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transaction-history");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void onTransaction(String accountNumber, String transactionType, double amount) {
+        if (pending.size() >= maxPending) {
+            if (!dropping) {
+                dropping = true;
+                log.warn("{} transaction history rows are waiting to be written, dropping new ones", maxPending);
+            }
+            dropped++;
+            return;
+        }
+        pending.add(new Object[]{accountNumber, transactionType, Money.toMinorUnits(amount),
+                Timestamp.from(Instant.now())});
+        // While the database is failing only the scheduler retries, publishers do not wait on it
+        if (pending.size() >= batchSize && !failing) {
+            flushQuietly();
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    public synchronized int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> batch = pending;
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch));
+        } catch (RuntimeException e) {
+            // Kept, a failed batch is retried by the next flush
+            failing = true;
+            throw e;
+        }
+        failing = false;
+        dropping = false;
+        pending = new ArrayList<>(batchSize);
+        return batch.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Failed to write transaction history", e);
+        }
+    }
+}
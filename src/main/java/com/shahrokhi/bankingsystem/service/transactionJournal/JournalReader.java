@@ -0,0 +1,124 @@
+package com.shahrokhi.bankingsystem.service.transactionJournal;
+
+import com.shahrokhi.bankingsystem.service.transactionObservation.AccountOpening;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+// Can run next to a live journal, it stops at the first record that has not been published yet
+public class JournalReader {
+    private final Path directory;
+
+    public JournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    public long scan(JournalRecordHandler handler) throws IOException {
+        return replay(1, Long.MAX_VALUE, handler);
+    }
+
+    // Both bounds inclusive, returns the number of records handed to the handler
+    public long replay(long fromSequence, long toSequence, JournalRecordHandler handler) throws IOException {
+        long[] count = new long[1];
+        JournalRecordHandler counting = (sequence, timestamp, accountId, type, amount) -> {
+            if (sequence >= fromSequence) {
+                count[0]++;
+                handler.onRecord(sequence, timestamp, accountId, type, amount);
+            }
+        };
+
+        List<Path> segments = JournalSegment.list(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            // Skip segments that end before the requested range starts
+            if (i + 1 < segments.size() && JournalSegment.firstSequenceOf(segments.get(i + 1)) <= fromSequence) {
+                continue;
+            }
+            JournalSegment segment = JournalSegment.openReadOnly(segments.get(i));
+            if (segment.firstSequence > toSequence) {
+                break;
+            }
+            int fromSlot = (int) Math.max(0, fromSequence - segment.firstSequence);
+            if (!segment.replay(fromSlot, toSequence, counting)) {
+                break;
+            }
+        }
+        return count[0];
+    }
+
+    // Puts the records of an opening back together, the range must not start inside an opening
+    public long replayLedger(long fromSequence, long toSequence, LedgerRecordHandler handler) throws IOException {
+        return replay(fromSequence, toSequence, new LedgerDecoder(handler));
+    }
+
+    public long lastSequence() throws IOException {
+        List<Path> segments = JournalSegment.list(directory);
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            JournalSegment segment = JournalSegment.openReadOnly(segments.get(i));
+            int written = segment.writtenRecords();
+            if (written > 0) {
+                return segment.sequenceAt(written - 1);
+            }
+        }
+        return 0;
+    }
+
+    private static final class LedgerDecoder implements JournalRecordHandler {
+        private final LedgerRecordHandler handler;
+        private final ByteArrayOutputStream text = new ByteArrayOutputStream();
+        private long id;
+        private long bankId;
+        private boolean hasIds;
+
+        LedgerDecoder(LedgerRecordHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void onRecord(long sequence, long timestamp, long accountId, byte type, long amount) {
+            switch (type) {
+                case TransactionJournal.TYPE_OPEN_TEXT -> {
+                    writeLong(accountId);
+                    writeLong(amount);
+                    return;
+                }
+                case TransactionJournal.TYPE_OPEN_IDS -> {
+                    id = accountId;
+                    bankId = amount;
+                    hasIds = true;
+                    return;
+                }
+                case TransactionJournal.TYPE_OPEN -> {
+                    if (hasIds) {
+                        handler.onAccountOpened(sequence, opening(amount));
+                    }
+                }
+                case TransactionJournal.TYPE_BANK -> handler.onBankCreated(sequence, accountId);
+                default -> handler.onBalanceChange(sequence, accountId, type, amount);
+            }
+            text.reset();
+            hasIds = false;
+        }
+
+        private AccountOpening opening(long balance) {
+            byte[] bytes = text.toByteArray();
+            int length = bytes.length;
+            while (length > 0 && bytes[length - 1] == 0) {
+                length--;
+            }
+            String decoded = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            int separator = decoded.indexOf('\0');
+            String accountNumber = separator < 0 ? decoded : decoded.substring(0, separator);
+            String holderName = separator < 0 ? "" : decoded.substring(separator + 1);
+            return new AccountOpening(id, bankId != 0 ? bankId : null, accountNumber, holderName, balance);
+        }
+
+        private void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                text.write((int) (value >>> shift));
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.shahrokhi.bankingsystem.service.transactionJournal;
+
+@FunctionalInterface
+public interface JournalRecordHandler {
+    void onRecord(long sequence, long timestamp, long accountId, byte type, long amount);
+}
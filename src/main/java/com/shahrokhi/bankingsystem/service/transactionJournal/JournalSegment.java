@@ -0,0 +1,145 @@
+package com.shahrokhi.bankingsystem.service.transactionJournal;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Record layout in native byte order: sequence (0 while unwritten), timestamp, account id, amount, type byte.
+// The sequence is written last with release semantics, so a reader that sees it also sees the rest.
+final class JournalSegment {
+    static final int RECORD_SIZE = 40;
+    static final int SEQUENCE_OFFSET = 0;
+    static final int TIMESTAMP_OFFSET = 8;
+    static final int ACCOUNT_ID_OFFSET = 16;
+    static final int AMOUNT_OFFSET = 24;
+    static final int TYPE_OFFSET = 32;
+    // A mapped buffer is indexed by int
+    static final int MAX_RECORDS = Integer.MAX_VALUE / RECORD_SIZE;
+
+    private static final String FILE_PREFIX = "journal-";
+    private static final String FILE_SUFFIX = ".dat";
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    final long firstSequence;
+    final int capacity;
+    final MappedByteBuffer buffer;
+
+    private JournalSegment(long firstSequence, int capacity, MappedByteBuffer buffer) {
+        this.firstSequence = firstSequence;
+        this.capacity = capacity;
+        this.buffer = buffer;
+    }
+
+    static JournalSegment create(Path directory, long firstSequence, int capacity) throws IOException {
+        Path file = directory.resolve(fileName(firstSequence));
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+            buffer.order(ByteOrder.nativeOrder());
+            return new JournalSegment(firstSequence, capacity, buffer);
+        }
+    }
+
+    static JournalSegment openReadOnly(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.nativeOrder());
+            return new JournalSegment(firstSequenceOf(file), buffer.capacity() / RECORD_SIZE, buffer);
+        }
+    }
+
+    static JournalSegment openReadWrite(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            buffer.order(ByteOrder.nativeOrder());
+            return new JournalSegment(firstSequenceOf(file), buffer.capacity() / RECORD_SIZE, buffer);
+        }
+    }
+
+    static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>(files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+                    })
+                    .toList());
+            // File names are zero padded, so lexical order is sequence order
+            segments.sort(null);
+            return segments;
+        }
+    }
+
+    static String fileName(long firstSequence) {
+        return FILE_PREFIX + String.format("%020d", firstSequence) + FILE_SUFFIX;
+    }
+
+    static long firstSequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+
+    void write(int slot, long sequence, long timestamp, long accountId, byte type, long amount) {
+        int offset = offsetOf(slot);
+        buffer.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+        buffer.putLong(offset + ACCOUNT_ID_OFFSET, accountId);
+        buffer.putLong(offset + AMOUNT_OFFSET, amount);
+        buffer.put(offset + TYPE_OFFSET, type);
+        LONGS.setRelease(buffer, offset + SEQUENCE_OFFSET, sequence);
+    }
+
+    long sequenceAt(int slot) {
+        return (long) LONGS.getAcquire(buffer, offsetOf(slot) + SEQUENCE_OFFSET);
+    }
+
+    // Binary search, slots are filled front to back
+    int writtenRecords() {
+        int low = 0;
+        int high = capacity;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sequenceAt(mid) != 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    boolean replay(int fromSlot, long toSequence, JournalRecordHandler handler) {
+        for (int slot = fromSlot; slot < capacity; slot++) {
+            long sequence = sequenceAt(slot);
+            if (sequence == 0 || sequence > toSequence) {
+                return false;
+            }
+            int offset = offsetOf(slot);
+            handler.onRecord(sequence,
+                    buffer.getLong(offset + TIMESTAMP_OFFSET),
+                    buffer.getLong(offset + ACCOUNT_ID_OFFSET),
+                    buffer.get(offset + TYPE_OFFSET),
+                    buffer.getLong(offset + AMOUNT_OFFSET));
+        }
+        return true;
+    }
+
+    private static int offsetOf(int slot) {
+        return Math.toIntExact((long) slot * RECORD_SIZE);
+    }
+
+    void force() {
+        buffer.force();
+    }
+}
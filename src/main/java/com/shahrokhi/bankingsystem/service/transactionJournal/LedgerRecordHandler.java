@@ -0,0 +1,11 @@
+package com.shahrokhi.bankingsystem.service.transactionJournal;
+
+import com.shahrokhi.bankingsystem.service.transactionObservation.AccountOpening;
+
+public interface LedgerRecordHandler {
+    void onBalanceChange(long sequence, long accountId, byte type, long amount);
+
+    void onBankCreated(long sequence, long bankId);
+
+    void onAccountOpened(long sequence, AccountOpening opening);
+}
@@ -0,0 +1,190 @@
+package com.shahrokhi.bankingsystem.service.transactionJournal;
+
+import com.shahrokhi.bankingsystem.model.AccountNumbers;
+import com.shahrokhi.bankingsystem.model.Money;
+import com.shahrokhi.bankingsystem.service.transactionObservation.AccountOpening;
+import com.shahrokhi.bankingsystem.service.transactionObservation.SynchronousTransactionObserver;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Observed synchronously, while the account is still locked, so the journal order matches the order of
+// balance changes that ledger snapshots rely on
+@Component
+@ConditionalOnProperty(prefix = "bank.journal", name = "enabled", havingValue = "true")
+public class TransactionJournal implements SynchronousTransactionObserver, AutoCloseable {
+    public static final byte TYPE_UNKNOWN = 0;
+    public static final byte TYPE_DEPOSIT = 1;
+    public static final byte TYPE_WITHDRAW = 2;
+    public static final byte TYPE_BANK = 3;
+    public static final byte TYPE_OPEN = 4;
+    public static final byte TYPE_OPEN_IDS = 5;
+    public static final byte TYPE_OPEN_TEXT = 6;
+    // Bytes of text carried by one TYPE_OPEN_TEXT record, in its account id and amount fields
+    public static final int TEXT_BYTES_PER_RECORD = 16;
+
+    private static final int DEFAULT_SEGMENT_RECORDS = 262_144;
+
+    @Getter
+    private final Path directory;
+    private final int segmentRecords;
+
+    private JournalSegment segment;
+    private int position;
+    private long nextSequence;
+    private boolean closed;
+
+    @Autowired
+    public TransactionJournal(@Value("${bank.journal.directory:journal}") Path directory,
+                              @Value("${bank.journal.segment-records:" + DEFAULT_SEGMENT_RECORDS + "}") int segmentRecords) {
+        if (segmentRecords <= 0 || segmentRecords > JournalSegment.MAX_RECORDS) {
+            throw new IllegalArgumentException("Journal segment size must be between 1 and "
+                    + JournalSegment.MAX_RECORDS + " records: " + segmentRecords);
+        }
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open transaction journal in " + directory, e);
+        }
+    }
+
+    public static byte typeCode(String transactionType) {
+        return switch (transactionType) {
+            case "Deposit" -> TYPE_DEPOSIT;
+            case "Withdraw" -> TYPE_WITHDRAW;
+            default -> TYPE_UNKNOWN;
+        };
+    }
+
+    public static String typeName(byte typeCode) {
+        return switch (typeCode) {
+            case TYPE_DEPOSIT -> "Deposit";
+            case TYPE_WITHDRAW -> "Withdraw";
+            case TYPE_BANK -> "Bank";
+            case TYPE_OPEN, TYPE_OPEN_IDS, TYPE_OPEN_TEXT -> "Open";
+            default -> "Unknown";
+        };
+    }
+
+    @Override
+    public void onTransaction(String accountNumber, String transactionType, double amount) {
+        append(AccountNumbers.parse(accountNumber), typeCode(transactionType), Money.toMinorUnits(amount));
+    }
+
+    @Override
+    public void onBankCreated(long bankId) {
+        append(bankId, TYPE_BANK, 0);
+    }
+
+    @Override
+    public void onAccountOpened(AccountOpening opening) {
+        appendOpening(opening);
+    }
+
+    // OPEN_TEXT chunks of "number\0holder", then OPEN_IDS and last OPEN, which a crash may cut off;
+    // replayLedger ignores an opening without its OPEN record
+    public synchronized long appendOpening(AccountOpening opening) {
+        String holderName = opening.holderName() != null ? opening.holderName() : "";
+        byte[] text = (opening.accountNumber() + '\0' + holderName).getBytes(StandardCharsets.UTF_8);
+        for (int offset = 0; offset < text.length; offset += TEXT_BYTES_PER_RECORD) {
+            append(textChunk(text, offset), TYPE_OPEN_TEXT, textChunk(text, offset + 8));
+        }
+        append(opening.id() != null ? opening.id() : 0, TYPE_OPEN_IDS,
+                opening.bankId() != null ? opening.bankId() : 0);
+        return append(AccountNumbers.parse(opening.accountNumber()), TYPE_OPEN, opening.balance());
+    }
+
+    public synchronized long append(long accountId, byte type, long amount) {
+        if (closed) {
+            throw new IllegalStateException("Transaction journal is closed");
+        }
+        if (position == segment.capacity) {
+            roll();
+        }
+        long sequence = nextSequence++;
+        segment.write(position++, sequence, System.currentTimeMillis(), accountId, type, amount);
+        return sequence;
+    }
+
+    public synchronized long lastSequence() {
+        return nextSequence - 1;
+    }
+
+    // The current segment is always kept
+    public synchronized int deleteSegmentsBefore(long sequence) {
+        try {
+            List<Path> segments = JournalSegment.list(directory);
+            int deleted = 0;
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                if (JournalSegment.firstSequenceOf(segments.get(i + 1)) > sequence) {
+                    break;
+                }
+                Files.deleteIfExists(segments.get(i));
+                deleted++;
+            }
+            return deleted;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete transaction journal segments in " + directory, e);
+        }
+    }
+
+    public synchronized void sync() {
+        if (!closed) {
+            segment.force();
+        }
+    }
+
+    @Override
+    @PreDestroy
+    public synchronized void close() {
+        if (!closed) {
+            segment.force();
+            closed = true;
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> segments = JournalSegment.list(directory);
+        if (segments.isEmpty()) {
+            segment = JournalSegment.create(directory, 1, segmentRecords);
+            position = 0;
+            nextSequence = 1;
+            return;
+        }
+        segment = JournalSegment.openReadWrite(segments.get(segments.size() - 1));
+        position = segment.writtenRecords();
+        nextSequence = segment.firstSequence + position;
+    }
+
+    // Eight bytes of text from the offset as a big-endian long, zero padded past the end
+    private static long textChunk(byte[] text, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (i < text.length ? text[i] & 0xFF : 0);
+        }
+        return value;
+    }
+
+    private void roll() {
+        segment.force();
+        try {
+            segment = JournalSegment.create(directory, nextSequence, segmentRecords);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot roll transaction journal in " + directory, e);
+        }
+        position = 0;
+    }
+}
@@ -0,0 +1,4 @@
+package com.shahrokhi.bankingsystem.service.transactionObservation;
+
+public record AccountOpening(Long id, Long bankId, String accountNumber, String holderName, long balance) {
+}
@@ -0,0 +1,8 @@
+package com.shahrokhi.bankingsystem.service.transactionObservation;
+
+public enum FsyncPolicy {
+    NONE,
+    // At most once per configured interval
+    INTERVAL,
+    EVERY_BATCH
+}
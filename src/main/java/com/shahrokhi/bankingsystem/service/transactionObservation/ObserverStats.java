@@ -0,0 +1,8 @@
+package com.shahrokhi.bankingsystem.service.transactionObservation;
+
+import com.shahrokhi.bankingsystem.service.metrics.LatencyHistogram;
+
+public record ObserverStats(String observer, OverflowPolicy overflowPolicy, long published, long delivered,
+                            long dropped, long spilled, long failed, int queueDepth, long lag,
+                            LatencyHistogram.Snapshot deliveryLag) {
+}
@@ -0,0 +1,216 @@
+package com.shahrokhi.bankingsystem.service.transactionObservation;
+
+import com.shahrokhi.bankingsystem.service.metrics.LatencyHistogram;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Once an event has been spilled, later ones are spilled too until the file was read back, to keep the order
+@Slf4j
+final class ObserverSubscription {
+    private static final int DRAIN_BATCH = 256;
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    @Getter
+    private final TransactionObserver observer;
+    private final OverflowPolicy overflowPolicy;
+    private final BlockingQueue<TransactionEvent> queue;
+    private final Path spillPath;
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private final Thread thread;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LatencyHistogram deliveryLag = new LatencyHistogram();
+
+    private SpillFile spillFile;
+    private volatile boolean spilling;
+    private volatile boolean stopped;
+
+    ObserverSubscription(TransactionObserver observer, OverflowPolicy overflowPolicy, int capacity, Path spillPath) {
+        this.observer = observer;
+        this.overflowPolicy = overflowPolicy;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.spillPath = spillPath;
+        this.thread = new Thread(this::deliveryLoop, "observer-" + name());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    void publish(TransactionEvent event) {
+        published.increment();
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    // A subscription stopped meanwhile never empties its queue again, so do not wait on it
+                    while (!queue.offer(event, IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        if (stopped && !thread.isAlive()) {
+                            dropped.increment();
+                            return;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.increment();
+                }
+            }
+            case DROP -> {
+                if (!queue.offer(event)) {
+                    dropped.increment();
+                }
+            }
+            case SPILL -> {
+                if (spilling || !queue.offer(event)) {
+                    spill(event);
+                }
+            }
+        }
+    }
+
+    void stop(long timeoutMillis) {
+        stopped = true;
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            log.warn("Observer {} did not catch up within {} ms, {} events undelivered", name(), timeoutMillis, lag());
+        }
+    }
+
+    ObserverStats stats() {
+        return new ObserverStats(name(), overflowPolicy, published.sum(), delivered.sum(), dropped.sum(),
+                spilled.sum(), failed.sum(), queue.size(), lag(), deliveryLag.snapshot());
+    }
+
+    private long lag() {
+        return Math.max(0, published.sum() - delivered.sum() - dropped.sum() - failed.sum());
+    }
+
+    private String name() {
+        return observer.getClass().getSimpleName();
+    }
+
+    private void spill(TransactionEvent event) {
+        spillLock.lock();
+        try {
+            // Re-check under the lock, the delivery thread may have emptied the spill file meanwhile
+            if (!spilling && queue.offer(event)) {
+                return;
+            }
+            if (spillFile == null) {
+                spillFile = new SpillFile(spillPath);
+            }
+            spillFile.append(event);
+            spilling = true;
+            spilled.increment();
+        } catch (IOException e) {
+            dropped.increment();
+            log.error("Cannot spill event for observer {}, dropping it", name(), e);
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    private List<TransactionEvent> readSpilled() {
+        spillLock.lock();
+        try {
+            if (spillFile == null || spillFile.isEmpty()) {
+                spilling = false;
+                return List.of();
+            }
+            List<TransactionEvent> events = spillFile.read(DRAIN_BATCH);
+            if (spillFile.isEmpty()) {
+                spilling = false;
+            }
+            return events;
+        } catch (IOException | RuntimeException e) {
+            // Keep delivering what comes next, the events left in the file are lost
+            long lost = spillFile.unread();
+            dropped.add(lost);
+            log.error("Cannot read spill file of observer {}, dropping {} events", name(), lost, e);
+            discardSpillFile();
+            return List.of();
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    private void deliveryLoop() {
+        List<TransactionEvent> batch = new ArrayList<>(DRAIN_BATCH);
+        while (true) {
+            batch.clear();
+            queue.drainTo(batch, DRAIN_BATCH);
+            if (batch.isEmpty() && spilling) {
+                // The queue only holds events published before the spilled ones, so it is drained first
+                batch.addAll(readSpilled());
+            }
+            if (batch.isEmpty()) {
+                if (stopped && queue.isEmpty() && !spilling) {
+                    closeSpillFile();
+                    return;
+                }
+                try {
+                    TransactionEvent event = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (event != null) {
+                        deliver(event);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+            for (TransactionEvent event : batch) {
+                deliver(event);
+            }
+        }
+    }
+
+    private void deliver(TransactionEvent event) {
+        try {
+            observer.onTransaction(event.accountNumber(), event.transactionType(), event.amount());
+            delivered.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.error("Observer {} failed on a transaction of {}", name(), event.accountNumber(), e);
+        }
+        deliveryLag.record(System.nanoTime() - event.publishedAt());
+    }
+
+    private void closeSpillFile() {
+        spillLock.lock();
+        try {
+            discardSpillFile();
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    // Called under the spill lock, a later spill starts over with a new file
+    private void discardSpillFile() {
+        spilling = false;
+        if (spillFile == null) {
+            return;
+        }
+        try {
+            spillFile.close();
+        } catch (IOException e) {
+            log.warn("Cannot delete spill file {}", spillPath, e);
+        }
+        spillFile = null;
+    }
+}
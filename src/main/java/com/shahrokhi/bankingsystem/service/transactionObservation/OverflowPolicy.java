@@ -0,0 +1,10 @@
+package com.shahrokhi.bankingsystem.service.transactionObservation;
+
+// What happens to an event when an observer's queue is full
+public enum OverflowPolicy {
+    // The publishing transaction waits for room
+    BLOCK,
+    DROP,
+    // Delivered from a spill file once the queue has caught up
+    SPILL
+}
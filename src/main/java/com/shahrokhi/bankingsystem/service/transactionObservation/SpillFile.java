@@ -0,0 +1,107 @@
+package com.shahrokhi.bankingsystem.service.transactionObservation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Not thread-safe, callers synchronize
+final class SpillFile implements AutoCloseable {
+    private static final int READ_CHUNK = 1 << 16;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private long writePosition;
+    private long readPosition;
+    private long unread;
+
+    SpillFile(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    void append(TransactionEvent event) throws IOException {
+        bytes.reset();
+        out.writeInt(0);
+        out.writeLong(event.publishedAt());
+        out.writeDouble(event.amount());
+        out.writeUTF(event.accountNumber());
+        out.writeUTF(event.transactionType());
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        record.putInt(0, record.remaining() - Integer.BYTES);
+        while (record.hasRemaining()) {
+            writePosition += channel.write(record, writePosition);
+        }
+        unread++;
+    }
+
+    boolean isEmpty() {
+        return readPosition == writePosition;
+    }
+
+    long unread() {
+        return unread;
+    }
+
+    // Starts over with an empty file once everything written has been read
+    List<TransactionEvent> read(int max) throws IOException {
+        List<TransactionEvent> events = new ArrayList<>();
+        ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(READ_CHUNK, writePosition - readPosition));
+        while (events.size() < max && readPosition < writePosition) {
+            chunk.clear();
+            chunk.limit((int) Math.min(chunk.capacity(), writePosition - readPosition));
+            channel.read(chunk, readPosition);
+            chunk.flip();
+            int consumed = 0;
+            while (events.size() < max && chunk.remaining() >= Integer.BYTES) {
+                int length = chunk.getInt(chunk.position());
+                if (chunk.remaining() < Integer.BYTES + length) {
+                    break;
+                }
+                byte[] record = new byte[length];
+                chunk.position(chunk.position() + Integer.BYTES);
+                chunk.get(record);
+                events.add(decode(record));
+                consumed += Integer.BYTES + length;
+            }
+            if (consumed == 0) {
+                // A record larger than the chunk, read it on its own
+                chunk = ByteBuffer.allocate(Integer.BYTES + chunk.getInt(0));
+                continue;
+            }
+            readPosition += consumed;
+        }
+        unread -= events.size();
+        if (isEmpty()) {
+            channel.truncate(0);
+            readPosition = 0;
+            writePosition = 0;
+        }
+        return events;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    private static TransactionEvent decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        long publishedAt = in.readLong();
+        double amount = in.readDouble();
+        return new TransactionEvent(in.readUTF(), in.readUTF(), amount, publishedAt);
+    }
+}
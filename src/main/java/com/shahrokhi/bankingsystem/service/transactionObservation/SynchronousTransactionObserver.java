@@ -0,0 +1,10 @@
+package com.shahrokhi.bankingsystem.service.transactionObservation;
+
+// Called on the publishing thread instead of through a queue, only these observers see new banks and accounts
+public interface SynchronousTransactionObserver extends TransactionObserver {
+    default void onBankCreated(long bankId) {
+    }
+
+    default void onAccountOpened(AccountOpening opening) {
+    }
+}
@@ -0,0 +1,5 @@
+package com.shahrokhi.bankingsystem.service.transactionObservation;
+
+// publishedAt is a System.nanoTime() reading, for the delivery lag
+record TransactionEvent(String accountNumber, String transactionType, double amount, long publishedAt) {
+}
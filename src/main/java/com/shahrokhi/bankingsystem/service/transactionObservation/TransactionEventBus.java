@@ -0,0 +1,152 @@
+package com.shahrokhi.bankingsystem.service.transactionObservation;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Every asynchronous observer has its own queue and delivery thread, so a slow observer only delays itself
+@Slf4j
+@Component
+public class TransactionEventBus {
+    public static final int DEFAULT_QUEUE_CAPACITY = 8192;
+    private static final long STOP_TIMEOUT_MILLIS = 5_000;
+
+    private final int queueCapacity;
+    private final OverflowPolicy defaultOverflowPolicy;
+    private final Path spillDirectory;
+    private final List<TransactionObserver> synchronousObservers = new CopyOnWriteArrayList<>();
+    private final List<ObserverSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicInteger spillFiles = new AtomicInteger();
+    private final AtomicLong publishedAfterClose = new AtomicLong();
+    private final LongAdder synchronousFailures = new LongAdder();
+    private volatile boolean closed;
+
+    public TransactionEventBus() {
+        this(DEFAULT_QUEUE_CAPACITY, OverflowPolicy.BLOCK, Path.of("observer-spill"));
+    }
+
+    @Autowired
+    public TransactionEventBus(@Value("${bank.observers.queue-capacity:" + DEFAULT_QUEUE_CAPACITY + "}") int queueCapacity,
+                               @Value("${bank.observers.overflow-policy:BLOCK}") OverflowPolicy defaultOverflowPolicy,
+                               @Value("${bank.observers.spill-directory:observer-spill}") Path spillDirectory) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Observer queue capacity must be positive: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+        this.defaultOverflowPolicy = defaultOverflowPolicy;
+        this.spillDirectory = spillDirectory;
+    }
+
+    public void subscribe(TransactionObserver observer) {
+        subscribe(observer, defaultOverflowPolicy);
+    }
+
+    public synchronized void subscribe(TransactionObserver observer, OverflowPolicy overflowPolicy) {
+        if (isSubscribed(observer)) {
+            return;
+        }
+        if (observer instanceof SynchronousTransactionObserver) {
+            synchronousObservers.add(observer);
+            return;
+        }
+        Path spillPath = spillDirectory.resolve(String.format("%s-%d.spill",
+                observer.getClass().getSimpleName(), spillFiles.incrementAndGet()));
+        subscriptions.add(new ObserverSubscription(observer, overflowPolicy, queueCapacity, spillPath));
+    }
+
+    public synchronized void unsubscribe(TransactionObserver observer) {
+        synchronousObservers.remove(observer);
+        for (ObserverSubscription subscription : subscriptions) {
+            if (subscription.getObserver() == observer) {
+                subscriptions.remove(subscription);
+                subscription.stop(STOP_TIMEOUT_MILLIS);
+            }
+        }
+    }
+
+    public boolean isSubscribed(TransactionObserver observer) {
+        return synchronousObservers.contains(observer)
+                || subscriptions.stream().anyMatch(subscription -> subscription.getObserver() == observer);
+    }
+
+    // Never throws, the transaction has already been applied when it is published
+    public void publish(String accountNumber, String transactionType, double amount) {
+        if (closed) {
+            if (publishedAfterClose.incrementAndGet() == 1) {
+                log.warn("Transaction event bus is closed, dropping the events of {} and later transactions",
+                        accountNumber);
+            }
+            return;
+        }
+        for (TransactionObserver observer : synchronousObservers) {
+            try {
+                observer.onTransaction(accountNumber, transactionType, amount);
+            } catch (RuntimeException e) {
+                synchronousFailed(observer, accountNumber, e);
+            }
+        }
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        TransactionEvent event = new TransactionEvent(accountNumber, transactionType, amount, System.nanoTime());
+        for (ObserverSubscription subscription : subscriptions) {
+            subscription.publish(event);
+        }
+    }
+
+    public void publishBankCreated(long bankId) {
+        for (TransactionObserver observer : synchronousObservers) {
+            try {
+                ((SynchronousTransactionObserver) observer).onBankCreated(bankId);
+            } catch (RuntimeException e) {
+                synchronousFailed(observer, "bank " + bankId, e);
+            }
+        }
+    }
+
+    public void publishAccountOpened(AccountOpening opening) {
+        for (TransactionObserver observer : synchronousObservers) {
+            try {
+                ((SynchronousTransactionObserver) observer).onAccountOpened(opening);
+            } catch (RuntimeException e) {
+                synchronousFailed(observer, opening.accountNumber(), e);
+            }
+        }
+    }
+
+    public long getPublishedAfterClose() {
+        return publishedAfterClose.get();
+    }
+
+    public long getSynchronousFailures() {
+        return synchronousFailures.sum();
+    }
+
+    public List<ObserverStats> getStats() {
+        return subscriptions.stream().map(ObserverSubscription::stats).toList();
+    }
+
+    private void synchronousFailed(TransactionObserver observer, String subject, RuntimeException e) {
+        synchronousFailures.increment();
+        log.error("Observer {} failed on {}", observer.getClass().getSimpleName(), subject, e);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        closed = true;
+        for (ObserverSubscription subscription : subscriptions) {
+            subscription.stop(STOP_TIMEOUT_MILLIS);
+        }
+        subscriptions.clear();
+        synchronousObservers.clear();
+    }
+}
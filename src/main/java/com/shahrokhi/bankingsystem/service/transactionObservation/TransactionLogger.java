@@ -1,23 +1,261 @@
 package com.shahrokhi.bankingsystem.service.transactionObservation;
 
-import java.io.FileWriter;
+import jakarta.annotation.PreDestroy;
+import com.shahrokhi.bankingsystem.model.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-public class TransactionLogger implements TransactionObserver {
+// Producers only enqueue, a background writer drains whatever is waiting and writes it as one batch
+@Slf4j
+@Component
+public class TransactionLogger implements TransactionObserver, AutoCloseable {
     private static final String LOG_FILE_PATH = "transactions_log.txt";
+    private static final int DEFAULT_BUFFER_CAPACITY = 8192;
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final BlockingQueue<LogRecord> buffer;
+    private final FileChannel channel;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final Thread writer;
+    private final List<LogRecord> batch = new ArrayList<>();
+    private final StringBuilder text = new StringBuilder();
+
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private long lastFsync = System.nanoTime();
+    private boolean unsynced;
+    // Failed write since the last flush that succeeded, the next flush reports it
+    private IOException unwritten;
+
+    public TransactionLogger() {
+        this(Path.of(LOG_FILE_PATH), DEFAULT_BUFFER_CAPACITY, FsyncPolicy.NONE, 0);
+    }
+
+    @Autowired
+    public TransactionLogger(@Value("${bank.logger.path:" + LOG_FILE_PATH + "}") Path path,
+                             @Value("${bank.logger.buffer-capacity:" + DEFAULT_BUFFER_CAPACITY + "}") int bufferCapacity,
+                             @Value("${bank.logger.fsync-policy:NONE}") FsyncPolicy fsyncPolicy,
+                             @Value("${bank.logger.fsync-interval-ms:0}") long fsyncIntervalMillis) {
+        this(open(path), bufferCapacity, fsyncPolicy, fsyncIntervalMillis);
+    }
+
+    TransactionLogger(FileChannel channel, int bufferCapacity, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) {
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+        this.channel = channel;
+        this.writer = new Thread(this::drainLoop, "transaction-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
 
     @Override
     public void onTransaction(String accountNumber, String transactionType, double amount) {
-        String logMessage = String.format("Account: %s, Type: %s, Amount: %.2f",
-                accountNumber, transactionType, amount);
-        appendToFile(logMessage);
+        enqueue(new LogRecord(accountNumber, transactionType, Money.toMinorUnits(amount), null));
+    }
+
+    public void flush() {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        enqueue(new LogRecord(null, null, 0, written));
+        try {
+            while (true) {
+                try {
+                    written.get(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (TimeoutException e) {
+                    checkWriter();
+                }
+            }
+        } catch (ExecutionException e) {
+            throw (UncheckedIOException) e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted before the transaction log was flushed", e);
+        }
     }
 
-    private synchronized void appendToFile(String logMessage) {
-        try (FileWriter writer = new FileWriter(LOG_FILE_PATH, true)) {
-            writer.write(logMessage + "\n");
+    @Override
+    @PreDestroy
+    public void close() {
+        if (closed) {
+            return;
+        }
+        try {
+            if (writer.isAlive()) {
+                flush();
+            }
+        } finally {
+            closed = true;
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.error("Failed to close transaction log", e);
+            }
+        }
+    }
+
+    private void enqueue(LogRecord record) {
+        if (closed) {
+            throw new IllegalStateException("Transaction logger is closed");
+        }
+        try {
+            while (!buffer.offer(record, IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkWriter();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted before the transaction was logged", e);
+        }
+    }
+
+    private static FileChannel open(Path path) {
+        try {
+            return FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new UncheckedIOException("Cannot open transaction log " + path, e);
+        }
+    }
+
+    private void checkWriter() {
+        if (!writer.isAlive()) {
+            throw new IllegalStateException("Transaction log writer has stopped", failure);
         }
     }
+
+    private void drainLoop() {
+        try {
+            drain();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            log.error("Transaction log writer stopped", e);
+        }
+    }
+
+    private void drain() {
+        while (!closed || !buffer.isEmpty()) {
+            try {
+                LogRecord first = buffer.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    buffer.drainTo(batch);
+                    writeBatch();
+                }
+                if (fsyncPolicy == FsyncPolicy.INTERVAL && unsynced
+                        && System.nanoTime() - lastFsync >= fsyncIntervalNanos) {
+                    fsync();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                failed(e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch() throws IOException {
+        text.setLength(0);
+        boolean flushRequested = false;
+        for (LogRecord record : batch) {
+            if (record.flushed() != null) {
+                flushRequested = true;
+                continue;
+            }
+            text.append("Account: ").append(record.accountNumber())
+                    .append(", Type: ").append(record.transactionType())
+                    .append(", Amount: ");
+            appendAmount(record.minorUnits());
+            text.append('\n');
+        }
+
+        boolean written = false;
+        try {
+            if (text.length() > 0) {
+                ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                unsynced = true;
+            }
+            if (flushRequested || fsyncPolicy == FsyncPolicy.EVERY_BATCH) {
+                fsync();
+            }
+            written = true;
+        } catch (IOException e) {
+            failed(e);
+        }
+        if (!flushRequested) {
+            return;
+        }
+        IOException lost = unwritten;
+        for (LogRecord record : batch) {
+            if (record.flushed() == null) {
+                continue;
+            }
+            if (lost == null) {
+                record.flushed().complete(null);
+            } else {
+                record.flushed().completeExceptionally(
+                        new UncheckedIOException("Transaction log records were not written", lost));
+            }
+        }
+        // Records after the flush in a failed batch are lost too, so a failure stays for the next flush
+        if (written) {
+            unwritten = null;
+        }
+    }
+
+    private void failed(IOException e) {
+        failure = e;
+        unwritten = e;
+        log.error("Failed to write transaction log", e);
+    }
+
+    private void appendAmount(long minorUnits) {
+        if (minorUnits < 0) {
+            text.append('-');
+        }
+        long units = Math.abs(minorUnits);
+        long cents = units % Money.MINOR_UNITS_PER_MAJOR;
+        text.append(units / Money.MINOR_UNITS_PER_MAJOR).append('.').append(cents < 10 ? "0" : "").append(cents);
+    }
+
+    private void fsync() throws IOException {
+        if (unsynced) {
+            channel.force(false);
+            unsynced = false;
+        }
+        lastFsync = System.nanoTime();
+    }
+
+    private record LogRecord(String accountNumber, String transactionType, long minorUnits,
+                             CompletableFuture<Void> flushed) {
+    }
 }
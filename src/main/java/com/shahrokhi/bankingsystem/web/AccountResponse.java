@@ -0,0 +1,11 @@
+package com.shahrokhi.bankingsystem.web;
+
+import com.shahrokhi.bankingsystem.model.Account;
+
+public record AccountResponse(Long bankId, String accountNumber, String holderName, double balance) {
+
+    static AccountResponse of(Account account) {
+        return new AccountResponse(account.getBankId(), account.getAccountNumber(), account.getHolderName(),
+                account.getBalance());
+    }
+}
@@ -0,0 +1,108 @@
+package com.shahrokhi.bankingsystem.web;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.Money;
+import com.shahrokhi.bankingsystem.service.AccountService;
+import com.shahrokhi.bankingsystem.service.BankService;
+import com.shahrokhi.bankingsystem.service.accountImport.AccountImporter;
+import com.shahrokhi.bankingsystem.service.accountImport.ImportResult;
+import com.shahrokhi.bankingsystem.service.accountImport.NewAccount;
+import com.shahrokhi.bankingsystem.service.aggregates.BankSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.Reader;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+public class BankController {
+
+    private final BankService bankService;
+    private final AccountService accountService;
+    private final AccountImporter accountImporter;
+
+    @Autowired
+    public BankController(BankService bankService, AccountService accountService, AccountImporter accountImporter) {
+        this.bankService = bankService;
+        this.accountService = accountService;
+        this.accountImporter = accountImporter;
+    }
+
+    @PostMapping("/banks")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Map<String, Long> createBank() {
+        return Map.of("id", bankService.createBank().getId());
+    }
+
+    @PostMapping("/banks/{bankId}/accounts")
+    @ResponseStatus(HttpStatus.CREATED)
+    public AccountResponse createAccount(@PathVariable Long bankId, @RequestBody CreateAccountRequest request) {
+        if (!Money.isOpeningBalance(request.initialBalance())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Initial balance must be between 0 and "
+                    + Money.toDecimal(Money.MAX_AMOUNT_MINOR_UNITS).toPlainString() + ": " + request.initialBalance());
+        }
+        Account account = bankService.addAccount(bankId, request.holderName(), request.initialBalance());
+        if (account == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Bank with ID " + bankId + " not found");
+        }
+        return AccountResponse.of(account);
+    }
+
+    @PostMapping("/banks/{bankId}/accounts/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ImportResult createAccounts(@PathVariable Long bankId, @RequestBody List<CreateAccountRequest> requests) {
+        List<NewAccount> accounts = requests.stream()
+                .map(request -> new NewAccount(request.holderName(), request.initialBalance()))
+                .toList();
+        return accountImporter.importAccounts(bankId, accounts).orElseThrow(() -> bankNotFound(bankId));
+    }
+
+    @PostMapping(path = "/banks/{bankId}/accounts/import", consumes = "text/csv")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ImportResult importAccounts(@PathVariable Long bankId, Reader csv) {
+        return accountImporter.importCsv(bankId, csv).orElseThrow(() -> bankNotFound(bankId));
+    }
+
+    @GetMapping("/banks/{bankId}/accounts/count")
+    public Map<String, Integer> countAccounts(@PathVariable Long bankId) {
+        Integer count = bankService.countAccounts(bankId);
+        if (count == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Bank with ID " + bankId + " not found");
+        }
+        return Map.of("count", count);
+    }
+
+    @GetMapping("/banks/{bankId}/aggregates")
+    public BankSummary aggregates(@PathVariable Long bankId,
+                                  @RequestParam(required = false)
+                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant since) {
+        Instant from = since != null ? since : LocalDate.now(ZoneOffset.UTC).atStartOfDay().toInstant(ZoneOffset.UTC);
+        return bankService.summarize(bankId, from)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Bank with ID " + bankId + " not found"));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private static ResponseStatusException bankNotFound(Long bankId) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Bank with ID " + bankId + " not found");
+    }
+
+    @GetMapping("/accounts/{accountNumber}")
+    public AccountResponse getAccount(@PathVariable String accountNumber) {
+        return accountService.findByAccountNumber(accountNumber)
+                .map(AccountResponse::of)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found"));
+    }
+}
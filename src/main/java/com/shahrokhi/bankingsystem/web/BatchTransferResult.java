@@ -0,0 +1,4 @@
+package com.shahrokhi.bankingsystem.web;
+
+public record BatchTransferResult(int index, boolean success, String error, Double fromBalance, Double toBalance) {
+}
@@ -0,0 +1,61 @@
+package com.shahrokhi.bankingsystem.web;
+
+import com.shahrokhi.bankingsystem.service.admission.AdmissionControl;
+import com.shahrokhi.bankingsystem.service.metrics.TransactionMetrics;
+import com.shahrokhi.bankingsystem.service.offHeap.OffHeapAccountStore;
+import com.shahrokhi.bankingsystem.service.persistence.OptimisticAccountStore;
+import com.shahrokhi.bankingsystem.service.transactionObservation.ObserverStats;
+import com.shahrokhi.bankingsystem.service.transactionObservation.TransactionEventBus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/metrics")
+public class MetricsController {
+
+    private final TransactionMetrics transactionMetrics;
+    private final TransactionEventBus transactionEventBus;
+    private final OptimisticAccountStore optimisticAccountStore;
+    private final AdmissionControl admissionControl;
+    private final OffHeapAccountStore offHeapAccountStore;
+
+    @Autowired
+    public MetricsController(TransactionMetrics transactionMetrics, TransactionEventBus transactionEventBus,
+                             OptimisticAccountStore optimisticAccountStore, AdmissionControl admissionControl,
+                             OffHeapAccountStore offHeapAccountStore) {
+        this.transactionMetrics = transactionMetrics;
+        this.transactionEventBus = transactionEventBus;
+        this.optimisticAccountStore = optimisticAccountStore;
+        this.admissionControl = admissionControl;
+        this.offHeapAccountStore = offHeapAccountStore;
+    }
+
+    @GetMapping("/transactions")
+    public TransactionMetrics.Snapshot transactions() {
+        return transactionMetrics.snapshot();
+    }
+
+    @GetMapping("/observers")
+    public List<ObserverStats> observers() {
+        return transactionEventBus.getStats();
+    }
+
+    @GetMapping("/optimistic")
+    public OptimisticAccountStore.OptimisticStats optimistic() {
+        return optimisticAccountStore.getStats();
+    }
+
+    @GetMapping("/admission")
+    public AdmissionControl.AdmissionStats admission() {
+        return admissionControl.getStats();
+    }
+
+    @GetMapping("/off-heap")
+    public OffHeapAccountStore.OffHeapStats offHeap() {
+        return offHeapAccountStore.getStats();
+    }
+}
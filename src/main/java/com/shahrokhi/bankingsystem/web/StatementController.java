@@ -0,0 +1,65 @@
+package com.shahrokhi.bankingsystem.web;
+
+import com.shahrokhi.bankingsystem.service.AccountService;
+import com.shahrokhi.bankingsystem.service.transactionHistory.StatementPage;
+import com.shahrokhi.bankingsystem.service.transactionHistory.StatementService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/accounts/{accountNumber}")
+public class StatementController {
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private final StatementService statementService;
+    private final AccountService accountService;
+
+    @Autowired
+    public StatementController(StatementService statementService, AccountService accountService) {
+        this.statementService = statementService;
+        this.accountService = accountService;
+    }
+
+    @GetMapping("/statement")
+    public StatementPage statement(@PathVariable String accountNumber,
+                                   @RequestParam(defaultValue = "0") long after,
+                                   @RequestParam(defaultValue = "100") int limit) {
+        requireAccount(accountNumber);
+        if (limit <= 0 || limit > StatementService.MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Limit must be between 1 and " + StatementService.MAX_PAGE_SIZE);
+        }
+        return statementService.page(accountNumber, after, limit);
+    }
+
+    @GetMapping("/statement.csv")
+    public ResponseEntity<StreamingResponseBody> exportStatement(@PathVariable String accountNumber) {
+        requireAccount(accountNumber);
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            statementService.exportCsv(accountNumber, writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + accountNumber + ".csv\"")
+                .body(body);
+    }
+
+    private void requireAccount(String accountNumber) {
+        if (accountService.findByAccountNumber(accountNumber).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account " + accountNumber + " not found");
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.shahrokhi.bankingsystem.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.Money;
+import com.shahrokhi.bankingsystem.service.AccountService;
+import com.shahrokhi.bankingsystem.service.BankService;
+import com.shahrokhi.bankingsystem.service.TransactionResult;
+import com.shahrokhi.bankingsystem.service.TransferResult;
+import com.shahrokhi.bankingsystem.service.admission.RejectionReason;
+import com.shahrokhi.bankingsystem.service.admission.TransactionRejectedException;
+import com.shahrokhi.bankingsystem.service.netting.TransferInstruction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@RestController
+public class TransactionController {
+    // Flush the stream every so many results, so clients see progress without a syscall per line
+    private static final int FLUSH_EVERY = 256;
+
+    private final BankService bankService;
+    private final AccountService accountService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public TransactionController(BankService bankService, AccountService accountService, ObjectMapper objectMapper) {
+        this.bankService = bankService;
+        this.accountService = accountService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping("/accounts/{accountNumber}/deposit")
+    public CompletableFuture<TransactionResult> deposit(@PathVariable String accountNumber,
+                                                        @RequestBody AmountRequest request) {
+        validateAmount(request.amount());
+        return bankService.submitDeposit(findAccount(accountNumber), request.amount());
+    }
+
+    @PostMapping("/accounts/{accountNumber}/withdraw")
+    public CompletableFuture<TransactionResult> withdraw(@PathVariable String accountNumber,
+                                                         @RequestBody AmountRequest request) {
+        validateAmount(request.amount());
+        return bankService.submitWithdraw(findAccount(accountNumber), request.amount());
+    }
+
+    @PostMapping("/transfers")
+    public CompletableFuture<TransferResult> transfer(@RequestBody TransferRequest request) {
+        validateAmount(request.amount());
+        return bankService.submitTransfer(findAccount(request.fromAccountNumber()),
+                findAccount(request.toAccountNumber()), request.amount());
+    }
+
+    // Streams one JSON line per transfer in request order, as soon as it and all before it have completed
+    @PostMapping(value = "/transfers/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> transferBatch(@RequestBody List<TransferRequest> requests,
+                                                               @RequestParam(defaultValue = "false") boolean netting) {
+        List<CompletableFuture<BatchTransferResult>> results = new ArrayList<>(requests.size());
+        List<TransferInstruction> instructions = new ArrayList<>();
+        List<Integer> instructionIndexes = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            if (!Money.isTransactionAmount(request.amount())) {
+                results.add(failed(i, "INVALID_AMOUNT"));
+                continue;
+            }
+            Account from = accountService.findAccount(request.fromAccountNumber());
+            Account to = accountService.findAccount(request.toAccountNumber());
+            if (from == null || to == null) {
+                results.add(failed(i, "ACCOUNT_NOT_FOUND"));
+                continue;
+            }
+            TransferInstruction instruction = new TransferInstruction(from, to, request.amount());
+            if (netting) {
+                // Completed below, once the whole batch has been collected
+                results.add(null);
+                instructions.add(instruction);
+                instructionIndexes.add(i);
+            } else {
+                results.add(toBatchResult(i, bankService.submitTransfer(
+                        instruction.fromAccount(), instruction.toAccount(), instruction.amount())));
+            }
+        }
+        if (!instructions.isEmpty()) {
+            CompletableFuture<List<TransferResult>> settlement = bankService.submitNetted(instructions);
+            for (int k = 0; k < instructions.size(); k++) {
+                int position = k;
+                int index = instructionIndexes.get(k);
+                results.set(index, toBatchResult(index, settlement.thenApply(settled -> settled.get(position))));
+            }
+        }
+
+        StreamingResponseBody body = (OutputStream out) -> {
+            for (int i = 0; i < results.size(); i++) {
+                objectMapper.writeValue(new NonClosingOutputStream(out), results.get(i).join());
+                out.write('\n');
+                if ((i + 1) % FLUSH_EVERY == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> conflict(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(TransactionRejectedException.class)
+    public ResponseEntity<String> rejected(TransactionRejectedException e) {
+        HttpStatus status = e.getReason() == RejectionReason.OVERLOADED
+                ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.TOO_MANY_REQUESTS;
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(e.getMessage());
+    }
+
+    private static CompletableFuture<BatchTransferResult> failed(int index, String error) {
+        return CompletableFuture.completedFuture(new BatchTransferResult(index, false, error, null, null));
+    }
+
+    private static CompletableFuture<BatchTransferResult> toBatchResult(int index,
+                                                                        CompletableFuture<TransferResult> transfer) {
+        return transfer.handle((result, failure) -> {
+            if (failure != null) {
+                Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                String error = cause instanceof TransactionRejectedException rejection
+                        ? rejection.getReason().name() : cause.getClass().getSimpleName();
+                return new BatchTransferResult(index, false, error, null, null);
+            }
+            return new BatchTransferResult(index, result.success(),
+                    result.success() ? null : "INSUFFICIENT_BALANCE",
+                    result.fromBalance(), result.toBalance());
+        });
+    }
+
+    private Account findAccount(String accountNumber) {
+        Account account = accountService.findAccount(accountNumber);
+        if (account == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account " + accountNumber + " not found");
+        }
+        return account;
+    }
+
+    private static void validateAmount(double amount) {
+        if (!Money.isTransactionAmount(amount)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amount must be between 0.01 and "
+                    + Money.toDecimal(Money.MAX_AMOUNT_MINOR_UNITS).toPlainString() + ": " + amount);
+        }
+    }
+
+    // Jackson closes the target stream after writing a value, the response stream has to stay open
+    private static final class NonClosingOutputStream extends java.io.FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws java.io.IOException {
+            out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() throws java.io.IOException {
+            flush();
+        }
+    }
+}
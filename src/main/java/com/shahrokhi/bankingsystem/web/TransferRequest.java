@@ -0,0 +1,4 @@
+package com.shahrokhi.bankingsystem.web;
+
+public record TransferRequest(String fromAccountNumber, String toAccountNumber, double amount) {
+}
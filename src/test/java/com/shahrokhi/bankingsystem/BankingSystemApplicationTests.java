@@ -3,7 +3,7 @@ package com.shahrokhi.bankingsystem;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "bank.console.enabled=false")
 class BankingSystemApplicationTests {
 
 	@Test
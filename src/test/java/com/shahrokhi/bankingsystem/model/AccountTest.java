@@ -0,0 +1,121 @@
+package com.shahrokhi.bankingsystem.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountTest {
+
+    @Test
+    public void testBalanceHasNoFloatingPointDrift() {
+        Account account = new Account(new Bank(), "Mohammad", 0.0);
+        for (int i = 0; i < 1000; i++) {
+            account.deposit(0.1);
+        }
+
+        assertEquals(10_000, account.getBalanceMinorUnits());
+        assertEquals(100.0, account.getBalance());
+    }
+
+    @Test
+    public void testWithdrawWithInsufficientBalance() {
+        Account account = new Account(new Bank(), "Mohammad", 50.0);
+
+        assertFalse(account.withdraw(50.01));
+        assertTrue(account.withdraw(50.0));
+        assertEquals(0, account.getBalanceMinorUnits());
+    }
+
+    @Test
+    public void testConcurrentWithdrawalsNeverOverdraw() throws Exception {
+        Account account = new Account(new Bank(), "Mohammad", 1000.0);
+        AtomicInteger successes = new AtomicInteger();
+        int threads = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        if (account.withdraw(1.0)) {
+                            successes.incrementAndGet();
+                        }
+                        account.deposit(0.25);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long expected = Money.toMinorUnits(1000.0) - successes.get() * 100L + threads * 500 * 25L;
+        assertEquals(expected, account.getBalanceMinorUnits());
+        assertTrue(account.getBalanceMinorUnits() >= 0);
+    }
+
+    @Test
+    public void testStripedWithdrawalDrawsOnDeposits() {
+        Account account = new Account(new Bank(), "Merchant", 10.0);
+        account.enableStriping();
+        account.deposit(5.0);
+        account.deposit(5.0);
+
+        assertEquals(20.0, account.getBalance());
+        assertFalse(account.withdraw(20.01));
+        assertTrue(account.withdraw(15.0));
+        assertEquals(5.0, account.getBalance());
+        account.refresh(700, 1);
+        assertEquals(700, account.getBalanceMinorUnits());
+    }
+
+    @Test
+    public void testStripedAccountUnderConcurrentDepositsAndWithdrawals() throws Exception {
+        Account account = new Account(new Bank(), "Merchant", 0.0);
+        account.enableStriping();
+        AtomicInteger successes = new AtomicInteger();
+        int threads = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                boolean depositor = t % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        if (depositor) {
+                            account.deposit(1.0);
+                        } else if (account.withdraw(1.5)) {
+                            successes.incrementAndGet();
+                        }
+                        assertTrue(account.getBalanceMinorUnits() >= 0);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long deposited = threads / 2 * 5_000 * 100L;
+        assertEquals(deposited - successes.get() * 150L, account.getBalanceMinorUnits());
+        // Once deposits stop, withdrawals are only refused when less than the amount is left
+        while (account.withdraw(1.5)) {
+            successes.incrementAndGet();
+        }
+        assertTrue(account.getBalanceMinorUnits() < 150);
+    }
+}
@@ -0,0 +1,125 @@
+package com.shahrokhi.bankingsystem.service;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.AccountNumbers;
+import com.shahrokhi.bankingsystem.repository.AccountRepository;
+import com.shahrokhi.bankingsystem.repository.NumberBlockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class AccountNumberGeneratorTest {
+
+    @Autowired
+    private NumberBlockRepository numberBlockRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        numberBlockRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    public void testNumbersAreHandedOutFromBlocks() {
+        AccountNumberGenerator generator = new AccountNumberGenerator(numberBlockRepository, accountRepository, transactionManager, 10);
+
+        assertEquals("Account-000001", generator.next());
+        for (int i = 2; i <= 25; i++) {
+            assertEquals(AccountNumbers.format(i), generator.next());
+        }
+        // Three blocks of ten reserved so far
+        assertEquals(31, numberBlockRepository.findById(AccountNumberGenerator.SEQUENCE_NAME)
+                .orElseThrow().getNextValue());
+    }
+
+    @Test
+    public void testNewSequenceStartsAfterExistingAccounts() {
+        // Rows numbered before the sequence existed, the longest number is the highest
+        accountRepository.saveAll(List.of(new Account(AccountNumbers.format(999_999), "Legacy", 0.0),
+                new Account(AccountNumbers.format(1_000_041), "Legacy", 0.0),
+                new Account(AccountNumbers.format(7), "Legacy", 0.0)));
+
+        AccountNumberGenerator generator =
+                new AccountNumberGenerator(numberBlockRepository, accountRepository, transactionManager, 10);
+
+        assertEquals(AccountNumbers.format(1_000_042), generator.next());
+    }
+
+    @Test
+    public void testNewSequenceSkipsAccountNumbersNotInGeneratedFormat() {
+        // Longer than any generated number, so they sort first
+        accountRepository.saveAll(List.of(new Account("Account-legacy-12", "Legacy", 0.0),
+                new Account("Account-99999999999999999999", "Legacy", 0.0),
+                new Account(AccountNumbers.format(41), "Legacy", 0.0)));
+
+        AccountNumberGenerator generator =
+                new AccountNumberGenerator(numberBlockRepository, accountRepository, transactionManager, 10);
+
+        assertEquals(AccountNumbers.format(42), generator.next());
+    }
+
+    @Test
+    public void testRestartContinuesAfterReservedBlocks() {
+        AccountNumberGenerator before = new AccountNumberGenerator(numberBlockRepository, accountRepository, transactionManager, 10);
+        before.next();
+        before.next();
+
+        AccountNumberGenerator after = new AccountNumberGenerator(numberBlockRepository, accountRepository, transactionManager, 10);
+        assertEquals("Account-000011", after.next());
+    }
+
+    @Test
+    public void testInstancesSharingDatabaseNeverCollide() throws Exception {
+        int instances = 4;
+        int numbersPerInstance = 500;
+        List<AccountNumberGenerator> generators = new ArrayList<>();
+        for (int i = 0; i < instances; i++) {
+            generators.add(new AccountNumberGenerator(numberBlockRepository, accountRepository, transactionManager, 7));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(instances);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (AccountNumberGenerator generator : generators) {
+                futures.add(executor.submit(() -> {
+                    List<String> numbers = new ArrayList<>();
+                    for (int i = 0; i < numbersPerInstance; i++) {
+                        numbers.add(generator.next());
+                    }
+                    return numbers;
+                }));
+            }
+
+            Set<String> unique = new HashSet<>();
+            for (Future<List<String>> future : futures) {
+                unique.addAll(future.get(30, TimeUnit.SECONDS));
+            }
+            assertEquals(instances * numbersPerInstance, unique.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
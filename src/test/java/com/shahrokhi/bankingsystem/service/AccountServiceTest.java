@@ -1,26 +1,51 @@
 package com.shahrokhi.bankingsystem.service;
 
 import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.Bank;
 import com.shahrokhi.bankingsystem.repository.AccountRepository;
+import com.shahrokhi.bankingsystem.service.cache.AccountCache;
+import com.shahrokhi.bankingsystem.service.concurrency.HotAccounts;
+import com.shahrokhi.bankingsystem.service.offHeap.OffHeapAccountStore;
+import com.shahrokhi.bankingsystem.service.persistence.AccountWriteBehind;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class AccountServiceTest {
+    private static final String HOT_ACCOUNT_NUMBER = "Merchant-000001";
 
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private AccountWriteBehind accountWriteBehind;
+
+    @Spy
+    private AccountCache accountCache = new AccountCache();
+
+    @Spy
+    private HotAccounts hotAccounts = new HotAccounts(true, new String[]{HOT_ACCOUNT_NUMBER});
+
+    @Spy
+    private OffHeapAccountStore offHeapAccountStore = new OffHeapAccountStore(true, 1_000);
+
     @InjectMocks
     private AccountService accountService;
 
@@ -48,4 +73,99 @@ public class AccountServiceTest {
         assertSame(mockAccount, result);
         verify(accountRepository).save(mockAccount);
     }
+
+    @Test
+    public void testSaveBalanceWithWriteBehind() {
+        Account mockAccount = new Account();
+        ReflectionTestUtils.setField(mockAccount, "id", 1L);
+
+        when(accountWriteBehind.isEnabled()).thenReturn(true);
+        Account result = accountService.saveBalance(mockAccount);
+
+        assertSame(mockAccount, result);
+        verify(accountWriteBehind).markDirty(mockAccount);
+        verify(accountRepository, never()).save(mockAccount);
+    }
+
+    @Test
+    public void testSaveBalanceWithoutWriteBehind() {
+        Account mockAccount = new Account();
+        ReflectionTestUtils.setField(mockAccount, "id", 1L);
+
+        when(accountWriteBehind.isEnabled()).thenReturn(false);
+        when(accountRepository.save(mockAccount)).thenReturn(mockAccount);
+        accountService.saveBalance(mockAccount);
+
+        verify(accountRepository).save(mockAccount);
+        verify(accountWriteBehind, never()).markDirty(mockAccount);
+    }
+
+    @Test
+    public void testFindByAccountNumberIsServedFromCache() {
+        Account mockAccount = new Account(new Bank(), "Mohammad", 100.0);
+        String accountNumber = mockAccount.getAccountNumber();
+
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Optional.of(mockAccount));
+        Account first = accountService.findByAccountNumber(accountNumber).orElseThrow();
+        Account second = accountService.findByAccountNumber(accountNumber).orElseThrow();
+
+        assertSame(first, second);
+        verify(accountRepository, times(1)).findByAccountNumber(accountNumber);
+        assertEquals(1, accountService.getCacheStats().hits());
+        assertEquals(1, accountService.getCacheStats().misses());
+    }
+
+    @Test
+    public void testSavingAnotherInstanceReplacesCachedOne() {
+        Account cachedAccount = new Account(new Bank(), "Mohammad", 100.0);
+        String accountNumber = cachedAccount.getAccountNumber();
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Optional.of(cachedAccount));
+        accountService.findByAccountNumber(accountNumber);
+
+        Account copy = new Account();
+        ReflectionTestUtils.setField(copy, "accountNumber", accountNumber);
+        accountService.save(copy);
+
+        assertSame(copy, accountService.findByAccountNumber(accountNumber).orElseThrow());
+        verify(accountRepository, times(1)).findByAccountNumber(accountNumber);
+    }
+
+    @Test
+    public void testHotAccountIsStripedAndWrittenBehind() {
+        Account hotAccount = new Account(HOT_ACCOUNT_NUMBER, "Merchant", 100.0);
+        ReflectionTestUtils.setField(hotAccount, "id", 1L);
+        Account otherAccount = new Account(new Bank(), "Mohammad", 100.0);
+        when(accountRepository.findByAccountNumber(HOT_ACCOUNT_NUMBER)).thenReturn(Optional.of(hotAccount));
+        when(accountRepository.findByAccountNumber(otherAccount.getAccountNumber()))
+                .thenReturn(Optional.of(otherAccount));
+
+        assertTrue(accountService.findByAccountNumber(HOT_ACCOUNT_NUMBER).orElseThrow().isStriped());
+        assertFalse(accountService.findByAccountNumber(otherAccount.getAccountNumber()).orElseThrow().isStriped());
+
+        // Write-behind is off, the striped account still goes through it
+        accountService.saveBalance(hotAccount);
+        verify(accountWriteBehind).markDirty(hotAccount);
+        verify(accountRepository, never()).save(hotAccount);
+    }
+
+    @Test
+    public void testReloadedAccountKeepsOffHeapBalance() {
+        Account loaded = new Account("Account-000007", "Mohammad", 100.0);
+        ReflectionTestUtils.setField(loaded, "id", 7L);
+        when(accountRepository.findByAccountNumber("Account-000007")).thenReturn(Optional.of(loaded));
+        Account account = accountService.findByAccountNumber("Account-000007").orElseThrow();
+        account.deposit(50.0);
+        accountService.saveBalance(account);
+
+        // Evicted before the write-behind flush reached the database, the row still says 100
+        accountCache.invalidateAll();
+        Account stale = new Account("Account-000007", "Mohammad", 100.0);
+        when(accountRepository.findByAccountNumber("Account-000007")).thenReturn(Optional.of(stale));
+        Account reloaded = accountService.findByAccountNumber("Account-000007").orElseThrow();
+
+        assertTrue(reloaded.isOffHeap());
+        assertEquals(150.0, reloaded.getBalance());
+        verify(accountWriteBehind).markDirty(account);
+        verify(accountRepository, never()).save(any());
+    }
 }
@@ -0,0 +1,147 @@
+package com.shahrokhi.bankingsystem.service;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.AccountNumbers;
+import com.shahrokhi.bankingsystem.model.Bank;
+import com.shahrokhi.bankingsystem.repository.BankRepository;
+import com.shahrokhi.bankingsystem.service.admission.AdmissionControl;
+import com.shahrokhi.bankingsystem.service.aggregates.BankAggregates;
+import com.shahrokhi.bankingsystem.service.concurrency.AccountLockManager;
+import com.shahrokhi.bankingsystem.service.execution.ShardedTransactionExecutor;
+import com.shahrokhi.bankingsystem.service.execution.TransactionExecutor;
+import com.shahrokhi.bankingsystem.service.metrics.TransactionMetrics;
+import com.shahrokhi.bankingsystem.service.persistence.OptimisticAccountStore;
+import com.shahrokhi.bankingsystem.service.transactionObservation.TransactionEventBus;
+import com.shahrokhi.bankingsystem.service.transactionObservation.SynchronousTransactionObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every notification sleeps to stand in for I/O done while the account locks are held
+@ExtendWith(MockitoExtension.class)
+public class BankServiceConcurrencyTest {
+    private static final int TRANSFERS = 64;
+    private static final long OBSERVER_DELAY_MILLIS = 2;
+
+    @Mock
+    private BankRepository bankRepository;
+
+    @Mock
+    private AccountService accountService;
+
+    @Spy
+    private AccountLockManager accountLockManager = new AccountLockManager();
+
+    @Spy
+    private TransactionExecutor transactionExecutor = new TransactionExecutor();
+
+    @Spy
+    private ShardedTransactionExecutor shardedTransactionExecutor = new ShardedTransactionExecutor();
+
+    @Spy
+    private OptimisticAccountStore optimisticAccountStore = new OptimisticAccountStore();
+
+    @Spy
+    private BankAggregates bankAggregates = new BankAggregates();
+
+    @Spy
+    private TransactionMetrics transactionMetrics = new TransactionMetrics();
+
+    @Spy
+    private TransactionEventBus transactionEventBus = new TransactionEventBus();
+
+    @Spy
+    private AdmissionControl admissionControl = new AdmissionControl();
+
+    @InjectMocks
+    private BankService bankService;
+
+    private final SynchronousTransactionObserver slowObserver = (accountNumber, transactionType, amount) -> {
+        try {
+            Thread.sleep(OBSERVER_DELAY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    };
+
+    @BeforeEach
+    public void setUp() {
+        bankService.addObserver(slowObserver);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bankService.removeObserver(slowObserver);
+        bankService.shutdown();
+    }
+
+    @Test
+    public void testDisjointTransfersHoldTheirLocksAtOnce() throws Exception {
+        int pairs = 8;
+        CountDownLatch inside = new CountDownLatch(pairs);
+        AtomicInteger timedOut = new AtomicInteger();
+        // Each notification waits, with the transfer's locks held, until a transfer of every pair got this far
+        SynchronousTransactionObserver rendezvous = (accountNumber, transactionType, amount) -> {
+            inside.countDown();
+            try {
+                if (!inside.await(10, TimeUnit.SECONDS)) {
+                    timedOut.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        bankService.addObserver(rendezvous);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < pairs; i++) {
+                // Consecutive numbers fall on different lock stripes
+                Account from = new Account(AccountNumbers.format(2 * i), "From-" + i, 1.0);
+                Account to = new Account(AccountNumbers.format(2 * i + 1), "To-" + i, 0.0);
+                futures.add(bankService.transferAsync(from, to, 1.0));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            bankService.removeObserver(rendezvous);
+        }
+        assertEquals(0, timedOut.get(), "Transfers between disjoint pairs should run in parallel");
+    }
+
+    @Test
+    public void testConcurrentTransfersConserveMoney() throws Exception {
+        Bank bank = new Bank();
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            accounts.add(new Account(bank, "Holder-" + i, 100.0));
+        }
+
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            Account from = accounts.get(i % accounts.size());
+            Account to = accounts.get((i + 1 + i / accounts.size()) % accounts.size());
+            futures.add(bankService.transferAsync(from, to, 10.0));
+        }
+        for (Future<Boolean> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+
+        double total = accounts.stream().mapToDouble(Account::getBalance).sum();
+        assertEquals(400.0, total, 0.001);
+    }
+}
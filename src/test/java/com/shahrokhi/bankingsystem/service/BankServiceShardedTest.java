@@ -0,0 +1,196 @@
+package com.shahrokhi.bankingsystem.service;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.AccountNumbers;
+import com.shahrokhi.bankingsystem.repository.BankRepository;
+import com.shahrokhi.bankingsystem.service.admission.AdmissionControl;
+import com.shahrokhi.bankingsystem.service.aggregates.BankAggregates;
+import com.shahrokhi.bankingsystem.service.concurrency.AccountLockManager;
+import com.shahrokhi.bankingsystem.service.execution.ShardedTransactionExecutor;
+import com.shahrokhi.bankingsystem.service.execution.TransactionExecutor;
+import com.shahrokhi.bankingsystem.service.metrics.TransactionMetrics;
+import com.shahrokhi.bankingsystem.service.persistence.OptimisticAccountStore;
+import com.shahrokhi.bankingsystem.service.transactionObservation.TransactionEventBus;
+import com.shahrokhi.bankingsystem.service.netting.TransferInstruction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class BankServiceShardedTest {
+    private static final int SHARDS = 4;
+
+    @Mock
+    private BankRepository bankRepository;
+
+    @Mock
+    private AccountService accountService;
+
+    @Spy
+    private AccountLockManager accountLockManager = new AccountLockManager();
+
+    @Spy
+    private TransactionExecutor transactionExecutor = new TransactionExecutor();
+
+    @Spy
+    private ShardedTransactionExecutor shardedTransactionExecutor = new ShardedTransactionExecutor(SHARDS);
+
+    @Spy
+    private OptimisticAccountStore optimisticAccountStore = new OptimisticAccountStore();
+
+    @Spy
+    private BankAggregates bankAggregates = new BankAggregates();
+
+    @Spy
+    private TransactionMetrics transactionMetrics = new TransactionMetrics();
+
+    @Spy
+    private TransactionEventBus transactionEventBus = new TransactionEventBus();
+
+    @Spy
+    private AdmissionControl admissionControl = new AdmissionControl();
+
+    @InjectMocks
+    private BankService bankService;
+
+    @AfterEach
+    public void tearDown() {
+        bankService.shutdown();
+    }
+
+    @Test
+    public void testCrossShardTransfer() throws Exception {
+        Account fromAccount = account(1, 100.0);
+        Account toAccount = account(2, 20.0);
+        assertFalse(shardedTransactionExecutor.isSameShard(fromAccount, toAccount));
+
+        TransferResult result = bankService.submitTransfer(fromAccount, toAccount, 30.0).get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.success());
+        assertEquals(70.0, result.fromBalance(), 0.001);
+        assertEquals(50.0, result.toBalance(), 0.001);
+        verify(accountService).saveBalance(fromAccount);
+        verify(accountService).saveBalance(toAccount);
+    }
+
+    @Test
+    public void testCrossShardTransferWithInsufficientBalanceCreditsNothing() throws Exception {
+        Account fromAccount = account(1, 10.0);
+        Account toAccount = account(2, 20.0);
+
+        TransferResult result = bankService.submitTransfer(fromAccount, toAccount, 30.0).get(5, TimeUnit.SECONDS);
+
+        assertFalse(result.success());
+        assertEquals(10.0, fromAccount.getBalance(), 0.001);
+        assertEquals(20.0, toAccount.getBalance(), 0.001);
+    }
+
+    @Test
+    public void testRejectedCreditPaysBackPayer() {
+        Account fromAccount = account(1, 100.0);
+        Account toAccount = account(2, 20.0);
+        lenient().doThrow(new RejectedExecutionException("Transaction shard is stopped"))
+                .when(shardedTransactionExecutor).submit(same(toAccount), any());
+
+        CompletableFuture<TransferResult> result = bankService.submitTransfer(fromAccount, toAccount, 30.0);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        assertEquals(100.0, fromAccount.getBalance(), 0.001);
+        assertEquals(20.0, toAccount.getBalance(), 0.001);
+    }
+
+    @Test
+    public void testFailedCreditPaysBackPayer() {
+        Account fromAccount = account(1, 100.0);
+        Account toAccount = account(2, 20.0);
+        lenient().doThrow(new IllegalStateException("Database is down")).when(accountService).saveBalance(toAccount);
+
+        CompletableFuture<TransferResult> result = bankService.submitTransfer(fromAccount, toAccount, 30.0);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertEquals(100.0, fromAccount.getBalance(), 0.001);
+        assertEquals(20.0, toAccount.getBalance(), 0.001);
+    }
+
+    @Test
+    public void testRefusedOptimisticCreditPaysBackPayer() throws Exception {
+        Account fromAccount = account(1, 100.0);
+        Account toAccount = account(2, 20.0);
+        lenient().doReturn(true).when(optimisticAccountStore).isEnabled();
+        lenient().doReturn(true).when(optimisticAccountStore).withdraw(same(fromAccount), eq(3_000L));
+        lenient().doReturn(true).when(optimisticAccountStore).deposit(same(fromAccount), eq(3_000L));
+        // Ran out of retries
+        lenient().doReturn(false).when(optimisticAccountStore).deposit(same(toAccount), eq(3_000L));
+
+        TransferResult result = bankService.submitTransfer(fromAccount, toAccount, 30.0).get(5, TimeUnit.SECONDS);
+
+        assertFalse(result.success());
+        verify(optimisticAccountStore).deposit(same(fromAccount), eq(3_000L));
+    }
+
+    @Test
+    public void testConcurrentTransfersConserveMoney() throws Exception {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 1; i <= 8; i++) {
+            accounts.add(account(i, 100.0));
+        }
+
+        List<CompletableFuture<TransferResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            Account from = accounts.get(i % accounts.size());
+            Account to = accounts.get((i * 3 + 1) % accounts.size());
+            futures.add(bankService.submitTransfer(from, to, 7.0));
+            futures.add(bankService.submitDeposit(from, 1.0).thenCombine(
+                    bankService.submitWithdraw(to, 1.0), (deposit, withdraw) -> null));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        double total = accounts.stream().mapToDouble(Account::getBalance).sum();
+        long withdrawals = futures.size() / 2;
+        assertTrue(accounts.stream().allMatch(account -> account.getBalance() >= 0));
+        // Every deposit of 1.0 is matched by a withdrawal of 1.0 unless that account was empty
+        assertTrue(total >= 800.0 && total <= 800.0 + withdrawals, "Total " + total);
+    }
+
+    @Test
+    public void testNettingPausesShards() throws Exception {
+        Account fromAccount = account(1, 100.0);
+        Account toAccount = account(2, 0.0);
+        List<TransferInstruction> transfers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            transfers.add(new TransferInstruction(fromAccount, toAccount, 5.0));
+        }
+
+        CompletableFuture<TransactionResult> deposit = bankService.submitDeposit(toAccount, 1.0);
+        List<TransferResult> results = bankService.submitNetted(transfers).get(5, TimeUnit.SECONDS);
+        deposit.get(5, TimeUnit.SECONDS);
+
+        assertTrue(results.stream().allMatch(TransferResult::success));
+        assertEquals(50.0, fromAccount.getBalance(), 0.001);
+        assertEquals(51.0, toAccount.getBalance(), 0.001);
+    }
+
+    private static Account account(long number, double balance) {
+        return new Account(AccountNumbers.format(number), "Holder-" + number, balance);
+    }
+}
@@ -1,19 +1,39 @@
 package com.shahrokhi.bankingsystem.service;
 
 import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.AccountNumbers;
 import com.shahrokhi.bankingsystem.model.Bank;
 import com.shahrokhi.bankingsystem.repository.BankRepository;
+import com.shahrokhi.bankingsystem.service.admission.AdmissionControl;
+import com.shahrokhi.bankingsystem.service.aggregates.BankAggregates;
+import com.shahrokhi.bankingsystem.service.aggregates.BankSummary;
+import com.shahrokhi.bankingsystem.service.concurrency.AccountLockManager;
+import com.shahrokhi.bankingsystem.service.execution.ShardedTransactionExecutor;
+import com.shahrokhi.bankingsystem.service.execution.TransactionExecutor;
+import com.shahrokhi.bankingsystem.service.metrics.TransactionMetrics;
+import com.shahrokhi.bankingsystem.service.persistence.OptimisticAccountStore;
+import com.shahrokhi.bankingsystem.service.transactionObservation.SynchronousTransactionObserver;
+import com.shahrokhi.bankingsystem.service.transactionObservation.TransactionEventBus;
+import com.shahrokhi.bankingsystem.service.netting.TransferInstruction;
 import com.shahrokhi.bankingsystem.service.transactionObservation.TransactionLogger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -30,12 +50,42 @@ public class BankServiceTest {
     @Mock
     private AccountService accountService;
 
+    @Mock
+    private AccountNumberGenerator accountNumberGenerator;
+
+    @Spy
+    private AccountLockManager accountLockManager = new AccountLockManager();
+
+    @Spy
+    private TransactionExecutor transactionExecutor = new TransactionExecutor();
+
+    @Spy
+    private ShardedTransactionExecutor shardedTransactionExecutor = new ShardedTransactionExecutor();
+
+    @Spy
+    private OptimisticAccountStore optimisticAccountStore = new OptimisticAccountStore();
+
+    @Spy
+    private BankAggregates bankAggregates = new BankAggregates();
+
+    @Spy
+    private TransactionMetrics transactionMetrics = new TransactionMetrics();
+
+    @Spy
+    private TransactionEventBus transactionEventBus = new TransactionEventBus();
+
+    @Spy
+    private AdmissionControl admissionControl = new AdmissionControl();
+
     @InjectMocks
     private BankService bankService;
 
     @BeforeEach
     public void setUp() {
         bankService.addObserver(transactionLogger);
+        AtomicLong accountNumbers = new AtomicLong(900_000);
+        lenient().when(accountNumberGenerator.next())
+                .thenAnswer(invocation -> AccountNumbers.format(accountNumbers.incrementAndGet()));
     }
 
     @Test
@@ -57,6 +107,37 @@ public class BankServiceTest {
         verify(bankRepository).save(eq(bank));
     }
 
+    @Test
+    public void testAddAccountIsCountedAndAnnouncedOnlyAfterCommit() {
+        Bank bank = new Bank(1L, new HashSet<>());
+        when(bankRepository.findById(1L)).thenReturn(Optional.of(bank));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bankService.addAccount(1L, "Mohammad", 100.0);
+
+            assertEquals(0, bankService.countAccounts(1L));
+            verify(bankAggregates, never()).accountOpened(anyLong(), anyLong());
+            verify(transactionEventBus, never()).publishAccountOpened(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, bankService.countAccounts(1L));
+        verify(bankAggregates).accountOpened(1L, 10_000L);
+        verify(transactionEventBus).publishAccountOpened(any());
+    }
+
+    @Test
+    public void testAddAccountRejectsInvalidInitialBalance() {
+        for (double initialBalance : new double[]{Double.NaN, Double.POSITIVE_INFINITY, -1.0, 1e300}) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> bankService.addAccount(1L, "Mohammad", initialBalance));
+        }
+
+        verify(accountService, never()).save(any());
+    }
 
     @Test
     public void testCountAccounts() {
@@ -74,6 +155,25 @@ public class BankServiceTest {
         assertEquals(2, bankService.countAccounts(bank.getId()));
     }
 
+    @Test
+    public void testCountAccountsDoesNotLoadBank() {
+        when(bankRepository.existsById(7L)).thenReturn(true);
+        when(accountService.countByBankId(7L)).thenReturn(1_000_000L);
+
+        assertEquals(1_000_000, bankService.countAccounts(7L));
+        assertEquals(1_000_000, bankService.countAccounts(7L));
+
+        verify(bankRepository, never()).findById(any(Long.class));
+        verify(accountService, times(1)).countByBankId(7L);
+    }
+
+    @Test
+    public void testCountAccountsOfUnknownBank() {
+        when(bankRepository.existsById(7L)).thenReturn(false);
+
+        assertNull(bankService.countAccounts(7L));
+    }
+
     @Test
     public void testWithdrawWithSufficientBalance() {
         String accountHolderName = "Mohammad";
@@ -92,8 +192,8 @@ public class BankServiceTest {
 
         assertTrue(result);
         assertEquals(initialBalance - amount, account.getBalance(), 0.001);
-        verify(accountService).save(eq(account));
-        verify(transactionLogger).onTransaction(eq(account.getAccountNumber()), eq("Withdraw"), eq(amount));
+        verify(accountService).saveBalance(eq(account));
+        verify(transactionLogger, timeout(5_000)).onTransaction(eq(account.getAccountNumber()), eq("Withdraw"), eq(amount));
     }
 
     @Test
@@ -134,8 +234,24 @@ public class BankServiceTest {
 
         assertTrue(result);
         assertEquals(initialBalance + amount, account.getBalance(), 0.001);
-        verify(accountService).save(eq(account));
-        verify(transactionLogger).onTransaction(eq(account.getAccountNumber()), eq("Deposit"), eq(amount));
+        verify(accountService).saveBalance(eq(account));
+        verify(transactionLogger, timeout(5_000)).onTransaction(eq(account.getAccountNumber()), eq("Deposit"), eq(amount));
+    }
+
+    @Test
+    public void testInvalidAmountsFailWithoutTouchingTheBalance() {
+        Account account = new Account(new Bank(), "Mohammad", 50.0);
+        Account payee = new Account(new Bank(), "Ali", 0.0);
+
+        for (double amount : new double[]{Double.NaN, Double.POSITIVE_INFINITY, 0.004, -1.0, 1e300}) {
+            assertThrows(ExecutionException.class, () -> bankService.depositAsync(account, amount).get());
+            assertThrows(ExecutionException.class, () -> bankService.withdrawAsync(account, amount).get());
+            assertThrows(ExecutionException.class, () -> bankService.transferAsync(account, payee, amount).get());
+        }
+
+        assertEquals(50.0, account.getBalance(), 0.001);
+        assertEquals(0.0, payee.getBalance(), 0.001);
+        verify(accountService, never()).saveBalance(any());
     }
 
     @Test
@@ -159,10 +275,29 @@ public class BankServiceTest {
         assertTrue(result);
         assertEquals(initialBalance - amount, fromAccount.getBalance(), 0.001);
         assertEquals(initialBalance + amount, toAccount.getBalance(), 0.001);
-        verify(accountService).save(eq(fromAccount));
-        verify(accountService).save(eq(toAccount));
-        verify(transactionLogger).onTransaction(eq(fromAccount.getAccountNumber()), eq("Withdraw"), eq(amount));
-        verify(transactionLogger).onTransaction(eq(toAccount.getAccountNumber()), eq("Deposit"), eq(amount));
+        verify(accountService).saveBalance(eq(fromAccount));
+        verify(accountService).saveBalance(eq(toAccount));
+        verify(transactionLogger, timeout(5_000)).onTransaction(eq(fromAccount.getAccountNumber()), eq("Withdraw"), eq(amount));
+        verify(transactionLogger, timeout(5_000)).onTransaction(eq(toAccount.getAccountNumber()), eq("Deposit"), eq(amount));
+    }
+
+    @Test
+    public void testFailingObserverDoesNotAbortTransfer() {
+        SynchronousTransactionObserver failing = (accountNumber, transactionType, amount) -> {
+            throw new IllegalStateException("Observer failed");
+        };
+        transactionEventBus.subscribe(failing);
+        Account fromAccount = new Account("Mohammad", 100.0);
+        Account toAccount = new Account("Ali", 0.0);
+
+        assertTrue(bankService.transferAsync(fromAccount, toAccount, 40.0).join());
+        transactionEventBus.shutdown();
+        assertTrue(bankService.transferAsync(fromAccount, toAccount, 10.0).join());
+
+        assertEquals(50.0, fromAccount.getBalance(), 0.001);
+        assertEquals(50.0, toAccount.getBalance(), 0.001);
+        assertEquals(2, transactionEventBus.getSynchronousFailures());
+        assertEquals(2, transactionEventBus.getPublishedAfterClose());
     }
 
     @Test
@@ -199,4 +334,123 @@ public class BankServiceTest {
 
         assertEquals(initialBalance, balance, 0.001);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSubmitTransferReturnsUpdatedBalances() {
+        Bank bank = new Bank();
+        Account fromAccount = new Account(bank, "Mohammad", 100.0);
+        Account toAccount = new Account(bank, "Ali", 20.0);
+
+        TransferResult result = bankService.submitTransfer(fromAccount, toAccount, 30.0).join();
+
+        assertTrue(result.success());
+        assertEquals(fromAccount.getAccountNumber(), result.fromAccountNumber());
+        assertEquals(70.0, result.fromBalance(), 0.001);
+        assertEquals(toAccount.getAccountNumber(), result.toAccountNumber());
+        assertEquals(50.0, result.toBalance(), 0.001);
+    }
+
+    @Test
+    public void testSubmitWithdrawWithInsufficientBalanceReturnsCurrentBalance() {
+        Account account = new Account(new Bank(), "Mohammad", 10.0);
+
+        TransactionResult result = bankService.submitWithdraw(account, 30.0).join();
+
+        assertFalse(result.success());
+        assertEquals(10.0, result.balance(), 0.001);
+    }
+
+    @Test
+    public void testSubmitNettedPersistsEachAccountOnce() {
+        Bank bank = new Bank();
+        Account fromAccount = new Account(bank, "Mohammad", 100.0);
+        Account toAccount = new Account(bank, "Ali", 0.0);
+        List<TransferInstruction> transfers = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            transfers.add(new TransferInstruction(fromAccount, toAccount, 3.0));
+        }
+
+        List<TransferResult> results = bankService.submitNetted(transfers).join();
+
+        // 33 transfers of 3.0 fit into 100.0
+        assertEquals(33, results.stream().filter(TransferResult::success).count());
+        assertFalse(results.get(33).success());
+        assertEquals(1.0, fromAccount.getBalance(), 0.001);
+        assertEquals(99.0, toAccount.getBalance(), 0.001);
+        verify(accountService).saveBalances(eq(List.of(fromAccount, toAccount)));
+        verify(accountService, never()).saveBalance(any());
+        verify(transactionLogger, timeout(5_000).times(33)).onTransaction(eq(fromAccount.getAccountNumber()), eq("Withdraw"), eq(3.0));
+        verify(transactionLogger, timeout(5_000).times(33)).onTransaction(eq(toAccount.getAccountNumber()), eq("Deposit"), eq(3.0));
+    }
+
+    @Test
+    public void testOptimisticModeWritesThroughTheStore() {
+        Bank bank = new Bank();
+        Account fromAccount = new Account(bank, "Mohammad", 100.0);
+        Account toAccount = new Account(bank, "Ali", 0.0);
+        doReturn(true).when(optimisticAccountStore).isEnabled();
+        doReturn(true).when(optimisticAccountStore).deposit(fromAccount, 5_000);
+        doReturn(false).when(optimisticAccountStore).withdraw(fromAccount, 50_000);
+        doReturn(true).when(optimisticAccountStore).transfer(fromAccount, toAccount, 1_000);
+
+        assertTrue(bankService.depositAsync(fromAccount, 50.0).join());
+        assertFalse(bankService.withdrawAsync(fromAccount, 500.0).join());
+        assertTrue(bankService.transferAsync(fromAccount, toAccount, 10.0).join());
+
+        verify(accountService, never()).saveBalance(any());
+        verify(transactionLogger, timeout(5_000)).onTransaction(fromAccount.getAccountNumber(), "Deposit", 50.0);
+        verify(transactionLogger, timeout(5_000)).onTransaction(fromAccount.getAccountNumber(), "Withdraw", 10.0);
+        verify(transactionLogger, timeout(5_000)).onTransaction(toAccount.getAccountNumber(), "Deposit", 10.0);
+        verify(transactionLogger, never()).onTransaction(fromAccount.getAccountNumber(), "Withdraw", 500.0);
+    }
+
+    @Test
+    public void testTransactionsUpdateBankAggregates() {
+        Bank bank = new Bank(3L, new HashSet<>());
+        when(bankRepository.findById(3L)).thenReturn(Optional.of(bank));
+        Account fromAccount = bankService.addAccount(3L, "Mohammad", 100.0);
+        Account toAccount = bankService.addAccount(3L, "Ali", 0.0);
+
+        bankService.depositAsync(fromAccount, 20.0).join();
+        bankService.withdrawAsync(fromAccount, 500.0).join();
+        bankService.transferAsync(fromAccount, toAccount, 30.0).join();
+
+        BankSummary summary = bankService.summarize(3L, Instant.EPOCH).orElseThrow();
+        assertEquals(120.0, summary.totalBalance(), 0.001);
+        assertEquals(2, summary.deposits());
+        assertEquals(50.0, summary.depositVolume(), 0.001);
+        assertEquals(1, summary.withdrawals());
+        assertEquals(30.0, summary.withdrawVolume(), 0.001);
+        verify(bankRepository, never()).existsById(any());
+    }
+
+    @Test
+    public void testSummarizeUnknownBank() {
+        when(bankRepository.existsById(9L)).thenReturn(false);
+
+        assertTrue(bankService.summarize(9L, Instant.EPOCH).isEmpty());
+    }
+
+    @Test
+    public void testDepositsToHotAccountTakeNoAccountLock() {
+        Account merchant = new Account(new Bank(), "Merchant", 0.0);
+        merchant.enableStriping();
+        Account customer = new Account(new Bank(), "Mohammad", 100.0);
+
+        List<CompletableFuture<Boolean>> deposits = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            deposits.add(bankService.depositAsync(merchant, 1.0));
+        }
+        deposits.forEach(CompletableFuture::join);
+        assertTrue(bankService.transferAsync(customer, merchant, 40.0).join());
+        assertTrue(bankService.withdrawAsync(merchant, 240.0).join());
+
+        assertEquals(0, merchant.getBalanceMinorUnits());
+        assertEquals(60.0, customer.getBalance(), 0.001);
+        // Only the withdrawal locks the merchant, the transfer only locks the payer
+        verify(accountLockManager, times(1)).withLock(eq(merchant), any());
+        verify(accountLockManager).withLock(eq(customer), any());
+        verify(accountLockManager, never()).withLocks(any(Account.class), any(Account.class), any());
+        verify(accountService, times(202)).saveBalance(merchant);
+    }
+}
@@ -0,0 +1,175 @@
+package com.shahrokhi.bankingsystem.service.accountImport;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.AccountNumbers;
+import com.shahrokhi.bankingsystem.model.Bank;
+import com.shahrokhi.bankingsystem.repository.AccountRepository;
+import com.shahrokhi.bankingsystem.repository.BankRepository;
+import com.shahrokhi.bankingsystem.repository.NumberBlockRepository;
+import com.shahrokhi.bankingsystem.service.AccountNumberGenerator;
+import com.shahrokhi.bankingsystem.service.BankService;
+import com.shahrokhi.bankingsystem.service.transactionObservation.AccountOpening;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class AccountImporterTest {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BankRepository bankRepository;
+
+    @Autowired
+    private NumberBlockRepository numberBlockRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BankService bankService;
+    private AccountNumberGenerator accountNumberGenerator;
+    private AccountImporter importer;
+    private Bank bank;
+
+    @BeforeEach
+    public void setUp() {
+        bankService = mock(BankService.class);
+        accountNumberGenerator =
+                new AccountNumberGenerator(numberBlockRepository, accountRepository, transactionManager, 10);
+        importer = new AccountImporter(jdbcTemplate, new TransactionTemplate(transactionManager), bankService,
+                accountNumberGenerator, 100);
+        bank = bankRepository.save(new Bank());
+        when(bankService.countAccounts(bank.getId())).thenReturn(0);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        accountRepository.deleteAll();
+        bankRepository.deleteAll();
+        numberBlockRepository.deleteAll();
+    }
+
+    @Test
+    public void testImportsInChunks() {
+        List<NewAccount> accounts = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            accounts.add(new NewAccount("Holder " + i, i));
+        }
+
+        ImportResult result = importer.importAccounts(bank.getId(), accounts).orElseThrow();
+
+        assertEquals(250, result.imported());
+        assertEquals(250, accountRepository.countByBankId(bank.getId()));
+        assertEquals(249 * 250 / 2 * 100L, accountRepository.sumBalanceByBankIdIn(List.of(bank.getId())));
+        Account last = accountRepository.findByAccountNumber(result.lastAccountNumber()).orElseThrow();
+        assertEquals("Holder 249", last.getHolderName());
+        assertEquals(bank.getId(), last.getBankId());
+        ArgumentCaptor<List<AccountOpening>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(bankService, times(3)).accountsImported(eq(bank.getId()), chunks.capture());
+        assertEquals(List.of(100, 100, 50), chunks.getAllValues().stream().map(List::size).toList());
+        AccountOpening opening = chunks.getAllValues().get(2).get(49);
+        assertEquals(last.getId(), opening.id());
+        assertEquals(result.lastAccountNumber(), opening.accountNumber());
+        assertEquals("Holder 249", opening.holderName());
+        assertEquals(249 * 100L, opening.balance());
+    }
+
+    @Test
+    public void testIdsAndNumbersDoNotCollideWithSingleAccounts() {
+        Account before = saveAccount("Before");
+        ImportResult result = importer.importAccounts(bank.getId(),
+                List.of(new NewAccount("Mohammad", 1), new NewAccount("Ali", 2))).orElseThrow();
+        Account after = saveAccount("After");
+
+        Set<Long> ids = new HashSet<>();
+        Set<String> numbers = new HashSet<>();
+        for (Account account : accountRepository.findAll()) {
+            ids.add(account.getId());
+            numbers.add(account.getAccountNumber());
+        }
+        assertEquals(4, ids.size());
+        assertEquals(4, numbers.size());
+        // Single accounts keep using the generator's block, the import reserves a range after it
+        assertEquals(AccountNumbers.parse(before.getAccountNumber()) + 1,
+                AccountNumbers.parse(after.getAccountNumber()));
+        assertEquals(AccountNumbers.parse(result.firstAccountNumber()) + 1,
+                AccountNumbers.parse(result.lastAccountNumber()));
+        assertTrue(after.getId() > before.getId());
+    }
+
+    @Test
+    public void testImportsCsv() {
+        ImportResult result = importer.importCsv(bank.getId(), new StringReader("""
+                holder_name,initial_balance
+                Mohammad,10.25
+                "Ali, Jr.",0
+                """)).orElseThrow();
+
+        assertEquals(2, result.imported());
+        assertEquals(10.25, accountRepository.findByAccountNumber(result.firstAccountNumber())
+                .orElseThrow().getBalance(), 0.001);
+        assertEquals("Ali, Jr.", accountRepository.findByAccountNumber(result.lastAccountNumber())
+                .orElseThrow().getHolderName());
+    }
+
+    @Test
+    public void testInvalidAccountKeepsEarlierChunks() {
+        List<NewAccount> accounts = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            accounts.add(new NewAccount("Holder " + i, i == 120 ? -1 : 1));
+        }
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> importer.importAccounts(bank.getId(), accounts));
+
+        assertTrue(e.getMessage().contains("Account 121"), e.getMessage());
+        assertTrue(e.getMessage().contains("100 accounts imported before"), e.getMessage());
+        assertEquals(100, accountRepository.countByBankId(bank.getId()));
+    }
+
+    @Test
+    public void testOpeningBalanceMustBeAnAmount() {
+        for (double balance : new double[]{Double.NaN, Double.POSITIVE_INFINITY, 1e300}) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> importer.importAccounts(bank.getId(), List.of(new NewAccount("Holder", balance))));
+        }
+        assertEquals(0, accountRepository.countByBankId(bank.getId()));
+    }
+
+    @Test
+    public void testUnknownBank() {
+        when(bankService.countAccounts(404L)).thenReturn(null);
+
+        assertTrue(importer.importAccounts(404L, List.of(new NewAccount("Mohammad", 1))).isEmpty());
+        assertEquals(0, accountRepository.count());
+    }
+
+    private Account saveAccount(String holderName) {
+        Account account = new Account(accountNumberGenerator.next(), holderName, 0.0);
+        account.setBank(bank);
+        return accountRepository.save(account);
+    }
+}
@@ -0,0 +1,56 @@
+package com.shahrokhi.bankingsystem.service.accountImport;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvAccountReaderTest {
+
+    @Test
+    public void testReadsColumnsByHeader() {
+        List<NewAccount> accounts = read("""
+                customer_id,initial_balance,holder_name
+                17,100.50,Mohammad
+
+                18,0,"Ali, Jr."
+                19,7,"Reza ""The Saver""\"
+                """);
+
+        assertEquals(List.of(new NewAccount("Mohammad", 100.5), new NewAccount("Ali, Jr.", 0.0),
+                new NewAccount("Reza \"The Saver\"", 7.0)), accounts);
+    }
+
+    @Test
+    public void testHeaderOnly() {
+        assertTrue(read("holder_name,initial_balance\n").isEmpty());
+    }
+
+    @Test
+    public void testMissingColumn() {
+        assertThrows(IllegalArgumentException.class, () -> read("holder_name,balance\nMohammad,1\n"));
+        assertThrows(IllegalArgumentException.class, () -> read(""));
+    }
+
+    @Test
+    public void testInvalidLinesNameTheLine() {
+        IllegalArgumentException notANumber = assertThrows(IllegalArgumentException.class,
+                () -> read("holder_name,initial_balance\nMohammad,1\nAli,lots\n"));
+        assertTrue(notANumber.getMessage().startsWith("Line 3:"), notANumber.getMessage());
+
+        IllegalArgumentException missingField = assertThrows(IllegalArgumentException.class,
+                () -> read("holder_name,initial_balance\nMohammad\n"));
+        assertTrue(missingField.getMessage().startsWith("Line 2:"), missingField.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> read("holder_name,initial_balance\n\"Mohammad,1\n"));
+    }
+
+    private static List<NewAccount> read(String csv) {
+        List<NewAccount> accounts = new ArrayList<>();
+        new CsvAccountReader(new StringReader(csv)).forEachRemaining(accounts::add);
+        return accounts;
+    }
+}
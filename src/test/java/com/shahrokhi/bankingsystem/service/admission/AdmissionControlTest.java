@@ -0,0 +1,141 @@
+package com.shahrokhi.bankingsystem.service.admission;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionControlTest {
+
+    @Test
+    public void testRejectsWhenTooManyArePending() {
+        AdmissionControl admissionControl = new AdmissionControl(2, OverloadPolicy.REJECT, 0, 0, 0, 0, 0);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        AtomicInteger submitted = new AtomicInteger();
+
+        assertSame(first, admissionControl.admit(() -> first));
+        assertSame(second, admissionControl.admit(() -> second));
+        TransactionRejectedException rejection = rejectionOf(admissionControl.admit(() -> {
+            submitted.incrementAndGet();
+            return CompletableFuture.completedFuture("third");
+        }));
+
+        assertEquals(RejectionReason.OVERLOADED, rejection.getReason());
+        assertEquals(0, submitted.get());
+        assertEquals(2, admissionControl.getStats().pending());
+
+        // A completed transaction frees its slot, failed ones too
+        first.complete("first");
+        second.completeExceptionally(new IllegalStateException());
+        assertEquals("fourth", admissionControl.admit(() -> CompletableFuture.completedFuture("fourth")).join());
+        assertEquals(0, admissionControl.getStats().pending());
+        assertEquals(3, admissionControl.getStats().admitted());
+        assertEquals(1, admissionControl.getStats().overloaded());
+    }
+
+    @Test
+    public void testBlockingCallerGetsSlotFreedWhileWaiting() throws Exception {
+        AdmissionControl admissionControl = new AdmissionControl(1, OverloadPolicy.BLOCK, 5_000, 0, 0, 0, 0);
+        CompletableFuture<String> running = new CompletableFuture<>();
+        admissionControl.admit(() -> running);
+
+        CompletableFuture<String> waiting = CompletableFuture.supplyAsync(() ->
+                admissionControl.admit(() -> CompletableFuture.completedFuture("admitted")).join());
+        while (admissionControl.getStats().blocked() == 0) {
+            Thread.onSpinWait();
+        }
+        running.complete("done");
+
+        assertEquals("admitted", waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(0, admissionControl.getStats().overloaded());
+    }
+
+    @Test
+    public void testBlockingCallerGivesUpAfterTimeout() {
+        AdmissionControl admissionControl = new AdmissionControl(1, OverloadPolicy.BLOCK, 20, 0, 0, 0, 0);
+        admissionControl.admit(CompletableFuture::new);
+
+        assertEquals(RejectionReason.OVERLOADED,
+                rejectionOf(admissionControl.admit(() -> CompletableFuture.completedFuture("late"))).getReason());
+        assertEquals(1, admissionControl.getStats().blocked());
+    }
+
+    @Test
+    public void testAccountRateLimitOnlyAffectsThatAccount() {
+        // One per hour, only the burst gets through
+        AdmissionControl admissionControl = new AdmissionControl(0, OverloadPolicy.REJECT, 0, 0, 0, 1.0 / 3600, 3);
+        Account hot = new Account("Account-000001", "Hot", 0.0);
+        Account quiet = new Account("Account-000002", "Quiet", 0.0);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("ok", admissionControl.admit(() -> CompletableFuture.completedFuture("ok"), hot).join());
+        }
+        TransactionRejectedException rejection =
+                rejectionOf(admissionControl.admit(() -> CompletableFuture.completedFuture("ok"), hot));
+        assertEquals(RejectionReason.ACCOUNT_RATE_LIMITED, rejection.getReason());
+        assertTrue(rejection.getRetryAfter().toMinutes() >= 59);
+
+        assertEquals("ok", admissionControl.admit(() -> CompletableFuture.completedFuture("ok"), quiet).join());
+        // A transfer is limited by either of its accounts
+        assertEquals(RejectionReason.ACCOUNT_RATE_LIMITED, rejectionOf(admissionControl.admit(
+                () -> CompletableFuture.completedFuture("ok"), quiet, hot)).getReason());
+        assertEquals(2, admissionControl.getStats().accountRateLimited());
+    }
+
+    @Test
+    public void testRefusedTransactionSpendsNoPermit() {
+        AdmissionControl admissionControl = new AdmissionControl(1, OverloadPolicy.REJECT, 0, 1.0 / 3600, 2,
+                1.0 / 3600, 1);
+        Account payer = new Account("Account-000001", "Payer", 0.0);
+        Account payee = new Account("Account-000002", "Payee", 0.0);
+        Account other = new Account("Account-000003", "Other", 0.0);
+        CompletableFuture<String> running = admissionControl.admit(CompletableFuture::new, payee);
+
+        // Refused by the payee's limit and by the pending cap, neither charges the payer or the global limit
+        assertEquals(RejectionReason.ACCOUNT_RATE_LIMITED, rejectionOf(admissionControl.admit(
+                () -> CompletableFuture.completedFuture("ok"), payer, payee)).getReason());
+        assertEquals(RejectionReason.OVERLOADED, rejectionOf(admissionControl.admit(
+                () -> CompletableFuture.completedFuture("ok"), payer)).getReason());
+        running.complete("done");
+
+        assertEquals("ok", admissionControl.admit(() -> CompletableFuture.completedFuture("ok"), payer).join());
+        assertEquals(RejectionReason.GLOBAL_RATE_LIMITED, rejectionOf(admissionControl.admit(
+                () -> CompletableFuture.completedFuture("ok"), other)).getReason());
+    }
+
+    @Test
+    public void testGlobalRateLimitRefillsOverTime() throws Exception {
+        // One permit every 20 ms
+        AdmissionControl admissionControl = new AdmissionControl(0, OverloadPolicy.REJECT, 0, 50, 1, 0, 0);
+
+        assertEquals("ok", admissionControl.admit(() -> CompletableFuture.completedFuture("ok")).join());
+        TransactionRejectedException rejection =
+                rejectionOf(admissionControl.admit(() -> CompletableFuture.completedFuture("ok")));
+        assertEquals(RejectionReason.GLOBAL_RATE_LIMITED, rejection.getReason());
+        assertTrue(rejection.getRetryAfter().toMillis() <= 20);
+
+        Thread.sleep(rejection.getRetryAfter().toMillis() + 5);
+        assertEquals("ok", admissionControl.admit(() -> CompletableFuture.completedFuture("ok")).join());
+    }
+
+    @Test
+    public void testDefaultAdmitsEverything() {
+        AdmissionControl admissionControl = new AdmissionControl();
+        for (int i = 0; i < 100_000; i++) {
+            admissionControl.admit(CompletableFuture::new, new Account("Account-000001", "Holder", 0.0));
+        }
+
+        assertEquals(100_000, admissionControl.getStats().admitted());
+    }
+
+    private static TransactionRejectedException rejectionOf(CompletableFuture<?> future) {
+        CompletionException failure = assertThrows(CompletionException.class, future::join);
+        return assertInstanceOf(TransactionRejectedException.class, failure.getCause());
+    }
+}
@@ -0,0 +1,88 @@
+package com.shahrokhi.bankingsystem.service.aggregates;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.Bank;
+import com.shahrokhi.bankingsystem.repository.AccountRepository;
+import com.shahrokhi.bankingsystem.repository.BankRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BankAggregatesRebuildTest {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BankRepository bankRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM transaction_history");
+        accountRepository.deleteAll();
+        bankRepository.deleteAll();
+    }
+
+    @Test
+    public void testRebuildFromAccountsAndHistory() {
+        Bank bank = bankRepository.save(new Bank());
+        Bank otherBank = bankRepository.save(new Bank());
+        accountRepository.save(new Account(bank, "Mohammad", 100.0));
+        accountRepository.save(new Account(bank, "Ali", 25.5));
+        Account other = accountRepository.save(new Account(otherBank, "Reza", 7.0));
+        Account first = accountRepository.findAll().stream()
+                .filter(account -> account.getHolderName().equals("Mohammad")).findFirst().orElseThrow();
+
+        Instant now = Instant.now();
+        insertHistory(first.getAccountNumber(), "Deposit", 4_000, now);
+        insertHistory(first.getAccountNumber(), "Withdraw", 1_000, now);
+        insertHistory(other.getAccountNumber(), "Deposit", 700, now);
+        // Outside the retained window
+        insertHistory(first.getAccountNumber(), "Deposit", 9_900, now.minus(3, ChronoUnit.DAYS));
+
+        BankAggregates aggregates = newAggregates();
+        aggregates.deposited(bank.getId(), 123_456);
+        assertEquals(2, aggregates.rebuild());
+
+        BankSummary summary = aggregates.summary(bank.getId(), Instant.EPOCH);
+        assertEquals(125.5, summary.totalBalance(), 0.001);
+        assertEquals(1, summary.deposits());
+        assertEquals(40.0, summary.depositVolume(), 0.001);
+        assertEquals(1, summary.withdrawals());
+        assertEquals(10.0, summary.withdrawVolume(), 0.001);
+        assertEquals(7.0, aggregates.summary(otherBank.getId(), Instant.EPOCH).totalBalance(), 0.001);
+    }
+
+    @Test
+    public void testRebuildOfEmptyDatabase() {
+        BankAggregates aggregates = newAggregates();
+        aggregates.deposited(1L, 100);
+
+        assertEquals(0, aggregates.rebuild());
+        assertEquals(0.0, aggregates.summary(1L, Instant.EPOCH).totalBalance());
+    }
+
+    private BankAggregates newAggregates() {
+        return new BankAggregates(jdbcTemplate, 60, 48);
+    }
+
+    private void insertHistory(String accountNumber, String type, long amount, Instant createdAt) {
+        jdbcTemplate.update("INSERT INTO transaction_history (account_number, type, amount, created_at) "
+                + "VALUES (?, ?, ?, ?)", accountNumber, type, amount, Timestamp.from(createdAt));
+    }
+}
@@ -0,0 +1,108 @@
+package com.shahrokhi.bankingsystem.service.aggregates;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BankAggregatesTest {
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long NOW = 1_000 * HOUR + 123;
+
+    @Test
+    public void testConcurrentUpdatesAreAllCounted() throws Exception {
+        BankAggregates aggregates = new BankAggregates();
+        aggregates.accountOpened(1L, 1_000_000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    aggregates.deposited(1L, 3, NOW);
+                    aggregates.withdrawn(1L, 1, NOW);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        BankSummary summary = aggregates.summary(1L, Instant.EPOCH, NOW);
+        assertEquals(10_000 + 1_600.0, summary.totalBalance(), 0.001);
+        assertEquals(80_000, summary.deposits());
+        assertEquals(2_400.0, summary.depositVolume(), 0.001);
+        assertEquals(80_000, summary.withdrawals());
+        assertEquals(800.0, summary.withdrawVolume(), 0.001);
+    }
+
+    @Test
+    public void testOpeningBalanceIsNotTurnover() {
+        BankAggregates aggregates = new BankAggregates();
+        aggregates.accountOpened(1L, 5_000);
+
+        BankSummary summary = aggregates.summary(1L, Instant.EPOCH, NOW);
+
+        assertEquals(50.0, summary.totalBalance(), 0.001);
+        assertEquals(0, summary.deposits());
+        assertTrue(summary.buckets().isEmpty());
+    }
+
+    @Test
+    public void testSummaryStartsAtTheBucketOfSince() {
+        BankAggregates aggregates = new BankAggregates(null, 60, 24);
+        aggregates.deposited(1L, 100, NOW - 2 * HOUR);
+        aggregates.deposited(1L, 200, NOW - HOUR);
+        aggregates.withdrawn(1L, 50, NOW);
+
+        BankSummary summary = aggregates.summary(1L, Instant.ofEpochMilli(NOW - HOUR), NOW);
+
+        assertEquals(2.5, summary.totalBalance(), 0.001);
+        assertEquals(Instant.ofEpochMilli(999 * HOUR), summary.since());
+        assertEquals(1, summary.deposits());
+        assertEquals(2.0, summary.depositVolume(), 0.001);
+        assertEquals(1, summary.withdrawals());
+        assertEquals(2, summary.buckets().size());
+        assertEquals(Instant.ofEpochMilli(999 * HOUR), summary.buckets().get(0).start());
+        assertEquals(Instant.ofEpochMilli(1_000 * HOUR), summary.buckets().get(1).start());
+    }
+
+    @Test
+    public void testOldBucketsLeaveTheRing() {
+        BankAggregates aggregates = new BankAggregates(null, 60, 3);
+        aggregates.deposited(1L, 100, NOW - 3 * HOUR);
+        // Same slot as the bucket three hours ago, which is replaced
+        aggregates.deposited(1L, 200, NOW);
+        // Too old for the ring, only the balance counts it
+        aggregates.deposited(1L, 400, NOW - 3 * HOUR);
+
+        BankSummary summary = aggregates.summary(1L, Instant.EPOCH, NOW);
+
+        assertEquals(7.0, summary.totalBalance(), 0.001);
+        assertEquals(Instant.ofEpochMilli(998 * HOUR), summary.since());
+        assertEquals(1, summary.deposits());
+        assertEquals(2.0, summary.depositVolume(), 0.001);
+    }
+
+    @Test
+    public void testExpiredBucketIsNotReported() {
+        BankAggregates aggregates = new BankAggregates(null, 60, 3);
+        aggregates.deposited(1L, 100, NOW);
+
+        BankSummary later = aggregates.summary(1L, Instant.EPOCH, NOW + 5 * HOUR);
+
+        assertEquals(0, later.deposits());
+        assertTrue(later.buckets().isEmpty());
+    }
+
+    @Test
+    public void testBanksAreIndependent() {
+        BankAggregates aggregates = new BankAggregates();
+        aggregates.deposited(1L, 100, NOW);
+        aggregates.deposited(null, 100, NOW);
+
+        assertEquals(0.0, aggregates.summary(2L, Instant.EPOCH, NOW).totalBalance());
+        assertEquals(1.0, aggregates.summary(1L, Instant.EPOCH, NOW).totalBalance(), 0.001);
+    }
+}
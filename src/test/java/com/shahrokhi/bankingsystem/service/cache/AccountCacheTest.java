@@ -0,0 +1,186 @@
+package com.shahrokhi.bankingsystem.service.cache;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.AccountNumbers;
+import com.shahrokhi.bankingsystem.model.Bank;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountCacheTest {
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        // One segment per entry would make eviction order depend on hashing, use a single segment
+        AccountCache cache = new AccountCache(true, 1);
+        Account first = new Account(new Bank(), "Mohammad", 1.0);
+        Account second = new Account(new Bank(), "Ali", 1.0);
+
+        cache.get(first.getAccountNumber(), key -> Optional.of(first));
+        cache.get(second.getAccountNumber(), key -> Optional.of(second));
+
+        AccountCache.CacheStats stats = cache.getStats();
+        assertEquals(1, stats.size());
+        assertEquals(1, stats.evictions());
+        assertEquals(2, stats.misses());
+        assertSame(second, cache.get(second.getAccountNumber(), key -> fail("should be cached")).orElseThrow());
+    }
+
+    @Test
+    public void testEvictedAccountInUseIsHandedBack() {
+        AccountCache cache = new AccountCache(true, 1);
+        Account first = new Account(AccountNumbers.format(1), "Mohammad", 1.0);
+        Account second = new Account(AccountNumbers.format(2), "Ali", 1.0);
+        cache.get(first.getAccountNumber(), key -> Optional.of(first));
+        cache.get(second.getAccountNumber(), key -> Optional.of(second));
+
+        // Still referenced here, so loading another copy would split its updates
+        assertSame(first, cache.find(first.getAccountNumber(),
+                key -> Optional.of(new Account(AccountNumbers.format(1), "Copy", 1.0))));
+        assertSame(second, cache.find(second.getAccountNumber(),
+                key -> Optional.of(new Account(AccountNumbers.format(2), "Copy", 1.0))));
+        assertEquals(1, cache.getStats().size());
+    }
+
+    @Test
+    public void testStripedAccountsDoNotGrowTheCache() {
+        AccountCache cache = new AccountCache(true, 2, 1);
+        List<Account> hot = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            Account account = new Account(AccountNumbers.format(i), "Hot", 1.0);
+            account.enableStriping();
+            hot.add(account);
+            cache.onSaved(account);
+        }
+
+        assertEquals(2, cache.getStats().size());
+        assertEquals(8, cache.getStats().evictions());
+        // Deposits may still be landing on an evicted one, the same instance comes back
+        for (Account account : hot) {
+            assertSame(account, cache.find(account.getAccountNumber(), key -> fail("should be retained")));
+        }
+        assertEquals(2, cache.getStats().size());
+    }
+
+    @Test
+    public void testNumbersThatParseAlikeAreDistinctEntries() {
+        AccountCache cache = new AccountCache(true, 1_000);
+        Account padded = new Account(AccountNumbers.format(42), "Padded", 1.0);
+        Account unpadded = new Account("Account-42", "Unpadded", 1.0);
+        Account foreign = new Account("Merchant-1", "Foreign", 1.0);
+        for (Account account : List.of(padded, unpadded, foreign)) {
+            cache.onSaved(account);
+        }
+
+        cache.invalidate("Account-42");
+
+        assertSame(padded, cache.get(padded.getAccountNumber(), key -> fail("should be cached")).orElseThrow());
+        assertSame(foreign, cache.get("Merchant-1", key -> fail("should be cached")).orElseThrow());
+        assertTrue(cache.get("Account-42", key -> Optional.empty()).isEmpty());
+        assertEquals(2, cache.getStats().size());
+    }
+
+    @Test
+    public void testBehavesLikeAccessOrderedMap() {
+        int capacity = 100;
+        // A single segment, so the eviction order is exactly least-recently-used
+        AccountCache cache = new AccountCache(true, capacity, 1);
+        // Evicted accounts stay referenced here, so the cache always hands them back
+        Map<String, Account> evicted = new HashMap<>();
+        Map<String, Account> expected = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Account> eldest) {
+                if (size() > capacity) {
+                    evicted.put(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            String accountNumber = AccountNumbers.format(random.nextInt(300));
+            int operation = random.nextInt(10);
+            if (operation == 0) {
+                cache.invalidate(accountNumber);
+                expected.remove(accountNumber);
+                evicted.remove(accountNumber);
+            } else if (operation == 1) {
+                Account saved = new Account(accountNumber, "Saved", 1.0);
+                cache.onSaved(saved);
+                evicted.remove(accountNumber);
+                expected.put(accountNumber, saved);
+            } else {
+                Account loaded = new Account(accountNumber, "Loaded", 1.0);
+                Account cached = cache.get(accountNumber, key -> Optional.of(loaded)).orElseThrow();
+                Account previous = evicted.remove(accountNumber);
+                assertSame(expected.computeIfAbsent(accountNumber, key -> previous != null ? previous : loaded),
+                        cached);
+            }
+        }
+        assertEquals(expected.size(), cache.getStats().size());
+    }
+
+    @Test
+    public void testMissingAccountIsNotCached() {
+        AccountCache cache = new AccountCache();
+
+        assertTrue(cache.get("Account-999999", key -> Optional.empty()).isEmpty());
+        assertEquals(0, cache.getStats().size());
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneInstance() throws Exception {
+        AccountCache cache = new AccountCache();
+        String accountNumber = new Account(new Bank(), "Mohammad", 1.0).getAccountNumber();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Account>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    // Every thread loads its own copy, the cache must settle on one of them
+                    return cache.get(accountNumber, key -> Optional.of(new Account(new Bank(), "Copy", 1.0)))
+                            .orElseThrow();
+                }));
+            }
+            start.countDown();
+
+            Account winner = futures.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<Account> future : futures) {
+                assertSame(winner, future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDisabledCacheAlwaysLoads() {
+        AccountCache cache = new AccountCache(false, 10);
+        Account account = new Account(new Bank(), "Mohammad", 1.0);
+
+        cache.get(account.getAccountNumber(), key -> Optional.of(account));
+        cache.get(account.getAccountNumber(), key -> Optional.of(account));
+
+        assertEquals(0, cache.getStats().size());
+        assertEquals(0, cache.getStats().hits());
+    }
+}
@@ -0,0 +1,106 @@
+package com.shahrokhi.bankingsystem.service.concurrency;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.Bank;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountLockManagerTest {
+
+    @Test
+    public void testStripesAreRoundedUpToPowerOfTwo() {
+        assertEquals(8, new AccountLockManager(5).getStripes());
+        assertEquals(16, new AccountLockManager(16).getStripes());
+        assertThrows(IllegalArgumentException.class, () -> new AccountLockManager(0));
+    }
+
+    @Test
+    public void testSameAccountNumberMapsToSameStripe() {
+        AccountLockManager lockManager = new AccountLockManager();
+        Account account = new Account(new Bank(), "Mohammad", 100.0);
+
+        assertEquals(lockManager.stripeOf(account), lockManager.stripeOf(account));
+        assertTrue(lockManager.stripeOf(account) < lockManager.getStripes());
+    }
+
+    @Test
+    public void testDisjointAccountsDoNotBlockEachOther() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager();
+        Bank bank = new Bank();
+        Account first = new Account(bank, "Mohammad", 100.0);
+        Account second = new Account(bank, "Ali", 100.0);
+        Account third = new Account(bank, "Reza", 100.0);
+        Account fourth = new Account(bank, "Sara", 100.0);
+        assertNotEquals(lockManager.stripeOf(first), lockManager.stripeOf(third));
+        assertNotEquals(lockManager.stripeOf(second), lockManager.stripeOf(fourth));
+
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> holder = executor.submit(() -> lockManager.withLocks(first, second, () -> {
+                holding.countDown();
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }));
+            assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+            // A global monitor would park here until the holder is released
+            assertTrue(lockManager.withLocks(third, fourth, () -> true));
+
+            release.countDown();
+            assertTrue(holder.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testOppositeDirectionTransfersDoNotDeadlock() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(4);
+        Bank bank = new Bank();
+        Account first = new Account(bank, "Mohammad", 1000.0);
+        Account second = new Account(bank, "Ali", 1000.0);
+        int iterations = 10_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    lockManager.withLocks(first, second, () -> first.withdraw(1.0) && deposit(second, 1.0));
+                }
+            }));
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    lockManager.withLocks(second, first, () -> second.withdraw(1.0) && deposit(first, 1.0));
+                }
+            }));
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2000.0, first.getBalance() + second.getBalance(), 0.001);
+    }
+
+    private static boolean deposit(Account account, double amount) {
+        account.deposit(amount);
+        return true;
+    }
+}
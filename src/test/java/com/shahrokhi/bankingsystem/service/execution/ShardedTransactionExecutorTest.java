@@ -0,0 +1,112 @@
+package com.shahrokhi.bankingsystem.service.execution;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.AccountNumbers;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedTransactionExecutorTest {
+
+    @Test
+    public void testAccountIsAlwaysHandledByTheSameThread() throws Exception {
+        ShardedTransactionExecutor executor = new ShardedTransactionExecutor(4);
+        try {
+            Account account = account(7);
+            List<CompletableFuture<Thread>> threads = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                threads.add(executor.submit(account, Thread::currentThread));
+            }
+
+            Thread owner = threads.get(0).get(5, TimeUnit.SECONDS);
+            assertTrue(owner.getName().startsWith("transaction-shard-"));
+            for (CompletableFuture<Thread> thread : threads) {
+                assertSame(owner, thread.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConsecutiveAccountsAreSpreadOverShards() {
+        ShardedTransactionExecutor executor = new ShardedTransactionExecutor(4);
+        try {
+            assertEquals(4, executor.getShardCount());
+            assertFalse(executor.isSameShard(account(1), account(2)));
+            assertTrue(executor.isSameShard(account(1), account(5)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testTaskFailureCompletesFutureExceptionally() throws Exception {
+        ShardedTransactionExecutor executor = new ShardedTransactionExecutor(2);
+        try {
+            CompletableFuture<Object> failed = executor.submit(account(1), () -> {
+                throw new IllegalStateException("boom");
+            });
+
+            assertTrue(assertThrows(Exception.class, () -> failed.get(5, TimeUnit.SECONDS)).getCause()
+                    instanceof IllegalStateException);
+            // The shard keeps running after a failed task
+            assertEquals(1, executor.submit(account(1), () -> 1).get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPauseAllHoldsEveryShard() throws Exception {
+        ShardedTransactionExecutor executor = new ShardedTransactionExecutor(4);
+        try {
+            AtomicInteger ran = new AtomicInteger();
+            CountDownLatch submitted = new CountDownLatch(1);
+            List<CompletableFuture<Integer>> tasks = new ArrayList<>();
+            executor.pauseAll(() -> {
+                for (int i = 1; i <= 8; i++) {
+                    tasks.add(executor.submit(account(i), ran::incrementAndGet));
+                }
+                submitted.countDown();
+                sleep(50);
+                assertEquals(0, ran.get());
+                return null;
+            });
+
+            assertTrue(submitted.await(5, TimeUnit.SECONDS));
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+            assertEquals(8, ran.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDisabledExecutorRunsPauseAllDirectly() {
+        ShardedTransactionExecutor executor = new ShardedTransactionExecutor();
+
+        assertFalse(executor.isEnabled());
+        assertEquals(0, executor.getShardCount());
+        assertEquals("done", executor.pauseAll(() -> "done"));
+    }
+
+    private static Account account(long number) {
+        return new Account(AccountNumbers.format(number), "Holder", 0.0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
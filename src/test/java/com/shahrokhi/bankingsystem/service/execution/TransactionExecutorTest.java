@@ -0,0 +1,40 @@
+package com.shahrokhi.bankingsystem.service.execution;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionExecutorTest {
+
+    @Test
+    public void testVirtualModeMatchesRuntime() {
+        TransactionExecutor executor = new TransactionExecutor(ExecutionMode.VIRTUAL, 2);
+        try {
+            ExecutionMode expected = Runtime.version().feature() >= 21 ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM;
+            assertEquals(expected, executor.getMode());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSubmitCompletesOffCallerThread() throws Exception {
+        TransactionExecutor executor = new TransactionExecutor(ExecutionMode.PLATFORM, 2);
+        try {
+            Thread caller = Thread.currentThread();
+            CompletableFuture<Boolean> result = executor.submit(() -> Thread.currentThread() != caller);
+
+            assertTrue(result.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testInvalidPoolSize() {
+        assertThrows(IllegalArgumentException.class, () -> new TransactionExecutor(ExecutionMode.PLATFORM, 0));
+    }
+}
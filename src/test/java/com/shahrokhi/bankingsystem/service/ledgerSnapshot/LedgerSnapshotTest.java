@@ -0,0 +1,59 @@
+package com.shahrokhi.bankingsystem.service.ledgerSnapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        List<AccountSnapshot> accounts = List.of(
+                new AccountSnapshot(1, 1L, "Account-000001", "Mohammad", 10_050),
+                new AccountSnapshot(2, null, "Account-000002", "", 0));
+        Path file = new LedgerSnapshot(42, 1_000, List.of(1L, 2L), accounts).write(directory);
+
+        LedgerSnapshot read = LedgerSnapshot.read(file);
+
+        assertEquals(42, read.getJournalSequence());
+        assertEquals(1_000, read.getCreatedAt());
+        assertEquals(List.of(1L, 2L), read.getBankIds());
+        assertEquals(accounts, read.getAccounts());
+    }
+
+    @Test
+    public void testDamagedSnapshotFallsBackToPreviousOne() throws IOException {
+        new LedgerSnapshot(10, 1_000, List.of(), List.of(
+                new AccountSnapshot(1, null, "Account-000001", "Mohammad", 100))).write(directory);
+        Path newest = new LedgerSnapshot(20, 2_000, List.of(), List.of(
+                new AccountSnapshot(1, null, "Account-000001", "Mohammad", 200))).write(directory);
+        byte[] bytes = Files.readAllBytes(newest);
+        bytes[bytes.length - 12] ^= 1;
+        Files.write(newest, bytes);
+
+        assertThrows(IOException.class, () -> LedgerSnapshot.read(newest));
+        assertEquals(10, LedgerSnapshot.readLatest(directory).orElseThrow().getJournalSequence());
+    }
+
+    @Test
+    public void testPruneKeepsNewestSnapshots() throws IOException {
+        for (long sequence = 1; sequence <= 5; sequence++) {
+            new LedgerSnapshot(sequence, sequence, List.of(), List.of()).write(directory);
+        }
+
+        LedgerSnapshot.prune(directory, 2);
+
+        assertEquals(2, LedgerSnapshot.list(directory).size());
+        assertEquals(5, LedgerSnapshot.readLatest(directory).orElseThrow().getJournalSequence());
+        assertTrue(LedgerSnapshot.readLatest(directory.resolve("missing")).isEmpty());
+    }
+}
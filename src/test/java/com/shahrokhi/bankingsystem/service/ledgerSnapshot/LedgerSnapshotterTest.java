@@ -0,0 +1,205 @@
+package com.shahrokhi.bankingsystem.service.ledgerSnapshot;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.Bank;
+import com.shahrokhi.bankingsystem.repository.AccountRepository;
+import com.shahrokhi.bankingsystem.repository.BankRepository;
+import com.shahrokhi.bankingsystem.repository.NumberBlockRepository;
+import com.shahrokhi.bankingsystem.service.AccountNumberGenerator;
+import com.shahrokhi.bankingsystem.service.AccountService;
+import com.shahrokhi.bankingsystem.service.cache.AccountCache;
+import com.shahrokhi.bankingsystem.service.concurrency.AccountLockManager;
+import com.shahrokhi.bankingsystem.service.execution.ShardedTransactionExecutor;
+import com.shahrokhi.bankingsystem.service.persistence.AccountWriteBehind;
+import com.shahrokhi.bankingsystem.service.transactionJournal.JournalReader;
+import com.shahrokhi.bankingsystem.service.transactionJournal.TransactionJournal;
+import com.shahrokhi.bankingsystem.service.transactionObservation.AccountOpening;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LedgerSnapshotterTest {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BankRepository bankRepository;
+
+    @Autowired
+    private NumberBlockRepository numberBlockRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directory;
+
+    private TransactionJournal journal;
+
+    @BeforeEach
+    public void setUp() {
+        clearDatabase();
+        journal = new TransactionJournal(directory.resolve("journal"), 4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        journal.close();
+        clearDatabase();
+    }
+
+    @Test
+    public void testRecoverReplaysOnlyJournalTail() {
+        Bank bank = bankRepository.save(new Bank());
+        Bank emptyBank = bankRepository.save(new Bank());
+        Account first = new Account("Account-000001", "Mohammad", 100.0);
+        first.setBank(bank);
+        first = accountRepository.save(first);
+        Account second = new Account("Account-000002", "Ali", 0.0);
+        second.setBank(bank);
+        second = accountRepository.save(second);
+
+        // Covered by the snapshot, must not be replayed again
+        first.deposit(50.0);
+        accountRepository.save(first);
+        journal.append(1, TransactionJournal.TYPE_DEPOSIT, 5_000);
+        newSnapshotter().snapshot();
+
+        // Tail written after the snapshot, spanning several journal segments
+        for (int i = 0; i < 6; i++) {
+            journal.append(1, TransactionJournal.TYPE_WITHDRAW, 500);
+            journal.append(2, TransactionJournal.TYPE_DEPOSIT, 500);
+        }
+        clearDatabase();
+
+        assertEquals(2, newSnapshotter().recover());
+
+        assertEquals(120.0, accountRepository.findByAccountNumber("Account-000001").orElseThrow().getBalance(), 0.001);
+        assertEquals(30.0, accountRepository.findByAccountNumber("Account-000002").orElseThrow().getBalance(), 0.001);
+        assertTrue(bankRepository.existsById(emptyBank.getId()));
+
+        // Ids and account numbers continue after the restored rows
+        AccountNumberGenerator generator =
+                new AccountNumberGenerator(numberBlockRepository, accountRepository, transactionManager, 10);
+        Account third = accountRepository.save(new Account(generator.next(), "Reza", 0.0));
+        assertEquals("Account-000003", third.getAccountNumber());
+        assertTrue(third.getId() > second.getId());
+        assertTrue(bankRepository.save(new Bank()).getId() > emptyBank.getId());
+    }
+
+    @Test
+    public void testRecoverSkipsDatabaseWithAccounts() {
+        accountRepository.save(new Account("Account-000001", "Mohammad", 100.0));
+        newSnapshotter().snapshot();
+        journal.append(1, TransactionJournal.TYPE_DEPOSIT, 5_000);
+
+        assertEquals(0, newSnapshotter().recover());
+        assertEquals(100.0, accountRepository.findByAccountNumber("Account-000001").orElseThrow().getBalance(), 0.001);
+    }
+
+    @Test
+    public void testRecoverWithoutSnapshot() {
+        assertEquals(0, newSnapshotter().recover());
+        assertEquals(0, accountRepository.count());
+    }
+
+    @Test
+    public void testRecoverRestoresAccountsOpenedAfterSnapshot() {
+        Bank bank = bankRepository.save(new Bank());
+        Account payer = new Account("Account-000001", "Mohammad", 100.0);
+        payer.setBank(bank);
+        accountRepository.save(payer);
+        newSnapshotter().snapshot();
+
+        journal.onBankCreated(bank.getId() + 1);
+        journal.onAccountOpened(new AccountOpening(1_000L, bank.getId() + 1, "Account-000002", "Ali", 1_000));
+        journal.onTransaction("Account-000001", "Withdraw", 40.0);
+        journal.onTransaction("Account-000002", "Deposit", 40.0);
+        clearDatabase();
+
+        assertEquals(2, newSnapshotter().recover());
+
+        assertEquals(60.0, accountRepository.findByAccountNumber("Account-000001").orElseThrow().getBalance(), 0.001);
+        Account payee = accountRepository.findByAccountNumber("Account-000002").orElseThrow();
+        assertEquals(50.0, payee.getBalance(), 0.001);
+        assertEquals("Ali", payee.getHolderName());
+        assertEquals(bank.getId() + 1, payee.getBankId());
+    }
+
+    @Test
+    public void testSnapshotFoldsJournalWithoutReadingDatabase() throws Exception {
+        accountRepository.save(new Account("Account-000001", "Mohammad", 100.0));
+        LedgerSnapshotter snapshotter = newSnapshotter();
+        snapshotter.snapshot();
+        // Later snapshots are built from the journal alone
+        clearDatabase();
+
+        journal.onTransaction("Account-000001", "Deposit", 10.0);
+        // Used before its opening was published, held back until the opening is journaled
+        journal.onTransaction("Account-000002", "Deposit", 5.0);
+        snapshotter.snapshot();
+        LedgerSnapshot partial = LedgerSnapshot.readLatest(directory.resolve("snapshots")).orElseThrow();
+        assertEquals(1, partial.getJournalSequence());
+        assertEquals(List.of(11_000L), partial.getAccounts().stream().map(AccountSnapshot::balance).toList());
+
+        journal.onAccountOpened(new AccountOpening(2L, null, "Account-000002", "Ali", 100));
+        snapshotter.snapshot();
+        LedgerSnapshot complete = LedgerSnapshot.readLatest(directory.resolve("snapshots")).orElseThrow();
+        assertEquals(journal.lastSequence(), complete.getJournalSequence());
+        assertEquals(List.of(11_000L, 600L), complete.getAccounts().stream().map(AccountSnapshot::balance).toList());
+    }
+
+    @Test
+    public void testSnapshotDeletesJournalBeforeOldestRetainedSnapshot() throws Exception {
+        accountRepository.save(new Account("Account-000001", "Mohammad", 100.0));
+        LedgerSnapshotter snapshotter = newSnapshotter();
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 8; j++) {
+                journal.append(1, TransactionJournal.TYPE_DEPOSIT, 100);
+            }
+            snapshotter.snapshot();
+        }
+
+        // Two snapshots are retained, the older one at sequence 24 needs the journal from 25 on
+        assertEquals(List.of(24L, 32L), LedgerSnapshot.list(directory.resolve("snapshots")).stream()
+                .map(file -> assertDoesNotThrow(() -> LedgerSnapshot.read(file)).getJournalSequence()).toList());
+        long[] first = new long[1];
+        new JournalReader(journal.getDirectory()).scan((sequence, timestamp, accountId, type, amount) -> {
+            first[0] = first[0] == 0 ? sequence : first[0];
+        });
+        assertEquals(25, first[0]);
+    }
+
+    private LedgerSnapshotter newSnapshotter() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AccountService accountService = new AccountService(accountRepository,
+                new AccountWriteBehind(jdbcTemplate, transactionTemplate, false, 500, 50), new AccountCache());
+        return new LedgerSnapshotter(jdbcTemplate, transactionTemplate, accountService, new AccountLockManager(),
+                new ShardedTransactionExecutor(), journal, directory.resolve("snapshots"), 0, 2);
+    }
+
+    private void clearDatabase() {
+        accountRepository.deleteAll();
+        bankRepository.deleteAll();
+        numberBlockRepository.deleteAll();
+    }
+}
@@ -0,0 +1,48 @@
+package com.shahrokhi.bankingsystem.service.loadGeneration;
+
+import com.shahrokhi.bankingsystem.service.metrics.TransactionOperation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "bank.console.enabled=false")
+public class LoadGeneratorTest {
+
+    @Autowired
+    private LoadGenerator loadGenerator;
+
+    @Test
+    public void testShortRunConservesMoney() throws Exception {
+        LoadProfile profile = new LoadProfile(2, 20, 4, Duration.ofMillis(500), 1, 1, 1, 1.0, 10.0, 5.0,
+                Duration.ofMillis(200), 1);
+
+        LoadReport report = loadGenerator.run(profile);
+
+        assertTrue(report.moneyCheck().conserved(), report.moneyCheck().toString());
+        assertEquals(3, report.operations().size());
+        for (TransactionOperation operation : report.operations().keySet()) {
+            OperationReport result = report.operations().get(operation);
+            assertTrue(result.succeeded() > 0, operation + " never succeeded");
+            assertEquals(0, result.failed());
+            assertEquals(result.total(), result.latency().count());
+        }
+        assertTrue(report.throughputPerSecond() > 0);
+    }
+
+    @Test
+    public void testInvalidProfiles() {
+        Duration second = Duration.ofSeconds(1);
+        assertThrows(IllegalArgumentException.class,
+                () -> new LoadProfile(1, 1, 1, second, 0, 0, 1, 1.0, 10.0, 1.0, second, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LoadProfile(1, 10, 1, second, 0, 0, 0, 1.0, 10.0, 1.0, second, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LoadProfile(1, 10, 0, second, 1, 1, 1, 1.0, 10.0, 1.0, second, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LoadProfile(1, 10, 1, Duration.ZERO, 1, 1, 1, 1.0, 10.0, 1.0, second, 1));
+    }
+}
@@ -0,0 +1,53 @@
+package com.shahrokhi.bankingsystem.service.loadGeneration;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZipfDistributionTest {
+
+    @Test
+    public void testLowRanksAreDrawnMostOften() {
+        ZipfDistribution distribution = new ZipfDistribution(1_000, 1.0);
+        int[] counts = draw(distribution, 100_000);
+
+        assertTrue(counts[0] > counts[1]);
+        assertTrue(counts[1] > counts[9]);
+        // Rank 0 has a weight of 1 out of the 1000th harmonic number, about 7.5
+        assertEquals(100_000 / 7.485, counts[0], 1_000);
+    }
+
+    @Test
+    public void testExponentZeroIsUniform() {
+        ZipfDistribution distribution = new ZipfDistribution(10, 0.0);
+        int[] counts = draw(distribution, 100_000);
+
+        for (int count : counts) {
+            assertEquals(10_000, count, 600);
+        }
+    }
+
+    @Test
+    public void testSingleRank() {
+        ZipfDistribution distribution = new ZipfDistribution(1, 2.0);
+
+        assertEquals(100, draw(distribution, 100)[0]);
+    }
+
+    @Test
+    public void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new ZipfDistribution(0, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new ZipfDistribution(10, -0.5));
+    }
+
+    private static int[] draw(ZipfDistribution distribution, int draws) {
+        SplittableRandom random = new SplittableRandom(7);
+        int[] counts = new int[distribution.size()];
+        for (int i = 0; i < draws; i++) {
+            counts[distribution.next(random)]++;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,42 @@
+package com.shahrokhi.bankingsystem.service.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketBoundsCoverEveryValue() {
+        long[] values = {0, 1, 15, 16, 17, 31, 32, 1_000, 123_456_789, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.highestValueOf(index) >= value, "upper bound of " + value);
+            assertTrue(index == 0 || LatencyHistogram.highestValueOf(index - 1) < value, "lower bound of " + value);
+        }
+    }
+
+    @Test
+    public void testPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.count());
+        assertEquals(10_000_000, snapshot.maxNanos());
+        assertEquals(5_000_500, snapshot.meanNanos(), 0.001);
+        assertEquals(5_000_000, snapshot.p50Nanos(), 5_000_000 / 16.0);
+        assertEquals(9_900_000, snapshot.p99Nanos(), 9_900_000 / 16.0);
+        assertEquals(9_990_000, snapshot.p999Nanos(), 9_990_000 / 16.0);
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.p999Nanos());
+    }
+}
@@ -0,0 +1,84 @@
+package com.shahrokhi.bankingsystem.service.netting;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.Bank;
+import com.shahrokhi.bankingsystem.service.TransferResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NettingBatchTest {
+
+    @Test
+    public void testTransfersAreDecidedInOrderAgainstRunningBalances() {
+        Bank bank = new Bank();
+        Account first = new Account(bank, "Mohammad", 10.0);
+        Account second = new Account(bank, "Ali", 0.0);
+
+        NettingBatch batch = new NettingBatch(List.of(
+                new TransferInstruction(second, first, 5.0),
+                new TransferInstruction(first, second, 10.0),
+                new TransferInstruction(second, first, 5.0),
+                new TransferInstruction(first, second, 20.0)));
+        List<TransferResult> results = batch.net();
+
+        // Ali has nothing to send at first, every later transfer sees the balances left by the ones before it
+        assertFalse(results.get(0).success());
+        assertTrue(results.get(1).success());
+        assertEquals(0.0, results.get(1).fromBalance(), 0.001);
+        assertEquals(10.0, results.get(1).toBalance(), 0.001);
+        assertTrue(results.get(2).success());
+        assertEquals(5.0, results.get(2).fromBalance(), 0.001);
+        assertFalse(results.get(3).success());
+        assertEquals(10.0, first.getBalance(), 0.001, "net() must not touch the accounts");
+    }
+
+    @Test
+    public void testApplyChangesEachAccountOnceByItsNetDelta() {
+        Bank bank = new Bank();
+        Account first = new Account(bank, "Mohammad", 100.0);
+        Account second = new Account(bank, "Ali", 100.0);
+        Account third = new Account(bank, "Reza", 100.0);
+
+        NettingBatch batch = new NettingBatch(List.of(
+                new TransferInstruction(first, second, 30.0),
+                new TransferInstruction(second, third, 30.0),
+                new TransferInstruction(third, first, 10.0),
+                new TransferInstruction(second, first, 0.5)));
+        batch.net();
+        List<Account> changed = batch.apply();
+
+        assertEquals(80.5, first.getBalance(), 0.001);
+        // Received and paid 30, only the half unit it sent back changes the balance
+        assertEquals(99.5, second.getBalance(), 0.001);
+        assertEquals(120.0, third.getBalance(), 0.001);
+        assertEquals(List.of(first, second, third), changed);
+    }
+
+    @Test
+    public void testAccountsWithoutNetChangeAreNotReported() {
+        Bank bank = new Bank();
+        Account first = new Account(bank, "Mohammad", 100.0);
+        Account second = new Account(bank, "Ali", 100.0);
+
+        NettingBatch batch = new NettingBatch(List.of(
+                new TransferInstruction(first, second, 40.0),
+                new TransferInstruction(second, first, 40.0)));
+        batch.net();
+
+        assertTrue(batch.apply().isEmpty());
+        assertEquals(2, batch.getAccounts().size());
+        assertTrue(batch.isSettled(0));
+        assertTrue(batch.isSettled(1));
+    }
+
+    @Test
+    public void testApplyRequiresNet() {
+        Account account = new Account(new Bank(), "Mohammad", 100.0);
+        NettingBatch batch = new NettingBatch(List.of(new TransferInstruction(account, account, 1.0)));
+
+        assertThrows(IllegalStateException.class, batch::apply);
+    }
+}
@@ -0,0 +1,112 @@
+package com.shahrokhi.bankingsystem.service.offHeap;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.AccountNumbers;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapAccountStoreTest {
+
+    @Test
+    public void testFirstInstanceFillsTheSlot() {
+        OffHeapAccountStore store = new OffHeapAccountStore(true, 1_000_000);
+        Account first = new Account(AccountNumbers.format(42), "Holder", 100.0);
+        Account stale = new Account(AccountNumbers.format(42), "Holder", 1.0);
+
+        assertTrue(store.bind(first));
+        first.deposit(25.0);
+        assertTrue(store.bind(stale));
+
+        assertTrue(stale.isOffHeap());
+        assertEquals(125.0, stale.getBalance());
+        assertTrue(stale.withdraw(125.0));
+        assertEquals(0, first.getBalanceMinorUnits());
+
+        OffHeapAccountStore.OffHeapStats stats = store.getStats();
+        assertEquals(1, stats.accounts());
+        // Only the slab holding sequence 42 has been allocated
+        assertEquals(1, stats.slabs());
+        assertEquals((long) OffHeapAccountStore.SLAB_SLOTS * OffHeapAccountStore.SLOT_BYTES, stats.bytes());
+    }
+
+    @Test
+    public void testAccountsWithoutSlotStayOnHeap() {
+        OffHeapAccountStore store = new OffHeapAccountStore(true, 100);
+
+        Account foreign = new Account("Merchant-1", "Holder", 10.0);
+        Account beyondCapacity = new Account(AccountNumbers.format(100), "Holder", 10.0);
+        assertFalse(store.bind(foreign));
+        assertFalse(store.bind(beyondCapacity));
+        assertFalse(new OffHeapAccountStore().bind(new Account(AccountNumbers.format(1), "Holder", 10.0)));
+
+        assertFalse(foreign.isOffHeap());
+        foreign.deposit(5.0);
+        assertEquals(15.0, foreign.getBalance());
+        assertEquals(2, store.getStats().unindexed());
+        assertEquals(0, store.getStats().slabs());
+    }
+
+    @Test
+    public void testSlotsOfAdjacentAccountsAreIndependent() {
+        OffHeapAccountStore store = new OffHeapAccountStore(true, 1_000_000);
+        int slab = OffHeapAccountStore.SLAB_SLOTS;
+        Account[] accounts = {
+                new Account(AccountNumbers.format(slab - 1), "Last of first slab", 1.0),
+                new Account(AccountNumbers.format(slab), "First of second slab", 2.0),
+                new Account(AccountNumbers.format(slab + 1), "Second of second slab", 3.0)};
+        for (Account account : accounts) {
+            store.bind(account);
+        }
+        accounts[1].withdraw(2.0);
+        accounts[1].refresh(700, 1);
+
+        assertEquals(100, accounts[0].getBalanceMinorUnits());
+        assertEquals(700, accounts[1].getBalanceMinorUnits());
+        assertEquals(300, accounts[2].getBalanceMinorUnits());
+        assertEquals(2, store.getStats().slabs());
+    }
+
+    @Test
+    public void testConcurrentInstancesOfOneAccountShareTheBalance() throws Exception {
+        OffHeapAccountStore store = new OffHeapAccountStore(true, 1_000);
+        int threads = 8;
+        AtomicInteger withdrawals = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    // Every thread loads its own instance, as after cache evictions
+                    Account account = new Account(AccountNumbers.format(7), "Holder", 10.0);
+                    store.bind(account);
+                    for (int i = 0; i < 1_000; i++) {
+                        account.deposit(1.0);
+                        if (account.withdraw(1.5)) {
+                            withdrawals.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Account account = new Account(AccountNumbers.format(7), "Holder", 0.0);
+        store.bind(account);
+        assertEquals(1_000 + threads * 1_000 * 100L - withdrawals.get() * 150L, account.getBalanceMinorUnits());
+        assertTrue(account.getBalanceMinorUnits() >= 0);
+    }
+}
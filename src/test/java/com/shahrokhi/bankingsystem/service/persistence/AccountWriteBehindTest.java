@@ -0,0 +1,90 @@
+package com.shahrokhi.bankingsystem.service.persistence;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.model.Bank;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AccountWriteBehindTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AccountWriteBehind writeBehind;
+
+    @BeforeEach
+    public void setUp() {
+        // Long interval, flushes in these tests are triggered explicitly
+        writeBehind = new AccountWriteBehind(jdbcTemplate, new TransactionTemplate(transactionManager),
+                true, 1_000, 60_000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        writeBehind.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testHotAccountIsCoalescedIntoOneUpdate() {
+        Account account = persistedAccount(1L, 0.0);
+        for (int i = 0; i < 1000; i++) {
+            account.deposit(1.0);
+            writeBehind.markDirty(account);
+        }
+
+        assertEquals(1, writeBehind.flush());
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(AccountWriteBehind.UPDATE_BALANCE_SQL), batch.capture());
+        assertEquals(1, batch.getValue().size());
+        assertArrayEquals(new Object[]{100_000L, 1L}, batch.getValue().get(0));
+        assertEquals(0, writeBehind.getDirtyCount());
+    }
+
+    @Test
+    public void testFlushWithNothingDirty() {
+        assertEquals(0, writeBehind.flush());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void testFailedFlushKeepsAccountsDirty() {
+        writeBehind.markDirty(persistedAccount(1L, 10.0));
+        writeBehind.markDirty(persistedAccount(2L, 20.0));
+        when(jdbcTemplate.batchUpdate(eq(AccountWriteBehind.UPDATE_BALANCE_SQL), anyList()))
+                .thenThrow(new IllegalStateException("database down"));
+
+        assertThrows(IllegalStateException.class, () -> writeBehind.flush());
+        assertEquals(2, writeBehind.getDirtyCount());
+
+        reset(jdbcTemplate);
+        assertEquals(2, writeBehind.flush());
+    }
+
+    private static Account persistedAccount(Long id, double balance) {
+        Account account = new Account(new Bank(), "Mohammad", balance);
+        ReflectionTestUtils.setField(account, "id", id);
+        return account;
+    }
+}
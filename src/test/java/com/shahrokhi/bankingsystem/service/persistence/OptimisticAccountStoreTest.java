@@ -0,0 +1,225 @@
+package com.shahrokhi.bankingsystem.service.persistence;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.service.concurrency.AccountLockManager;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two store instances share one H2 file database, the way two application instances would
+public class OptimisticAccountStoreTest {
+    private static final int THREADS_PER_INSTANCE = 4;
+
+    @TempDir
+    Path directory;
+
+    private Instance first;
+    private Instance second;
+
+    @BeforeEach
+    public void setUp() {
+        String url = "jdbc:h2:file:" + directory.resolve("bank_db").toAbsolutePath();
+        first = new Instance(url, 16);
+        second = new Instance(url, 16);
+        first.jdbcTemplate.execute("CREATE TABLE account (id BIGINT PRIMARY KEY, balance BIGINT NOT NULL, "
+                + "version BIGINT NOT NULL)");
+        first.jdbcTemplate.update("INSERT INTO account (id, balance, version) VALUES (1, 0, 0), (2, 0, 0)");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void testConcurrentDepositsFromTwoInstancesAreNotLost() throws Exception {
+        int depositsPerThread = 250;
+        runOnBothInstances(instance -> {
+            Account account = instance.account(1);
+            for (int i = 0; i < depositsPerThread; i++) {
+                instance.locks.withLock(account, () -> instance.store.deposit(account, 100));
+            }
+        });
+
+        int deposits = 2 * THREADS_PER_INSTANCE * depositsPerThread;
+        assertEquals(deposits * 100L, balanceOf(1));
+        assertEquals(deposits, versionOf(1));
+        assertEquals(deposits, first.store.getStats().commits() + second.store.getStats().commits());
+    }
+
+    @Test
+    public void testConcurrentWithdrawalsNeverOverdraw() throws Exception {
+        first.jdbcTemplate.update("UPDATE account SET balance = 1000 WHERE id = 1");
+        AtomicInteger succeeded = new AtomicInteger();
+        runOnBothInstances(instance -> {
+            Account account = instance.account(1);
+            for (int i = 0; i < 300; i++) {
+                if (instance.locks.withLock(account, () -> instance.store.withdraw(account, 1))) {
+                    succeeded.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(1000, succeeded.get());
+        assertEquals(0, balanceOf(1));
+    }
+
+    @Test
+    public void testConcurrentTransfersKeepTheTotal() throws Exception {
+        first.jdbcTemplate.update("UPDATE account SET balance = 10000");
+        runOnBothInstances(instance -> {
+            Account one = instance.account(1);
+            Account two = instance.account(2);
+            for (int i = 0; i < 200; i++) {
+                // Opposite directions on the two instances
+                Account from = instance == first ? one : two;
+                Account to = instance == first ? two : one;
+                instance.locks.withLocks(from, to, () -> instance.store.transfer(from, to, 7));
+            }
+        });
+
+        assertEquals(20000, balanceOf(1) + balanceOf(2));
+        assertEquals(10000, balanceOf(1));
+    }
+
+    @Test
+    public void testStaleBalanceIsReloadedBeforeRefusingWithdrawal() {
+        Account stale = first.account(1);
+        Account current = second.account(1);
+        second.store.deposit(current, 500);
+
+        assertEquals(0, stale.getBalanceMinorUnits());
+        assertTrue(first.store.withdraw(stale, 200));
+        assertEquals(300, balanceOf(1));
+        assertEquals(300, stale.getBalanceMinorUnits());
+        assertEquals(2, stale.getVersion());
+    }
+
+    @Test
+    public void testWithdrawalIsRefusedOnFreshBalance() {
+        Account account = first.account(1);
+        second.store.deposit(second.account(1), 50);
+
+        assertFalse(first.store.withdraw(account, 100));
+        assertEquals(50, balanceOf(1));
+        assertEquals(50, account.getBalanceMinorUnits());
+    }
+
+    @Test
+    public void testGivesUpAfterMaxRetries() {
+        Instance impatient = new Instance("jdbc:h2:file:" + directory.resolve("bank_db").toAbsolutePath(), 0);
+        try {
+            Account stale = impatient.account(1);
+            second.store.deposit(second.account(1), 500);
+
+            assertThrows(OptimisticLockingFailureException.class, () -> impatient.store.deposit(stale, 100));
+            assertEquals(500, balanceOf(1));
+            assertEquals(1, impatient.store.getStats().exhausted());
+        } finally {
+            impatient.close();
+        }
+    }
+
+    @Test
+    public void testConflictingTransferRollsBackBothAccounts() {
+        Instance impatient = new Instance("jdbc:h2:file:" + directory.resolve("bank_db").toAbsolutePath(), 0);
+        try {
+            first.jdbcTemplate.update("UPDATE account SET balance = 1000 WHERE id = 1");
+            Account from = impatient.account(1);
+            Account to = impatient.account(2);
+            // The payee changes behind the impatient instance's back, its update matches no row
+            second.store.deposit(second.account(2), 10);
+
+            assertThrows(OptimisticLockingFailureException.class, () -> impatient.store.transfer(from, to, 100));
+            assertEquals(1000, balanceOf(1));
+            assertEquals(10, balanceOf(2));
+        } finally {
+            impatient.close();
+        }
+    }
+
+    private void runOnBothInstances(InstanceTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2 * THREADS_PER_INSTANCE);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Instance instance : List.of(first, second)) {
+                for (int i = 0; i < THREADS_PER_INSTANCE; i++) {
+                    futures.add(executor.submit(() -> {
+                        task.run(instance);
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long balanceOf(long id) {
+        return first.jdbcTemplate.queryForObject("SELECT balance FROM account WHERE id = ?", Long.class, id);
+    }
+
+    private long versionOf(long id) {
+        return first.jdbcTemplate.queryForObject("SELECT version FROM account WHERE id = ?", Long.class, id);
+    }
+
+    private interface InstanceTask {
+        void run(Instance instance) throws Exception;
+    }
+
+    // Accounts are kept once loaded, like the account cache does, so they go stale as the other instance writes
+    private static final class Instance implements AutoCloseable {
+        final HikariDataSource dataSource = new HikariDataSource();
+        final JdbcTemplate jdbcTemplate;
+        final OptimisticAccountStore store;
+        final AccountLockManager locks = new AccountLockManager();
+        private final Account[] accounts = new Account[3];
+
+        Instance(String url, int maxRetries) {
+            dataSource.setJdbcUrl(url);
+            dataSource.setMaximumPoolSize(THREADS_PER_INSTANCE);
+            jdbcTemplate = new JdbcTemplate(dataSource);
+            store = new OptimisticAccountStore(jdbcTemplate,
+                    new TransactionTemplate(new DataSourceTransactionManager(dataSource)), true, maxRetries, 1, 5);
+        }
+
+        synchronized Account account(int id) {
+            if (accounts[id] == null) {
+                Account account = new Account(String.format("Account-%06d", id), "Holder", 0.0);
+                ReflectionTestUtils.setField(account, "id", (long) id);
+                jdbcTemplate.query(OptimisticAccountStore.SELECT_SQL, resultSet -> {
+                    account.refresh(resultSet.getLong("balance"), resultSet.getLong("version"));
+                }, id);
+                accounts[id] = account;
+            }
+            return accounts[id];
+        }
+
+        @Override
+        public void close() {
+            dataSource.close();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.shahrokhi.bankingsystem.service.transactionHistory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class TransactionHistoryTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionHistoryRecorder recorder;
+    private StatementService statementService;
+
+    @BeforeEach
+    public void setUp() {
+        // Long interval, only full batches and explicit flushes write in these tests
+        recorder = new TransactionHistoryRecorder(jdbcTemplate, new TransactionTemplate(transactionManager),
+                100, 60_000, 10_000);
+        statementService = new StatementService(jdbcTemplate, transactionManager);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        recorder.shutdown();
+        jdbcTemplate.update("DELETE FROM transaction_history");
+    }
+
+    @Test
+    public void testRowsAreWrittenInBatches() {
+        for (int i = 0; i < 250; i++) {
+            recorder.onTransaction("Account-000001", "Deposit", 1.0);
+        }
+
+        assertEquals(200, countRows());
+        assertEquals(50, recorder.getPendingCount());
+        assertEquals(50, recorder.flush());
+        assertEquals(250, countRows());
+    }
+
+    @Test
+    public void testPendingRowsAreBoundedWhileDatabaseFails() {
+        JdbcTemplate failingJdbcTemplate = mock(JdbcTemplate.class);
+        when(failingJdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("Database is down"));
+        TransactionHistoryRecorder failing = new TransactionHistoryRecorder(failingJdbcTemplate,
+                new TransactionTemplate(transactionManager), 10, 60_000, 25);
+
+        for (int i = 0; i < 100; i++) {
+            failing.onTransaction("Account-000001", "Deposit", 1.0);
+        }
+
+        assertEquals(25, failing.getPendingCount());
+        assertEquals(75, failing.getDroppedCount());
+        // Only the first full batch was tried on the publishing thread
+        verify(failingJdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        assertThrows(DataAccessResourceFailureException.class, failing::shutdown);
+    }
+
+    @Test
+    public void testKeysetPagesCoverTheStatementInOrder() {
+        for (int i = 1; i <= 1_050; i++) {
+            recorder.onTransaction("Account-000001", i % 2 == 0 ? "Withdraw" : "Deposit", i / 100.0);
+            recorder.onTransaction("Account-000002", "Deposit", 1.0);
+        }
+        recorder.flush();
+
+        List<StatementEntry> read = new ArrayList<>();
+        long after = 0;
+        int pages = 0;
+        while (true) {
+            StatementPage page = statementService.page("Account-000001", after, 250);
+            read.addAll(page.entries());
+            pages++;
+            if (page.nextCursor() == null) {
+                break;
+            }
+            after = page.nextCursor();
+        }
+
+        assertEquals(5, pages);
+        assertEquals(1_050, read.size());
+        for (int i = 0; i < read.size(); i++) {
+            StatementEntry entry = read.get(i);
+            assertEquals("Account-000001", entry.accountNumber());
+            assertEquals((i + 1) / 100.0, entry.amount(), 0.001);
+            if (i > 0) {
+                assertTrue(entry.id() > read.get(i - 1).id());
+            }
+        }
+    }
+
+    @Test
+    public void testLastFullPageHasNoCursor() {
+        for (int i = 0; i < 10; i++) {
+            recorder.onTransaction("Account-000001", "Deposit", 1.0);
+        }
+        recorder.flush();
+
+        StatementPage page = statementService.page("Account-000001", 0, 10);
+
+        assertEquals(10, page.entries().size());
+        assertNull(page.nextCursor());
+        assertTrue(statementService.page("Account-000001", page.entries().get(9).id(), 10).entries().isEmpty());
+    }
+
+    @Test
+    public void testPageSizeIsBounded() {
+        assertThrows(IllegalArgumentException.class, () -> statementService.page("Account-000001", 0, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> statementService.page("Account-000001", 0, StatementService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    public void testCsvExport() {
+        recorder.onTransaction("Account-000001", "Deposit", 12_345_678.9);
+        recorder.onTransaction("Account-000002", "Deposit", 5.0);
+        recorder.onTransaction("Account-000001", "Withdraw", 0.1);
+        recorder.flush();
+        StringWriter out = new StringWriter();
+
+        assertEquals(2, statementService.exportCsv("Account-000001", out));
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(StatementService.CSV_HEADER.trim(), lines[0]);
+        assertTrue(lines[1].matches("\\d+,Account-000001,Deposit,12345678.90,\\d{4}-.*Z"), lines[1]);
+        assertTrue(lines[2].matches("\\d+,Account-000001,Withdraw,0.10,\\d{4}-.*Z"), lines[2]);
+    }
+
+    private long countRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction_history", Long.class);
+    }
+}
@@ -0,0 +1,138 @@
+package com.shahrokhi.bankingsystem.service.transactionJournal;
+
+import com.shahrokhi.bankingsystem.service.transactionObservation.AccountOpening;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRecordsRoundTrip() throws Exception {
+        try (TransactionJournal journal = new TransactionJournal(tempDir, 16)) {
+            journal.onTransaction("Account-000042", "Deposit", 100.25);
+            journal.onTransaction("Account-000042", "Withdraw", 0.25);
+        }
+
+        List<long[]> records = new ArrayList<>();
+        long count = new JournalReader(tempDir).scan((sequence, timestamp, accountId, type, amount) ->
+                records.add(new long[]{sequence, accountId, type, amount}));
+
+        assertEquals(2, count);
+        assertArrayEquals(new long[]{1, 42, TransactionJournal.TYPE_DEPOSIT, 10_025}, records.get(0));
+        assertArrayEquals(new long[]{2, 42, TransactionJournal.TYPE_WITHDRAW, 25}, records.get(1));
+    }
+
+    @Test
+    public void testRolloverAndRecovery() throws Exception {
+        try (TransactionJournal journal = new TransactionJournal(tempDir, 4)) {
+            for (int i = 1; i <= 10; i++) {
+                journal.append(i, TransactionJournal.TYPE_DEPOSIT, i * 100L);
+            }
+        }
+        assertEquals(3, JournalSegment.list(tempDir).size());
+
+        try (TransactionJournal journal = new TransactionJournal(tempDir, 4)) {
+            assertEquals(10, journal.lastSequence());
+            assertEquals(11, journal.append(11, TransactionJournal.TYPE_WITHDRAW, 1100));
+        }
+
+        JournalReader reader = new JournalReader(tempDir);
+        assertEquals(11, reader.lastSequence());
+
+        long[] sum = new long[1];
+        assertEquals(11, reader.scan((sequence, timestamp, accountId, type, amount) -> {
+            assertEquals(sequence, accountId);
+            sum[0] += amount;
+        }));
+        assertEquals(6600, sum[0]);
+    }
+
+    @Test
+    public void testReplayRangeAcrossSegments() throws Exception {
+        try (TransactionJournal journal = new TransactionJournal(tempDir, 4)) {
+            for (int i = 1; i <= 20; i++) {
+                journal.append(i, TransactionJournal.TYPE_DEPOSIT, 1);
+            }
+        }
+
+        List<Long> sequences = new ArrayList<>();
+        long count = new JournalReader(tempDir).replay(6, 13,
+                (sequence, timestamp, accountId, type, amount) -> sequences.add(sequence));
+
+        assertEquals(8, count);
+        assertEquals(List.of(6L, 7L, 8L, 9L, 10L, 11L, 12L, 13L), sequences);
+    }
+
+    @Test
+    public void testLedgerReplayReassemblesOpenings() throws Exception {
+        try (TransactionJournal journal = new TransactionJournal(tempDir, 4)) {
+            journal.onBankCreated(7);
+            journal.onAccountOpened(new AccountOpening(3L, 7L, "Account-000042", "Mohammad Shahrokhi", 10_000));
+            journal.onTransaction("Account-000042", "Withdraw", 1.5);
+            journal.onAccountOpened(new AccountOpening(4L, null, "Account-000043", null, 0));
+        }
+
+        List<String> changes = new ArrayList<>();
+        new JournalReader(tempDir).replayLedger(1, Long.MAX_VALUE, new LedgerRecordHandler() {
+            @Override
+            public void onBalanceChange(long sequence, long accountId, byte type, long amount) {
+                changes.add(TransactionJournal.typeName(type) + " " + accountId + " " + amount);
+            }
+
+            @Override
+            public void onBankCreated(long sequence, long bankId) {
+                changes.add("Bank " + bankId);
+            }
+
+            @Override
+            public void onAccountOpened(long sequence, AccountOpening opening) {
+                changes.add(opening.toString());
+            }
+        });
+
+        assertEquals(List.of("Bank 7",
+                new AccountOpening(3L, 7L, "Account-000042", "Mohammad Shahrokhi", 10_000).toString(),
+                "Withdraw 42 150",
+                new AccountOpening(4L, null, "Account-000043", "", 0).toString()), changes);
+    }
+
+    @Test
+    public void testDeleteSegmentsBefore() throws Exception {
+        try (TransactionJournal journal = new TransactionJournal(tempDir, 4)) {
+            for (int i = 1; i <= 10; i++) {
+                journal.append(i, TransactionJournal.TYPE_DEPOSIT, 100);
+            }
+            // Segments start at 1, 5 and 9, the one holding sequence 6 has to stay
+            assertEquals(1, journal.deleteSegmentsBefore(6));
+            assertEquals(0, journal.deleteSegmentsBefore(8));
+            assertEquals(1, journal.deleteSegmentsBefore(Long.MAX_VALUE));
+            assertEquals(List.of(9L),
+                    JournalSegment.list(tempDir).stream().map(JournalSegment::firstSequenceOf).toList());
+        }
+    }
+
+    @Test
+    public void testEmptyJournal() throws Exception {
+        assertEquals(0, new JournalReader(tempDir.resolve("missing")).lastSequence());
+        try (TransactionJournal journal = new TransactionJournal(tempDir, 4)) {
+            assertEquals(0, journal.lastSequence());
+        }
+        assertEquals(0, new JournalReader(tempDir).scan((sequence, timestamp, accountId, type, amount) -> fail()));
+    }
+
+    @Test
+    public void testSegmentMustFitOneMappedBuffer() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransactionJournal(tempDir, JournalSegment.MAX_RECORDS + 1));
+        assertThrows(IllegalArgumentException.class, () -> new TransactionJournal(tempDir, 0));
+    }
+}
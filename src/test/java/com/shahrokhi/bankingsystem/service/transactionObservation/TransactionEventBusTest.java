@@ -0,0 +1,276 @@
+package com.shahrokhi.bankingsystem.service.transactionObservation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionEventBusTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    private TransactionEventBus bus;
+
+    @AfterEach
+    public void tearDown() {
+        if (bus != null) {
+            bus.shutdown();
+        }
+    }
+
+    @Test
+    public void testSlowObserverDoesNotDelayPublisher() {
+        bus = new TransactionEventBus(1024, OverflowPolicy.BLOCK, spillDirectory);
+        RecordingObserver slow = new RecordingObserver(new CountDownLatch(1));
+        bus.subscribe(slow);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            bus.publish("Account-" + i, "Deposit", i);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue(elapsed < TimeUnit.SECONDS.toNanos(1), "Publishing waited for the observer");
+        assertEquals(100, bus.getStats().get(0).lag());
+        slow.release.countDown();
+        bus.shutdown();
+        assertEquals(expectedAccounts(100), slow.accounts);
+    }
+
+    @Test
+    public void testDropPolicyDiscardsWhenQueueIsFull() throws Exception {
+        bus = new TransactionEventBus(2, OverflowPolicy.DROP, spillDirectory);
+        RecordingObserver blocked = new RecordingObserver(new CountDownLatch(1));
+        bus.subscribe(blocked);
+
+        // The first event is taken off the queue and blocks the delivery thread
+        bus.publish("Account-0", "Deposit", 0);
+        waitForEmptyQueue();
+        for (int i = 1; i < 10; i++) {
+            bus.publish("Account-" + i, "Deposit", i);
+        }
+        ObserverStats stats = bus.getStats().get(0);
+        blocked.release.countDown();
+
+        assertEquals(10, stats.published());
+        // One event is being delivered, two wait in the queue
+        assertEquals(7, stats.dropped());
+        assertEquals(0, stats.spilled());
+    }
+
+    @Test
+    public void testSpillPolicyKeepsEveryEventInOrder() throws Exception {
+        bus = new TransactionEventBus(4, OverflowPolicy.SPILL, spillDirectory);
+        RecordingObserver blocked = new RecordingObserver(new CountDownLatch(1));
+        bus.subscribe(blocked);
+
+        for (int i = 0; i < 1_000; i++) {
+            bus.publish("Account-" + i, "Deposit", i);
+        }
+        ObserverStats stats = bus.getStats().get(0);
+        assertTrue(stats.spilled() > 900, "Spilled " + stats.spilled());
+        assertEquals(1, countFiles(spillDirectory));
+
+        blocked.release.countDown();
+        bus.shutdown();
+
+        assertEquals(expectedAccounts(1_000), blocked.accounts);
+        assertEquals(0, countFiles(spillDirectory));
+    }
+
+    @Test
+    public void testSpillPolicyRecoversAfterCatchingUp() throws Exception {
+        bus = new TransactionEventBus(2, OverflowPolicy.SPILL, spillDirectory);
+        RecordingObserver blocked = new RecordingObserver(new CountDownLatch(1));
+        bus.subscribe(blocked);
+        for (int i = 0; i < 50; i++) {
+            bus.publish("Account-" + i, "Deposit", i);
+        }
+        blocked.release.countDown();
+        waitForDelivery(blocked, 50);
+
+        // Back on the queue once the spill file has been read back
+        for (int i = 50; i < 60; i++) {
+            bus.publish("Account-" + i, "Deposit", i);
+        }
+        bus.shutdown();
+
+        assertEquals(expectedAccounts(60), blocked.accounts);
+    }
+
+    @Test
+    public void testUnreadableSpillFileIsDroppedAndDeliveryGoesOn() throws Exception {
+        bus = new TransactionEventBus(2, OverflowPolicy.SPILL, spillDirectory);
+        RecordingObserver blocked = new RecordingObserver(new CountDownLatch(1));
+        bus.subscribe(blocked);
+        bus.publish("Account-0", "Deposit", 0);
+        waitForEmptyQueue();
+        for (int i = 1; i < 50; i++) {
+            bus.publish("Account-" + i, "Deposit", i);
+        }
+        Path spillFile;
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            spillFile = files.findFirst().orElseThrow();
+        }
+        Files.write(spillFile, new byte[(int) Files.size(spillFile)]);
+
+        blocked.release.countDown();
+        waitForDelivery(blocked, 3);
+        // Publishing again before the spill file was given up would add to it
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bus.getStats().get(0).lag() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        for (int i = 50; i < 60; i++) {
+            bus.publish("Account-" + i, "Deposit", i);
+        }
+        waitForDelivery(blocked, 13);
+
+        ObserverStats stats = bus.getStats().get(0);
+        assertEquals(47, stats.dropped());
+        assertEquals(0, stats.lag());
+        assertEquals(List.of("Account-0", "Account-1", "Account-2"), blocked.accounts.subList(0, 3));
+        assertEquals(expectedAccounts(60).subList(50, 60), blocked.accounts.subList(3, 13));
+    }
+
+    @Test
+    public void testBlockPolicyWaitsForRoom() throws Exception {
+        bus = new TransactionEventBus(1, OverflowPolicy.BLOCK, spillDirectory);
+        RecordingObserver blocked = new RecordingObserver(new CountDownLatch(1));
+        bus.subscribe(blocked);
+
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> publishing = producer.submit(() -> {
+                for (int i = 0; i < 10; i++) {
+                    bus.publish("Account-" + i, "Deposit", i);
+                }
+            });
+            Thread.sleep(100);
+            assertFalse(publishing.isDone());
+
+            blocked.release.countDown();
+            publishing.get(5, TimeUnit.SECONDS);
+        } finally {
+            producer.shutdownNow();
+        }
+        bus.shutdown();
+        assertEquals(expectedAccounts(10), blocked.accounts);
+    }
+
+    @Test
+    public void testSynchronousObserverRunsOnPublishingThread() {
+        bus = new TransactionEventBus(16, OverflowPolicy.BLOCK, spillDirectory);
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        SynchronousTransactionObserver observer =
+                (accountNumber, transactionType, amount) -> threads.add(Thread.currentThread());
+        bus.subscribe(observer);
+
+        bus.publish("Account-000001", "Deposit", 1.0);
+
+        assertEquals(List.of(Thread.currentThread()), threads);
+        assertTrue(bus.getStats().isEmpty());
+    }
+
+    @Test
+    public void testSubscribeWhilePublishing() throws Exception {
+        bus = new TransactionEventBus(1024, OverflowPolicy.DROP, spillDirectory);
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> publishing = producer.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    bus.publish("Account-" + i, "Deposit", i);
+                }
+            });
+            for (int i = 0; i < 20; i++) {
+                bus.subscribe(new RecordingObserver(new CountDownLatch(0)));
+            }
+            publishing.get(10, TimeUnit.SECONDS);
+        } finally {
+            producer.shutdownNow();
+        }
+        assertEquals(20, bus.getStats().size());
+    }
+
+    @Test
+    public void testFailingObserverIsCountedAndKeepsReceiving() {
+        bus = new TransactionEventBus(16, OverflowPolicy.BLOCK, spillDirectory);
+        List<String> received = new CopyOnWriteArrayList<>();
+        TransactionObserver failing = (accountNumber, transactionType, amount) -> {
+            received.add(accountNumber);
+            if (received.size() == 1) {
+                throw new IllegalStateException("boom");
+            }
+        };
+        bus.subscribe(failing);
+        bus.publish("Account-000001", "Deposit", 1.0);
+        bus.publish("Account-000002", "Deposit", 1.0);
+
+        bus.unsubscribe(failing);
+
+        assertEquals(List.of("Account-000001", "Account-000002"), received);
+        assertFalse(bus.isSubscribed(failing));
+    }
+
+    private static List<String> expectedAccounts(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "Account-" + i).toList();
+    }
+
+    private static long countFiles(Path directory) throws Exception {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private void waitForEmptyQueue() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bus.getStats().get(0).queueDepth() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, bus.getStats().get(0).queueDepth());
+    }
+
+    private static void waitForDelivery(RecordingObserver observer, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (observer.accounts.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, observer.accounts.size());
+    }
+
+    private static final class RecordingObserver implements TransactionObserver {
+        final List<String> accounts = new CopyOnWriteArrayList<>();
+        final CountDownLatch release;
+
+        RecordingObserver(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void onTransaction(String accountNumber, String transactionType, double amount) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            accounts.add(accountNumber);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.shahrokhi.bankingsystem.service.transactionObservation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionLoggerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testFlushWritesPendingRecords() throws Exception {
+        Path logFile = tempDir.resolve("transactions_log.txt");
+        try (TransactionLogger logger = new TransactionLogger(logFile, 16, FsyncPolicy.NONE, 0)) {
+            logger.onTransaction("Account-000001", "Deposit", 100.0);
+            logger.onTransaction("Account-000001", "Withdraw", 12.5);
+            logger.flush();
+
+            assertEquals(List.of(
+                    "Account: Account-000001, Type: Deposit, Amount: 100.00",
+                    "Account: Account-000001, Type: Withdraw, Amount: 12.50"), Files.readAllLines(logFile));
+        }
+    }
+
+    @Test
+    public void testAmountsAreWrittenWithTwoDecimals() throws Exception {
+        Path logFile = tempDir.resolve("transactions_log.txt");
+        try (TransactionLogger logger = new TransactionLogger(logFile, 16, FsyncPolicy.NONE, 0)) {
+            logger.onTransaction("Account-000001", "Deposit", 0.05);
+            logger.onTransaction("Account-000001", "Deposit", 1234567.891);
+            logger.onTransaction("Account-000001", "Withdraw", -3.1);
+            logger.flush();
+
+            assertEquals(List.of(
+                    "Account: Account-000001, Type: Deposit, Amount: 0.05",
+                    "Account: Account-000001, Type: Deposit, Amount: 1234567.89",
+                    "Account: Account-000001, Type: Withdraw, Amount: -3.10"), Files.readAllLines(logFile));
+        }
+    }
+
+    @Test
+    public void testConcurrentProducersAreAllWrittenOnClose() throws Exception {
+        Path logFile = tempDir.resolve("transactions_log.txt");
+        int producers = 4;
+        int recordsPerProducer = 5_000;
+
+        // A small buffer makes producers block on the writer and exercises the batching path
+        TransactionLogger logger = new TransactionLogger(logFile, 64, FsyncPolicy.EVERY_BATCH, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                String accountNumber = String.format("Account-%06d", p);
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < recordsPerProducer; i++) {
+                        logger.onTransaction(accountNumber, "Deposit", 1.0);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            logger.close();
+        }
+
+        assertEquals(producers * recordsPerProducer, Files.readAllLines(logFile).size());
+        assertThrows(IllegalStateException.class, () -> logger.onTransaction("Account-000001", "Deposit", 1.0));
+    }
+
+    @Test
+    public void testFlushFailsWhenRecordsCouldNotBeWritten() throws Exception {
+        FileChannel channel = FileChannel.open(tempDir.resolve("transactions_log.txt"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        TransactionLogger logger = new TransactionLogger(channel, 16, FsyncPolicy.NONE, 0);
+        channel.close();
+
+        logger.onTransaction("Account-000001", "Deposit", 100.0);
+
+        assertThrows(UncheckedIOException.class, logger::flush);
+        // The writer keeps running, but the lost record is still reported on close
+        logger.onTransaction("Account-000001", "Deposit", 1.0);
+        assertThrows(UncheckedIOException.class, logger::close);
+    }
+
+    @Test
+    public void testInterruptedFlushFails() throws Exception {
+        try (TransactionLogger logger = new TransactionLogger(tempDir.resolve("transactions_log.txt"), 16,
+                FsyncPolicy.NONE, 0)) {
+            Thread.currentThread().interrupt();
+            try {
+                assertThrows(IllegalStateException.class, logger::flush);
+                assertTrue(Thread.currentThread().isInterrupted());
+            } finally {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    @Test
+    public void testAppendsToExistingLog() throws Exception {
+        Path logFile = tempDir.resolve("transactions_log.txt");
+        Files.writeString(logFile, "existing\n");
+
+        try (TransactionLogger logger = new TransactionLogger(logFile, 16, FsyncPolicy.INTERVAL, 10)) {
+            logger.onTransaction("Account-000002", "Deposit", 1.0);
+        }
+
+        assertEquals(List.of("existing", "Account: Account-000002, Type: Deposit, Amount: 1.00"),
+                Files.readAllLines(logFile));
+    }
+}
@@ -0,0 +1,63 @@
+package com.shahrokhi.bankingsystem.web;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.service.AccountService;
+import com.shahrokhi.bankingsystem.service.BankService;
+import com.shahrokhi.bankingsystem.service.accountImport.AccountImporter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(BankController.class)
+public class BankControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BankService bankService;
+
+    @MockBean
+    private AccountService accountService;
+
+    @MockBean
+    private AccountImporter accountImporter;
+
+    @Test
+    public void testCreateAccount() throws Exception {
+        when(bankService.addAccount(1L, "Holder", 100.0)).thenReturn(new Account("Account-000001", "Holder", 100.0));
+
+        mockMvc.perform(post("/banks/1/accounts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"holderName\": \"Holder\", \"initialBalance\": 100.0}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.accountNumber").value("Account-000001"))
+                .andExpect(jsonPath("$.balance").value(100.0));
+    }
+
+    @Test
+    public void testCreateAccountRejectsBalancesThatAreNotMoney() throws Exception {
+        // Not a number, beyond double range, above the largest amount and negative
+        for (String balance : new String[]{"\"NaN\"", "\"Infinity\"", "1e400", "1e300", "2e16", "-1"}) {
+            mockMvc.perform(post("/banks/1/accounts")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"holderName\": \"Holder\", \"initialBalance\": " + balance + "}"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        verify(bankService, never()).addAccount(anyLong(), any(), anyDouble());
+    }
+}
@@ -0,0 +1,96 @@
+package com.shahrokhi.bankingsystem.web;
+
+import com.shahrokhi.bankingsystem.service.admission.AdmissionControl;
+import com.shahrokhi.bankingsystem.service.metrics.LatencyHistogram;
+import com.shahrokhi.bankingsystem.service.metrics.TransactionMetrics;
+import com.shahrokhi.bankingsystem.service.metrics.TransactionOperation;
+import com.shahrokhi.bankingsystem.service.offHeap.OffHeapAccountStore;
+import com.shahrokhi.bankingsystem.service.persistence.OptimisticAccountStore;
+import com.shahrokhi.bankingsystem.service.transactionObservation.ObserverStats;
+import com.shahrokhi.bankingsystem.service.transactionObservation.OverflowPolicy;
+import com.shahrokhi.bankingsystem.service.transactionObservation.TransactionEventBus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(MetricsController.class)
+public class MetricsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SpyBean
+    private TransactionMetrics transactionMetrics;
+
+    @MockBean
+    private TransactionEventBus transactionEventBus;
+
+    @MockBean
+    private OptimisticAccountStore optimisticAccountStore;
+
+    @MockBean
+    private AdmissionControl admissionControl;
+
+    @MockBean
+    private OffHeapAccountStore offHeapAccountStore;
+
+    @Test
+    public void testTransactionMetrics() throws Exception {
+        transactionMetrics.taskSubmitted();
+        transactionMetrics.recordOperation(TransactionOperation.DEPOSIT, 2_000);
+
+        mockMvc.perform(get("/metrics/transactions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.operations.deposit.count").value(1))
+                .andExpect(jsonPath("$.operations.deposit.maxNanos").value(2_000))
+                .andExpect(jsonPath("$.operations.transfer.count").value(0))
+                .andExpect(jsonPath("$.queueDepth").value(1))
+                .andExpect(jsonPath("$.inFlight").value(1));
+    }
+
+    @Test
+    public void testObserverStats() throws Exception {
+        when(transactionEventBus.getStats()).thenReturn(List.of(new ObserverStats("TransactionLogger",
+                OverflowPolicy.SPILL, 10, 7, 0, 2, 0, 1, 3, new LatencyHistogram().snapshot())));
+
+        mockMvc.perform(get("/metrics/observers"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].observer").value("TransactionLogger"))
+                .andExpect(jsonPath("$[0].overflowPolicy").value("SPILL"))
+                .andExpect(jsonPath("$[0].spilled").value(2))
+                .andExpect(jsonPath("$[0].lag").value(3));
+    }
+
+    @Test
+    public void testOptimisticStats() throws Exception {
+        when(optimisticAccountStore.getStats()).thenReturn(new OptimisticAccountStore.OptimisticStats(40, 5, 1));
+
+        mockMvc.perform(get("/metrics/optimistic"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.commits").value(40))
+                .andExpect(jsonPath("$.conflicts").value(5))
+                .andExpect(jsonPath("$.exhausted").value(1));
+    }
+
+    @Test
+    public void testAdmissionStats() throws Exception {
+        when(admissionControl.getStats()).thenReturn(new AdmissionControl.AdmissionStats(12, 100, 500, 3, 4, 0, 7));
+
+        mockMvc.perform(get("/metrics/admission"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pending").value(12))
+                .andExpect(jsonPath("$.maxPending").value(100))
+                .andExpect(jsonPath("$.overloaded").value(4))
+                .andExpect(jsonPath("$.accountRateLimited").value(7));
+    }
+}
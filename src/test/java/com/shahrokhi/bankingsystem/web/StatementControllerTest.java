@@ -0,0 +1,94 @@
+package com.shahrokhi.bankingsystem.web;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.service.AccountService;
+import com.shahrokhi.bankingsystem.service.transactionHistory.StatementEntry;
+import com.shahrokhi.bankingsystem.service.transactionHistory.StatementPage;
+import com.shahrokhi.bankingsystem.service.transactionHistory.StatementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.Writer;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(StatementController.class)
+public class StatementControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private StatementService statementService;
+
+    @MockBean
+    private AccountService accountService;
+
+    @Test
+    public void testStatementPage() throws Exception {
+        when(accountService.findByAccountNumber("Account-000001"))
+                .thenReturn(Optional.of(new Account("Account-000001", "Holder", 0.0)));
+        when(statementService.page("Account-000001", 40, 2)).thenReturn(new StatementPage(List.of(
+                new StatementEntry(41, "Account-000001", "Deposit", 10.0, Instant.EPOCH),
+                new StatementEntry(45, "Account-000001", "Withdraw", 2.5, Instant.EPOCH)), 45L));
+
+        mockMvc.perform(get("/accounts/Account-000001/statement").param("after", "40").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entries.length()").value(2))
+                .andExpect(jsonPath("$.entries[1].type").value("Withdraw"))
+                .andExpect(jsonPath("$.nextCursor").value(45));
+    }
+
+    @Test
+    public void testStatementOfUnknownAccount() throws Exception {
+        when(accountService.findByAccountNumber(anyString())).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/accounts/Account-999999/statement"))
+                .andExpect(status().isNotFound());
+        verifyNoInteractions(statementService);
+    }
+
+    @Test
+    public void testStatementRejectsOversizedPage() throws Exception {
+        when(accountService.findByAccountNumber("Account-000001"))
+                .thenReturn(Optional.of(new Account("Account-000001", "Holder", 0.0)));
+
+        mockMvc.perform(get("/accounts/Account-000001/statement").param("limit", "100000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testCsvExportIsStreamed() throws Exception {
+        when(accountService.findByAccountNumber("Account-000001"))
+                .thenReturn(Optional.of(new Account("Account-000001", "Holder", 0.0)));
+        when(statementService.exportCsv(eq("Account-000001"), any())).thenAnswer(invocation -> {
+            Writer out = invocation.getArgument(1);
+            out.write("id,account_number,type,amount,created_at\n1,Account-000001,Deposit,10.00,1970-01-01T00:00:00Z\n");
+            return 1L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/accounts/Account-000001/statement.csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(2, body.split("\n").length);
+    }
+}
@@ -0,0 +1,210 @@
+package com.shahrokhi.bankingsystem.web;
+
+import com.shahrokhi.bankingsystem.model.Account;
+import com.shahrokhi.bankingsystem.service.AccountService;
+import com.shahrokhi.bankingsystem.service.BankService;
+import com.shahrokhi.bankingsystem.service.TransactionResult;
+import com.shahrokhi.bankingsystem.service.TransferResult;
+import com.shahrokhi.bankingsystem.service.admission.RejectionReason;
+import com.shahrokhi.bankingsystem.service.admission.TransactionRejectedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(TransactionController.class)
+public class TransactionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BankService bankService;
+
+    @MockBean
+    private AccountService accountService;
+
+    @Test
+    public void testDeposit() throws Exception {
+        Account account = new Account("Account-000001", "Holder", 100.0);
+        when(accountService.findAccount("Account-000001")).thenReturn(account);
+        when(bankService.submitDeposit(account, 50.0))
+                .thenReturn(CompletableFuture.completedFuture(new TransactionResult(true, "Account-000001", 150.0)));
+
+        MvcResult result = mockMvc.perform(post("/accounts/Account-000001/deposit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 50.0}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.balance").value(150.0));
+    }
+
+    @Test
+    public void testDepositConflictIsReportedAsConflict() throws Exception {
+        Account account = new Account("Account-000001", "Holder", 100.0);
+        when(accountService.findAccount("Account-000001")).thenReturn(account);
+        when(bankService.submitDeposit(account, 50.0))
+                .thenReturn(CompletableFuture.failedFuture(new OptimisticLockingFailureException("busy")));
+
+        MvcResult result = mockMvc.perform(post("/accounts/Account-000001/deposit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 50.0}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void testShedDepositsCarryRetryAfter() throws Exception {
+        Account account = new Account("Account-000001", "Holder", 100.0);
+        when(accountService.findAccount("Account-000001")).thenReturn(account);
+        when(bankService.submitDeposit(account, 50.0))
+                .thenReturn(CompletableFuture.failedFuture(new TransactionRejectedException(
+                        RejectionReason.OVERLOADED, Duration.ofSeconds(1), "busy")))
+                .thenReturn(CompletableFuture.failedFuture(new TransactionRejectedException(
+                        RejectionReason.ACCOUNT_RATE_LIMITED, Duration.ofMillis(2_500), "slow down")));
+
+        for (HttpStatus expected : List.of(HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.TOO_MANY_REQUESTS)) {
+            MvcResult result = mockMvc.perform(post("/accounts/Account-000001/deposit")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": 50.0}"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().is(expected.value()))
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER,
+                            expected == HttpStatus.SERVICE_UNAVAILABLE ? "1" : "3"));
+        }
+    }
+
+    @Test
+    public void testWithdrawFromUnknownAccount() throws Exception {
+        when(accountService.findAccount(anyString())).thenReturn(null);
+
+        mockMvc.perform(post("/accounts/Account-999999/withdraw")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 50.0}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testDepositRejectsNonPositiveAmount() throws Exception {
+        mockMvc.perform(post("/accounts/Account-000001/deposit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": -5.0}"))
+                .andExpect(status().isBadRequest());
+
+        verify(bankService, never()).submitDeposit(any(), anyDouble());
+    }
+
+    @Test
+    public void testDepositRejectsAmountsThatAreNotMoney() throws Exception {
+        // Not a number, beyond double range, and less than one minor unit once rounded
+        for (String amount : new String[]{"\"NaN\"", "1e400", "0.004", "1e300"}) {
+            mockMvc.perform(post("/accounts/Account-000001/deposit")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": " + amount + "}"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        verify(bankService, never()).submitDeposit(any(), anyDouble());
+    }
+
+    @Test
+    public void testTransferBatch() throws Exception {
+        Account from = new Account("Account-000001", "From", 100.0);
+        Account to = new Account("Account-000002", "To", 0.0);
+        when(accountService.findAccount("Account-000001")).thenReturn(from);
+        when(accountService.findAccount("Account-000002")).thenReturn(to);
+        when(accountService.findAccount("Account-999999")).thenReturn(null);
+        when(bankService.submitTransfer(eq(from), eq(to), eq(30.0))).thenReturn(CompletableFuture.completedFuture(
+                new TransferResult(true, "Account-000001", 70.0, "Account-000002", 30.0)));
+        when(bankService.submitTransfer(eq(from), eq(to), eq(500.0))).thenReturn(CompletableFuture.completedFuture(
+                new TransferResult(false, "Account-000001", 70.0, "Account-000002", 30.0)));
+
+        MvcResult result = mockMvc.perform(post("/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"fromAccountNumber": "Account-000001", "toAccountNumber": "Account-000002", "amount": 30.0},
+                                 {"fromAccountNumber": "Account-000001", "toAccountNumber": "Account-999999", "amount": 10.0},
+                                 {"fromAccountNumber": "Account-000001", "toAccountNumber": "Account-000002", "amount": 500.0},
+                                 {"fromAccountNumber": "Account-000001", "toAccountNumber": "Account-000002", "amount": 0.0}]
+                                """))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("{\"index\":0,\"success\":true,\"error\":null,\"fromBalance\":70.0,\"toBalance\":30.0}", lines[0]);
+        assertEquals("{\"index\":1,\"success\":false,\"error\":\"ACCOUNT_NOT_FOUND\",\"fromBalance\":null,\"toBalance\":null}", lines[1]);
+        assertEquals("{\"index\":2,\"success\":false,\"error\":\"INSUFFICIENT_BALANCE\",\"fromBalance\":70.0,\"toBalance\":30.0}", lines[2]);
+        assertEquals("{\"index\":3,\"success\":false,\"error\":\"INVALID_AMOUNT\",\"fromBalance\":null,\"toBalance\":null}", lines[3]);
+    }
+
+    @Test
+    public void testTransferBatchWithNetting() throws Exception {
+        Account from = new Account("Account-000001", "From", 100.0);
+        Account to = new Account("Account-000002", "To", 0.0);
+        when(accountService.findAccount("Account-000001")).thenReturn(from);
+        when(accountService.findAccount("Account-000002")).thenReturn(to);
+        when(bankService.submitNetted(any())).thenReturn(CompletableFuture.completedFuture(List.of(
+                new TransferResult(true, "Account-000001", 40.0, "Account-000002", 60.0),
+                new TransferResult(true, "Account-000002", 50.0, "Account-000001", 50.0))));
+
+        MvcResult result = mockMvc.perform(post("/transfers/batch").param("netting", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"fromAccountNumber": "Account-000001", "toAccountNumber": "Account-000002", "amount": 60.0},
+                                 {"fromAccountNumber": "Account-000001", "toAccountNumber": "Account-000002", "amount": -1.0},
+                                 {"fromAccountNumber": "Account-000002", "toAccountNumber": "Account-000001", "amount": 10.0}]
+                                """))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(3, lines.length);
+        assertEquals("{\"index\":0,\"success\":true,\"error\":null,\"fromBalance\":40.0,\"toBalance\":60.0}", lines[0]);
+        assertEquals("{\"index\":1,\"success\":false,\"error\":\"INVALID_AMOUNT\",\"fromBalance\":null,\"toBalance\":null}", lines[1]);
+        assertEquals("{\"index\":2,\"success\":true,\"error\":null,\"fromBalance\":50.0,\"toBalance\":50.0}", lines[2]);
+        verify(bankService, never()).submitTransfer(any(), any(), anyDouble());
+    }
+}